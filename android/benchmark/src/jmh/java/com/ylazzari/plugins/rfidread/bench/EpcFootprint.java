@@ -0,0 +1,115 @@
+package com.ylazzari.plugins.rfidread.bench;
+
+import com.ylazzari.plugins.rfidread.EpcSet;
+import com.ylazzari.plugins.rfidread.TagAggregator;
+import com.ylazzari.plugins.rfidread.TargetTagIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retained heap of the per-tag structures for a large inventory: the found
+ * set of filtered reading, the target index and the aggregator, plus the
+ * {@code String}-keyed concurrent set the found set used to be, as reference.
+ *
+ * Not a JMH benchmark: it measures heap after full GCs, so run it alone with
+ * a fixed heap and a serial collector, e.g.
+ * {@code java -Xmx512m -XX:+UseSerialGC -cp build/libs/benchmark-jmh.jar
+ * com.ylazzari.plugins.rfidread.bench.EpcFootprint [tags]}.
+ */
+public final class EpcFootprint {
+
+    private static final int[] EPC_HEX_LENGTHS = {24, 32, 64};
+
+    // Referencias estáticas: el JIT no puede dar por muerta la estructura medida
+    private static Object retained;
+    private static List<String> input;
+
+    private EpcFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int tags = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        System.out.printf(Locale.US, "%d tags, MB retained%n", tags);
+        System.out.printf(Locale.US, "%-8s %12s %10s %10s %12s%n", "epc", "String set", "EpcSet", "targets", "aggregator");
+        for (int length : EPC_HEX_LENGTHS) {
+            long before = usedHeap();
+            Set<String> strings = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            Random random = new Random(TagFixtures.SEED);
+            for (int i = 0; i < tags; i++) {
+                strings.add(randomEpc(random, length));
+            }
+            retained = strings;
+            strings = null;
+            long stringSet = usedHeap() - before;
+            retained = null;
+
+            before = usedHeap();
+            EpcSet found = new EpcSet();
+            random = new Random(TagFixtures.SEED);
+            for (int i = 0; i < tags; i++) {
+                found.add(randomEpc(random, length));
+            }
+            retained = found;
+            found = null;
+            long epcSet = usedHeap() - before;
+            retained = null;
+
+            before = usedHeap();
+            random = new Random(TagFixtures.SEED);
+            input = new ArrayList<>(tags);
+            for (int i = 0; i < tags; i++) {
+                input.add(randomEpc(random, length));
+            }
+            retained = new TargetTagIndex(input, tags);
+            input = null;
+            long targets = usedHeap() - before;
+            retained = null;
+
+            before = usedHeap();
+            TagAggregator aggregator = new TagAggregator();
+            random = new Random(TagFixtures.SEED);
+            for (int i = 0; i < tags; i++) {
+                aggregator.record(randomEpc(random, length), "-55.20", "1", 1_700_000_000_000L + i);
+            }
+            aggregator.drainChanged();
+            retained = aggregator;
+            aggregator = null;
+            long aggregated = usedHeap() - before;
+            retained = null;
+
+            System.out.printf(Locale.US, "%-8s %12.2f %10.2f %10.2f %12.2f%n", length + " hex",
+                    mb(stringSet), mb(epcSet), mb(targets), mb(aggregated));
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 8; i++) {
+            System.gc();
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String randomEpc(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = "0123456789ABCDEF".charAt(random.nextInt(16));
+        }
+        return new String(chars);
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ylazzari.plugins.rfidread.bench;
+
+import com.ylazzari.plugins.rfidread.EpcValidator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-read EPC validation: the allocation-free validator against the
+ * {@code matches("[0]+")} check it replaced. The module runs JMH with the
+ * gc profiler, so {@code gc.alloc.rate.norm} reports bytes per read: 0 for
+ * {@code validator}. EpcValidatorAllocationTest checks the same in the unit tests.
+ */
+@State(Scope.Thread)
+public class EpcValidationBenchmark {
+
+    @Param({"24", "32", "64"})
+    public int epcHexLength;
+
+    private final EpcValidator validator = new EpcValidator();
+    private String[] epcs;
+    private int index;
+
+    @Setup
+    public void setup() {
+        epcs = new TagFixtures(epcHexLength, 1000, 4096).epcs;
+    }
+
+    @Benchmark
+    public boolean validator() {
+        return validator.isValid(next());
+    }
+
+    @Benchmark
+    public boolean legacyRegex() {
+        String epc = next();
+        return epc != null && !epc.isEmpty() && !epc.matches("[0]+");
+    }
+
+    private String next() {
+        String epc = epcs[index];
+        index = (index + 1) & (epcs.length - 1);
+        return epc;
+    }
+}
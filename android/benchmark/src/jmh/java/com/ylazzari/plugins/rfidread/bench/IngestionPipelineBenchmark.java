@@ -0,0 +1,193 @@
+package com.ylazzari.plugins.rfidread.bench;
+
+import com.ylazzari.plugins.rfidread.CompactTagEncoder;
+import com.ylazzari.plugins.rfidread.EpcSet;
+import com.ylazzari.plugins.rfidread.EpcValidator;
+import com.ylazzari.plugins.rfidread.TagAggregator;
+import com.ylazzari.plugins.rfidread.TagRingBuffer;
+import com.ylazzari.plugins.rfidread.TargetTagIndex;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * The worker-side path of RFIDPlugin for a burst of {@value #BURST} reads:
+ * ring buffer hand-off, validation, then one of the delivery modes
+ * (per-tag JSON, batched JSON, compact batches, native aggregation,
+ * filtered search).
+ * Scores are per read.
+ *
+ * JSON serialization uses org.json, which is what JSObject extends and
+ * what the bridge serializes; the bridge call itself is not included.
+ */
+@State(Scope.Thread)
+public class IngestionPipelineBenchmark {
+
+    static final int BURST = 1024;
+    static final int BATCH_MAX_TAGS = 100;
+
+    @Param({"24", "32"})
+    public int epcHexLength;
+
+    @Param({"100", "10000"})
+    public int populationSize;
+
+    private TagFixtures fixtures;
+    private EpcValidator validator;
+    private TagRingBuffer ring;
+    private TargetTagIndex targets;
+    private TagAggregator aggregator;
+    private EpcSet foundTags;
+    private JSONArray pendingBatch;
+    private CompactTagEncoder compactEncoder;
+    private final String[] compactEpcs = new String[BATCH_MAX_TAGS];
+    private final String[] compactRssis = new String[BATCH_MAX_TAGS];
+    private final long[] compactTimestamps = new long[BATCH_MAX_TAGS];
+    private int compactCount;
+    private int offset;
+
+    @Setup
+    public void setup() {
+        fixtures = new TagFixtures(epcHexLength, populationSize, BURST * 8);
+        validator = new EpcValidator();
+        ring = new TagRingBuffer(BURST * 2);
+        List<String> targetList = fixtures.targets(populationSize);
+        targets = new TargetTagIndex(targetList, targetList.size());
+        aggregator = new TagAggregator();
+        foundTags = new EpcSet();
+        compactEncoder = new CompactTagEncoder();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetState() {
+        aggregator.clear();
+        foundTags.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void perTagEvents(Blackhole bh) {
+        fill();
+        ring.drain((epc, rssi, antenna, timestamp) -> {
+            if (!validator.isValid(epc)) {
+                return;
+            }
+            JSONObject tag = new JSONObject();
+            tag.put("epc", epc);
+            tag.put("rssi", rssi);
+            tag.put("timestamp", timestamp);
+            bh.consume(tag.toString());
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void batchedEvents(Blackhole bh) {
+        fill();
+        pendingBatch = new JSONArray();
+        ring.drain((epc, rssi, antenna, timestamp) -> {
+            if (!validator.isValid(epc)) {
+                return;
+            }
+            JSONObject tag = new JSONObject();
+            tag.put("epc", epc);
+            tag.put("rssi", rssi);
+            tag.put("timestamp", timestamp);
+            pendingBatch.put(tag);
+            if (pendingBatch.length() == BATCH_MAX_TAGS) {
+                emitBatch(bh);
+            }
+        });
+        if (pendingBatch.length() > 0) {
+            emitBatch(bh);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void compactBatches(Blackhole bh) {
+        fill();
+        compactCount = 0;
+        ring.drain((epc, rssi, antenna, timestamp) -> {
+            if (!validator.isValid(epc)) {
+                return;
+            }
+            compactEpcs[compactCount] = epc;
+            compactRssis[compactCount] = rssi;
+            compactTimestamps[compactCount] = timestamp;
+            if (++compactCount == BATCH_MAX_TAGS) {
+                emitCompactBatch(bh);
+            }
+        });
+        if (compactCount > 0) {
+            emitCompactBatch(bh);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void aggregated(Blackhole bh) {
+        fill();
+        ring.drain((epc, rssi, antenna, timestamp) -> {
+            if (validator.isValid(epc)) {
+                aggregator.record(epc, rssi, antenna, timestamp);
+            }
+        });
+        bh.consume(aggregator.drainChanged());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void filteredSearch(Blackhole bh) {
+        fill();
+        ring.drain((epc, rssi, antenna, timestamp) -> {
+            if (!validator.isValid(epc) || !targets.contains(epc)) {
+                return;
+            }
+            if (foundTags.add(epc)) {
+                JSONObject tag = new JSONObject();
+                tag.put("epc", epc);
+                tag.put("rssi", rssi);
+                tag.put("timestamp", timestamp);
+                bh.consume(tag.toString());
+            }
+        });
+    }
+
+    private void fill() {
+        int base = offset;
+        for (int i = 0; i < BURST; i++) {
+            int j = base + i;
+            ring.offer(fixtures.epcs[j], fixtures.rssis[j], fixtures.antennas[j], fixtures.timestamps[j]);
+        }
+        offset = (offset + BURST) % (fixtures.epcs.length - BURST);
+    }
+
+    private void emitBatch(Blackhole bh) {
+        JSONObject batch = new JSONObject();
+        batch.put("tags", pendingBatch);
+        batch.put("count", pendingBatch.length());
+        bh.consume(batch.toString());
+        pendingBatch = new JSONArray();
+    }
+
+    private void emitCompactBatch(Blackhole bh) {
+        JSONObject batch = new JSONObject();
+        batch.put("data", compactEncoder.encode(compactEpcs, compactRssis, compactTimestamps, compactCount,
+                compactTimestamps[0]));
+        batch.put("count", compactCount);
+        batch.put("baseTimestamp", compactTimestamps[0]);
+        bh.consume(batch.toString());
+        compactCount = 0;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ylazzari.plugins.rfidread.bench;
+
+import com.ylazzari.plugins.rfidread.EpcSet;
+import com.ylazzari.plugins.rfidread.InventoryState;
+import com.ylazzari.plugins.rfidread.TagRingBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Start/stop/trigger storm against {@link InventoryState}, wired the way
+ * {@code RFIDPlugin} uses it: a simulated radio thread offers reads only
+ * while an inventory is active, the worker drains them into the found set,
+ * three control threads race starts and stops of random kinds, and a status
+ * thread counts and clears the found set like getFilteredReadingStatus /
+ * clearFoundTags.
+ *
+ * Each iteration fails with an {@link IllegalStateException} if two
+ * inventories were ever owned at once or a read accepted by the buffer was
+ * not delivered to the worker.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventoryStateStressBenchmark {
+
+    private static final InventoryState.Kind[] KINDS = InventoryState.Kind.values();
+
+    private InventoryState state;
+    private TagRingBuffer buffer;
+    private EpcSet foundTags;
+    private TagFixtures fixtures;
+    private TagRingBuffer.Handler handler;
+
+    // Dueños de un inventario según las transiciones ganadas; nunca más de uno
+    private final AtomicInteger owners = new AtomicInteger();
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private int radioCursor = 0;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        state = new InventoryState();
+        buffer = new TagRingBuffer(4096);
+        foundTags = new EpcSet();
+        fixtures = new TagFixtures(24, 2_000, 1 << 16);
+        handler = (epc, rssi, antenna, timestamp) -> {
+            foundTags.add(epc);
+            delivered.lazySet(delivered.get() + 1);
+        };
+        owners.set(0);
+        offered.set(0);
+        delivered.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        buffer.drain(handler);
+        if (owners.get() > 1) {
+            throw new IllegalStateException(owners.get() + " inventories owned at once");
+        }
+        if (offered.get() != delivered.get()) {
+            throw new IllegalStateException("Lost reads: " + offered.get() + " accepted, "
+                    + delivered.get() + " delivered");
+        }
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(3)
+    public int control() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        InventoryState.Kind kind = KINDS[random.nextInt(KINDS.length)];
+        if (random.nextBoolean()) {
+            if (!state.tryStart(kind)) {
+                return 0;
+            }
+            claim();
+            state.started(kind);
+            return 1;
+        }
+        if (state.requestStop(kind)) {
+            owners.decrementAndGet();
+            state.stopped(kind);
+            return 3;
+        }
+        return 0;
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public boolean radio() {
+        InventoryState.Kind kind = state.getKind();
+        if (kind == null || !state.isActive(kind)) {
+            return false;
+        }
+        int i = radioCursor++ & (fixtures.epcs.length - 1);
+        if (buffer.offer(fixtures.epcs[i], fixtures.rssis[i], fixtures.antennas[i], fixtures.timestamps[i])) {
+            offered.lazySet(offered.get() + 1);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public int worker() {
+        return buffer.drain(handler);
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public int status() {
+        int count = foundTags.size();
+        if ((count & 0xFF) == 0xFF) {
+            foundTags.clear();
+        }
+        return count;
+    }
+
+    private void claim() {
+        int current = owners.incrementAndGet();
+        if (current != 1) {
+            throw new IllegalStateException(current + " inventories owned at once");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ylazzari.plugins.rfidread.bench;
+
+import com.ylazzari.plugins.rfidread.InventoryJournal;
+import com.ylazzari.plugins.rfidread.InventorySession;
+import com.ylazzari.plugins.rfidread.TagAggregator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@code RFIDPlugin.load()} does after the process was killed mid-count:
+ * rebuild the aggregated state of a {@value #TAGS}-tag session from its last
+ * checkpoint plus the journal tail. {@code tailRounds} is how many full
+ * passes over the population were journaled after the checkpoint; with
+ * {@code checkpoint=false} the whole journal is replayed. Budget: 1 s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SessionRecoveryBenchmark {
+
+    static final int TAGS = 100_000;
+    static final int ROUNDS = 5;
+
+    @Param({"true", "false"})
+    public boolean checkpoint;
+
+    @Param({"1", "3"})
+    public int tailRounds;
+
+    private File directory;
+    private InventorySession session;
+    private InventoryJournal journal;
+    private TagAggregator aggregator;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("rfid-journal").toFile();
+        TagFixtures fixtures = new TagFixtures(24, TAGS, TAGS);
+        TagAggregator source = new TagAggregator();
+        journal = new InventoryJournal(directory);
+        session = InventorySession.start(directory);
+        source.setJournalTracking(true);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < TAGS; i++) {
+                source.record(fixtures.population[i], fixtures.rssis[i], fixtures.antennas[i],
+                        fixtures.timestamps[i] + round);
+            }
+            for (TagAggregator.Entry entry : source.drainUnjournaled()) {
+                journal.append(entry);
+            }
+            if (checkpoint && round == ROUNDS - 1 - tailRounds) {
+                session.writeCheckpoint(source.snapshot(), journal.getRecordCount());
+            }
+        }
+        aggregator = new TagAggregator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public InventorySession.Recovery recover() throws IOException {
+        return session.recover(journal, aggregator);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ylazzari.plugins.rfidread.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic reads shaped like what {@code UHFTAGInfo} hands the plugin:
+ * upper-case hex EPCs of a fixed length, RSSI as a decimal string, antenna "1".
+ */
+final class TagFixtures {
+
+    static final long SEED = 42L;
+
+    final String[] population;
+    final String[] epcs;
+    final String[] rssis;
+    final String[] antennas;
+    final long[] timestamps;
+
+    /**
+     * @param epcHexLength 24 for 96-bit EPCs, 32 for 128-bit, up to 124
+     * @param populationSize distinct tags in the field
+     * @param reads length of the read stream drawn from the population
+     */
+    TagFixtures(int epcHexLength, int populationSize, int reads) {
+        Random random = new Random(SEED);
+        population = new String[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            population[i] = randomEpc(random, epcHexLength);
+        }
+
+        epcs = new String[reads];
+        rssis = new String[reads];
+        antennas = new String[reads];
+        timestamps = new long[reads];
+        long now = 1_700_000_000_000L;
+        for (int i = 0; i < reads; i++) {
+            epcs[i] = population[random.nextInt(populationSize)];
+            rssis[i] = String.format(Locale.US, "%.2f", -55 + random.nextGaussian() * 6);
+            antennas[i] = "1";
+            timestamps[i] = now + i;
+        }
+    }
+
+    /** Half of the population, as the target list of a filtered search. */
+    List<String> targets(int count) {
+        List<String> targets = new ArrayList<>(count);
+        for (int i = 0; i < count && i < population.length; i += 2) {
+            targets.add(population[i]);
+        }
+        return targets;
+    }
+
+    private static String randomEpc(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = "0123456789ABCDEF".charAt(random.nextInt(16));
+        }
+        chars[0] = 'E';
+        return new String(chars);
+    }
+}
@@ -0,0 +1,286 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.Arrays;
+
+/**
+ * Adjusts the reader power during inventory from what the reads look like.
+ *
+ * Reads are fed from the inventory worker into a 1 dB RSSI histogram; every
+ * interval {@link #evaluate} looks at the window and moves the power by one
+ * step at most:
+ * <ul>
+ * <li>{@link Goal#ZONE}: keeps the reads inside [minRssi, maxRssi]. Too many
+ * reads weaker than minRssi mean the field reaches the neighbouring shelf,
+ * so power goes down; when even the weakest reads are well inside the zone
+ * (or nothing is read) the field can still grow, so power goes up. A
+ * power that produced weak reads is not retried for a few intervals, so
+ * the controller settles instead of bouncing across the edge.</li>
+ * <li>{@link Goal#DISCOVERY}: hill climbs on new unique EPCs per second,
+ * reversing direction when the rate drops after a step.</li>
+ * </ul>
+ * Every decision is recorded in {@link PerfStats}.
+ */
+public class AdaptivePowerController {
+
+    public enum Goal { ZONE, DISCOVERY }
+
+    public static final long DEFAULT_INTERVAL_MS = 1000;
+    public static final int DEFAULT_STEP = 2;
+    // Fracción de lecturas bajo minRssi a partir de la cual se baja / por debajo de la cual se puede subir
+    static final float WEAK_HIGH = 0.15f;
+    static final float WEAK_LOW = 0.03f;
+    // Margen del percentil 10 sobre minRssi para considerar que el campo aún puede crecer
+    static final float EDGE_MARGIN_DB = 3f;
+    static final int MIN_READS = 20;
+    // Tras bajar por lecturas débiles no se vuelve a esa potencia durante estos intervalos
+    static final int CEILING_HOLD_INTERVALS = 10;
+
+    private static final int HISTOGRAM_MIN_DBM = -100;
+    private static final int HISTOGRAM_BINS = 101; // -100..0 dBm
+
+    public static class Config {
+        public Goal goal = Goal.ZONE;
+        public int minPower = 5;
+        public int maxPower = 30;
+        public int step = DEFAULT_STEP;
+        /** Read zone for {@link Goal#ZONE}, in dBm. */
+        public float minRssi = -70f;
+        public float maxRssi = -40f;
+        public long intervalMs = DEFAULT_INTERVAL_MS;
+    }
+
+    public interface Actuator {
+        boolean setPower(int power);
+    }
+
+    public interface UniqueCounter {
+        int uniqueCount();
+    }
+
+    /** One evaluation that changed, or tried to change, the power. */
+    public static final class Decision {
+        public final long timestamp;
+        public final int fromPower;
+        public final int toPower;
+        public final boolean applied;
+        public final String reason;
+        public final float readsPerSecond;
+        public final float newTagsPerSecond;
+        public final float rssiP10;
+        public final float rssiMedian;
+        public final float weakFraction;
+
+        Decision(long timestamp, int fromPower, int toPower, boolean applied, String reason, float readsPerSecond,
+                 float newTagsPerSecond, float rssiP10, float rssiMedian, float weakFraction) {
+            this.timestamp = timestamp;
+            this.fromPower = fromPower;
+            this.toPower = toPower;
+            this.applied = applied;
+            this.reason = reason;
+            this.readsPerSecond = readsPerSecond;
+            this.newTagsPerSecond = newTagsPerSecond;
+            this.rssiP10 = rssiP10;
+            this.rssiMedian = rssiMedian;
+            this.weakFraction = weakFraction;
+        }
+    }
+
+    private final Goal goal;
+    private final int minPower;
+    private final int maxPower;
+    private final int step;
+    private final float minRssi;
+    private final float maxRssi;
+    private final Actuator actuator;
+    private final UniqueCounter uniqueCounter;
+    private final PerfStats perfStats;
+
+    private int power;
+    private final int[] histogram = new int[HISTOGRAM_BINS];
+    private int rssiReads = 0;
+    private int weakReads = 0;
+    private int reads = 0;
+    private long windowStartMs;
+    private int uniqueAtWindowStart;
+
+    // Potencia que dio lecturas débiles (ZONE) y cuántos intervalos más se evita
+    private int ceiling = Integer.MAX_VALUE;
+    private int ceilingIntervals = 0;
+
+    // Estado del hill climbing (DISCOVERY)
+    private int direction = 1;
+    private float previousDiscoveryRate = -1f;
+
+    private long adjustments = 0;
+
+    public AdaptivePowerController(Config config, int initialPower, long nowMs, Actuator actuator,
+                                   UniqueCounter uniqueCounter, PerfStats perfStats) {
+        if (config.minPower > config.maxPower) {
+            throw new IllegalArgumentException("minPower must not exceed maxPower");
+        }
+        if (config.goal == Goal.ZONE && !(config.maxRssi > config.minRssi)) {
+            throw new IllegalArgumentException("maxRssi must be greater than minRssi");
+        }
+        this.goal = config.goal;
+        this.minPower = config.minPower;
+        this.maxPower = config.maxPower;
+        this.step = Math.max(1, config.step);
+        this.minRssi = config.minRssi;
+        this.maxRssi = config.maxRssi;
+        this.actuator = actuator;
+        this.uniqueCounter = uniqueCounter;
+        this.perfStats = perfStats;
+        this.power = clamp(initialPower);
+        this.windowStartMs = nowMs;
+        this.uniqueAtWindowStart = uniqueCounter.uniqueCount();
+    }
+
+    /**
+     * Feeds one read; {@code rssiCentiDbm} as returned by
+     * {@link CompactTagEncoder#parseRssiCentiDbm}.
+     */
+    public synchronized void onRead(short rssiCentiDbm) {
+        reads++;
+        if (rssiCentiDbm == CompactTagEncoder.RSSI_MISSING) {
+            return;
+        }
+        float dbm = rssiCentiDbm / 100f;
+        int bin = Math.round(dbm) - HISTOGRAM_MIN_DBM;
+        histogram[Math.max(0, Math.min(HISTOGRAM_BINS - 1, bin))]++;
+        rssiReads++;
+        if (dbm < minRssi) {
+            weakReads++;
+        }
+    }
+
+    /**
+     * Power the controller starts from or was told to use, e.g. after a manual setPower.
+     */
+    public synchronized void setCurrentPower(int power) {
+        this.power = clamp(power);
+        previousDiscoveryRate = -1f;
+    }
+
+    public synchronized int getPower() {
+        return power;
+    }
+
+    public synchronized long getAdjustments() {
+        return adjustments;
+    }
+
+    public Goal getGoal() {
+        return goal;
+    }
+
+    /**
+     * Decides on the window since the previous call and starts a new one.
+     * Returns the decision, or null when the power stays.
+     */
+    public Decision evaluate(long nowMs) {
+        int from;
+        int target;
+        String reason;
+        float readsPerSecond;
+        float newTagsPerSecond;
+        float p10;
+        float median;
+        float weakFraction;
+        synchronized (this) {
+            long elapsedMs = Math.max(1, nowMs - windowStartMs);
+            int unique = uniqueCounter.uniqueCount();
+            readsPerSecond = reads * 1000f / elapsedMs;
+            newTagsPerSecond = Math.max(0, unique - uniqueAtWindowStart) * 1000f / elapsedMs;
+            p10 = percentile(0.10f);
+            median = percentile(0.50f);
+            weakFraction = rssiReads > 0 ? (float) weakReads / rssiReads : 0f;
+
+            target = power;
+            reason = null;
+            if (goal == Goal.ZONE) {
+                if (ceilingIntervals > 0 && --ceilingIntervals == 0) {
+                    ceiling = Integer.MAX_VALUE;
+                }
+                if (reads == 0) {
+                    target = power + step;
+                    reason = "no reads";
+                } else if (rssiReads >= MIN_READS) {
+                    if (weakFraction > WEAK_HIGH) {
+                        target = power - step;
+                        reason = "reads below minRssi";
+                        ceiling = power;
+                        ceilingIntervals = CEILING_HOLD_INTERVALS;
+                    } else if (median > maxRssi) {
+                        target = power - step;
+                        reason = "median above maxRssi";
+                    } else if (weakFraction < WEAK_LOW && p10 > minRssi + EDGE_MARGIN_DB
+                            && power + step < ceiling) {
+                        target = power + step;
+                        reason = "field inside the zone";
+                    }
+                }
+            } else if (reads > 0) {
+                if (previousDiscoveryRate >= 0 && newTagsPerSecond < previousDiscoveryRate) {
+                    direction = -direction;
+                }
+                // Sin tags nuevos se busca más alcance
+                if (newTagsPerSecond == 0) {
+                    direction = 1;
+                }
+                previousDiscoveryRate = newTagsPerSecond;
+                target = power + direction * step;
+                reason = direction > 0 ? "probing up" : "probing down";
+            }
+
+            target = clamp(target);
+            if (goal == Goal.ZONE && target > power && target >= ceiling) {
+                target = power;
+            }
+            Arrays.fill(histogram, 0);
+            rssiReads = 0;
+            weakReads = 0;
+            reads = 0;
+            windowStartMs = nowMs;
+            uniqueAtWindowStart = unique;
+            if (target == power) {
+                return null;
+            }
+            from = power;
+        }
+
+        // El comando al módulo va fuera del lock para no frenar al worker
+        boolean applied = actuator.setPower(target);
+        synchronized (this) {
+            if (applied) {
+                power = target;
+                adjustments++;
+            }
+        }
+        Decision decision = new Decision(System.currentTimeMillis(), from, target, applied, reason, readsPerSecond,
+                newTagsPerSecond, p10, median, weakFraction);
+        perfStats.recordPowerDecision(decision);
+        PluginLog.d("AdaptivePower", "Power " + from + " -> " + target + (applied ? "" : " (rejected)") + ": "
+                + reason + ", " + Math.round(readsPerSecond) + " reads/s, p10 " + p10 + " dBm");
+        return decision;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minPower, Math.min(maxPower, value));
+    }
+
+    // Percentil del histograma en dBm, NaN sin lecturas con RSSI
+    private float percentile(float fraction) {
+        if (rssiReads == 0) {
+            return Float.NaN;
+        }
+        int rank = Math.max(1, (int) Math.ceil(rssiReads * fraction));
+        int seen = 0;
+        for (int i = 0; i < HISTOGRAM_BINS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i + HISTOGRAM_MIN_DBM;
+            }
+        }
+        return HISTOGRAM_BINS - 1 + HISTOGRAM_MIN_DBM;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ylazzari.plugins.rfidread;
+
+import com.rscja.deviceapi.RFIDWithUHFUART;
+import com.rscja.deviceapi.entity.UHFTAGInfo;
+import com.rscja.deviceapi.exception.ConfigurationException;
+import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
+
+/**
+ * {@link UhfReader} backed by the Chainway UART module.
+ */
+public class ChainwayUhfReader implements UhfReader {
+
+    private final RFIDWithUHFUART reader;
+
+    ChainwayUhfReader(RFIDWithUHFUART reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns null when the SDK has no reader instance for this device.
+     */
+    public static ChainwayUhfReader getInstance() throws ConfigurationException {
+        RFIDWithUHFUART reader = RFIDWithUHFUART.getInstance();
+        return reader != null ? new ChainwayUhfReader(reader) : null;
+    }
+
+    @Override
+    public boolean init() {
+        return reader.init();
+    }
+
+    @Override
+    public boolean free() {
+        return reader.free();
+    }
+
+    @Override
+    public boolean setPower(int power) {
+        return reader.setPower(power);
+    }
+
+    @Override
+    public int getPower() {
+        return reader.getPower();
+    }
+
+    @Override
+    public void setInventoryCallback(IUHFInventoryCallback callback) {
+        reader.setInventoryCallback(callback);
+    }
+
+    @Override
+    public boolean startInventoryTag() {
+        return reader.startInventoryTag();
+    }
+
+    @Override
+    public boolean stopInventory() {
+        return reader.stopInventory();
+    }
+
+    @Override
+    public UHFTAGInfo readTagFromBuffer() {
+        return reader.readTagFromBuffer();
+    }
+
+    @Override
+    public boolean setFilter(int bank, int ptrBits, int lenBits, String data) {
+        return reader.setFilter(bank, ptrBits, lenBits, data);
+    }
+
+    @Override
+    public boolean clearFilter() {
+        // Longitud 0 desactiva el filtro en el SDK
+        return reader.setFilter(BANK_EPC, 0, 0, "00");
+    }
+}
@@ -0,0 +1,190 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * Packs a batch of reads into one base64 string for the {@code tagBatchCompact}
+ * event, decoded by {@code decodeCompactTagBatch} in {@code src/index.ts}.
+ *
+ * RSSI strings are parsed once here into hundredths of dBm and EPCs are sent
+ * as bytes, so JS gets numbers without parsing and the bridge carries one
+ * short string instead of an object per read.
+ *
+ * Layout (little endian):
+ * <pre>
+ * header  u8 version ({@link #FORMAT_VERSION}), u8 reserved, u16 record count
+ * record  u8  EPC byte length
+ *         u8  flags ({@link #FLAG_ODD_LENGTH}, {@link #FLAG_TEXT})
+ *         i16 RSSI in 0.01 dBm ({@link #RSSI_MISSING} = none)
+ *         u32 ms since the batch's base timestamp
+ *         EPC bytes: hex digits packed two per byte, or the raw chars with FLAG_TEXT
+ * </pre>
+ */
+public class CompactTagEncoder {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final int MAX_RECORDS = 0xFFFF;
+    /** The hex EPC has an odd number of digits; the last low nibble is padding. */
+    public static final int FLAG_ODD_LENGTH = 1;
+    /** The EPC is not hex and is sent as 8-bit chars. */
+    public static final int FLAG_TEXT = 2;
+    public static final short RSSI_MISSING = Short.MIN_VALUE;
+
+    static final int HEADER_SIZE = 4;
+    static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_EPC_BYTES = 0xFF;
+    private static final char[] BASE64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private byte[] bytes = new byte[1024];
+    private char[] chars = new char[1368];
+
+    /**
+     * Encodes reads {@code [0, count)} with timestamps relative to {@code baseTimestamp}.
+     * Reads beyond {@link #MAX_RECORDS} are not encoded.
+     */
+    public synchronized String encode(String[] epcs, String[] rssis, long[] timestamps, int count,
+                                      long baseTimestamp) {
+        int records = Math.min(count, MAX_RECORDS);
+        int size = HEADER_SIZE;
+        for (int i = 0; i < records; i++) {
+            size += RECORD_HEADER_SIZE + Math.min(MAX_EPC_BYTES, epcs[i].length());
+        }
+        if (bytes.length < size) {
+            bytes = new byte[Math.max(size, bytes.length * 2)];
+        }
+
+        byte[] out = bytes;
+        out[0] = (byte) FORMAT_VERSION;
+        out[1] = 0;
+        out[2] = (byte) records;
+        out[3] = (byte) (records >>> 8);
+        int pos = HEADER_SIZE;
+        for (int i = 0; i < records; i++) {
+            pos = writeRecord(out, pos, epcs[i], parseRssiCentiDbm(rssis[i]),
+                    Math.max(0L, Math.min(0xFFFFFFFFL, timestamps[i] - baseTimestamp)));
+        }
+        return toBase64(out, pos);
+    }
+
+    private static int writeRecord(byte[] out, int pos, String epc, short rssi, long delta) {
+        int length = epc.length();
+        boolean hex = isHex(epc);
+        int epcBytes = hex ? (length + 1) / 2 : Math.min(MAX_EPC_BYTES, length);
+        int flags = hex ? (length % 2 == 1 ? FLAG_ODD_LENGTH : 0) : FLAG_TEXT;
+
+        out[pos] = (byte) epcBytes;
+        out[pos + 1] = (byte) flags;
+        out[pos + 2] = (byte) rssi;
+        out[pos + 3] = (byte) (rssi >> 8);
+        out[pos + 4] = (byte) delta;
+        out[pos + 5] = (byte) (delta >>> 8);
+        out[pos + 6] = (byte) (delta >>> 16);
+        out[pos + 7] = (byte) (delta >>> 24);
+        pos += RECORD_HEADER_SIZE;
+
+        if (hex) {
+            for (int c = 0; c < length; c += 2) {
+                int high = EpcCodec.hexDigit(epc.charAt(c));
+                int low = c + 1 < length ? EpcCodec.hexDigit(epc.charAt(c + 1)) : 0;
+                out[pos++] = (byte) ((high << 4) | low);
+            }
+        } else {
+            for (int c = 0; c < epcBytes; c++) {
+                out[pos++] = (byte) epc.charAt(c);
+            }
+        }
+        return pos;
+    }
+
+    private static boolean isHex(String epc) {
+        int length = epc.length();
+        if (length == 0 || (length + 1) / 2 > MAX_EPC_BYTES) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (EpcCodec.hexDigit(epc.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses an SDK RSSI string such as "-58.34" into hundredths of dBm
+     * without allocating; other formats go through {@link Float#parseFloat}.
+     */
+    static short parseRssiCentiDbm(String rssi) {
+        if (rssi == null || rssi.isEmpty()) {
+            return RSSI_MISSING;
+        }
+        int length = rssi.length();
+        int i = 0;
+        boolean negative = false;
+        if (rssi.charAt(0) == '-' || rssi.charAt(0) == '+') {
+            negative = rssi.charAt(0) == '-';
+            i++;
+        }
+        int value = 0;
+        int decimals = -1;
+        boolean digits = false;
+        for (; i < length; i++) {
+            char c = rssi.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (decimals < 2) {
+                    value = value * 10 + (c - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                }
+                if (value > 100_000) {
+                    return parseFallback(rssi);
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return parseFallback(rssi);
+            }
+        }
+        if (!digits) {
+            return RSSI_MISSING;
+        }
+        for (int d = Math.max(0, decimals); d < 2; d++) {
+            value *= 10;
+        }
+        return clamp(negative ? -value : value);
+    }
+
+    private static short parseFallback(String rssi) {
+        float value = TagAggregator.parseRssi(rssi);
+        return Float.isNaN(value) ? RSSI_MISSING : clamp(Math.round(value * 100));
+    }
+
+    private static short clamp(int centiDbm) {
+        return (short) Math.max(Short.MIN_VALUE + 1, Math.min(Short.MAX_VALUE, centiDbm));
+    }
+
+    private String toBase64(byte[] in, int length) {
+        int outLength = (length + 2) / 3 * 4;
+        if (chars.length < outLength) {
+            chars = new char[Math.max(outLength, chars.length * 2)];
+        }
+        char[] out = chars;
+        int o = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int v = (in[i] & 0xFF) << 16 | (in[i + 1] & 0xFF) << 8 | (in[i + 2] & 0xFF);
+            out[o++] = BASE64[v >>> 18];
+            out[o++] = BASE64[(v >>> 12) & 0x3F];
+            out[o++] = BASE64[(v >>> 6) & 0x3F];
+            out[o++] = BASE64[v & 0x3F];
+        }
+        if (i < length) {
+            int v = (in[i] & 0xFF) << 16 | (i + 1 < length ? (in[i + 1] & 0xFF) << 8 : 0);
+            out[o++] = BASE64[v >>> 18];
+            out[o++] = BASE64[(v >>> 12) & 0x3F];
+            out[o++] = i + 1 < length ? BASE64[(v >>> 6) & 0x3F] : '=';
+            out[o++] = '=';
+        }
+        return new String(out, 0, o);
+    }
+}
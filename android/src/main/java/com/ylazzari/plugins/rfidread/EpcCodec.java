@@ -0,0 +1,106 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * Allocation-free helpers to pack hex EPC strings into primitive longs.
+ *
+ * EPCs of up to {@link #MAX_PACKED_HEX_CHARS} hex characters (128 bits) fit
+ * in two longs: the first 16 characters go into {@code high}, the next 16
+ * into {@code low}. The character count is kept alongside so that EPCs
+ * with leading zeros of different lengths stay distinct.
+ */
+public final class EpcCodec {
+
+    public static final int MAX_PACKED_HEX_CHARS = 32;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private EpcCodec() {
+    }
+
+    /**
+     * Returns the value of a hex digit (either case) or -1.
+     */
+    public static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Upper-case hex character for a value in [0, 16).
+     */
+    public static char hexChar(int nibble) {
+        return HEX[nibble & 0xF];
+    }
+
+    /**
+     * True when the EPC is non-empty, only hex digits and short enough to pack.
+     */
+    public static boolean isPackable(CharSequence epc) {
+        int length = epc.length();
+        if (length == 0 || length > MAX_PACKED_HEX_CHARS) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (hexDigit(epc.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs characters [0, 16) of a packable EPC.
+     */
+    public static long packHigh(CharSequence epc) {
+        return pack(epc, 0, Math.min(16, epc.length()));
+    }
+
+    /**
+     * Packs characters [16, 32) of a packable EPC.
+     */
+    public static long packLow(CharSequence epc) {
+        return epc.length() <= 16 ? 0L : pack(epc, 16, epc.length());
+    }
+
+    /**
+     * Appends the upper-case hex form of a packed EPC, the inverse of packHigh/packLow.
+     */
+    public static void appendHex(long high, long low, int length, StringBuilder out) {
+        int highChars = Math.min(16, length);
+        for (int i = highChars - 1; i >= 0; i--) {
+            out.append(HEX[(int) (high >>> (i * 4)) & 0xF]);
+        }
+        for (int i = length - highChars - 1; i >= 0; i--) {
+            out.append(HEX[(int) (low >>> (i * 4)) & 0xF]);
+        }
+    }
+
+    private static long pack(CharSequence epc, int from, int to) {
+        long value = 0L;
+        for (int i = from; i < to; i++) {
+            value = (value << 4) | hexDigit(epc.charAt(i));
+        }
+        return value;
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3, used to spread packed keys.
+     */
+    public static long mix(long high, long low, int length) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low ^ ((long) length << 56);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * Thread-safe set of EPCs backed by an {@link EpcTable}, for the tags found
+ * during filtered reading and the EPCs already seen while replaying the
+ * journal. A 96-bit EPC costs a few dozen bytes instead of a String plus a
+ * map node, and membership is case-insensitive.
+ */
+public class EpcSet {
+
+    private final EpcTable table;
+
+    public EpcSet() {
+        table = new EpcTable();
+    }
+
+    public EpcSet(int expectedSize) {
+        table = new EpcTable(expectedSize);
+    }
+
+    /**
+     * Returns true when {@code epc} was not in the set yet.
+     */
+    public synchronized boolean add(String epc) {
+        int before = table.size();
+        return table.add(epc) >= 0 && table.size() > before;
+    }
+
+    /**
+     * Same for an EPC already packed with {@link EpcCodec}.
+     */
+    public synchronized boolean add(long high, long low, int length) {
+        int before = table.size();
+        return table.add(high, low, length) >= 0 && table.size() > before;
+    }
+
+    public synchronized boolean contains(String epc) {
+        return table.indexOf(epc) >= 0;
+    }
+
+    public synchronized int size() {
+        return table.size();
+    }
+
+    public synchronized void clear() {
+        table.clear();
+    }
+
+    public synchronized long footprintBytes() {
+        return table.footprintBytes();
+    }
+}
@@ -0,0 +1,292 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.Arrays;
+
+/**
+ * Compact store of distinct EPCs, each identified by a dense int id in
+ * insertion order, so callers can keep per-tag data in parallel primitive
+ * arrays instead of objects keyed by {@code String}.
+ *
+ * EPCs of up to 128 bits (32 hex characters) are packed into two longs
+ * with {@link EpcCodec}. Longer hex EPCs are stored as nibbles in a shared
+ * byte arena; the id then holds the arena offset and a 64-bit hash of the
+ * digits. Non-hex strings, which the EPC rules normally reject, go to the
+ * arena as upper-case chars. Hex digits compare case-insensitively and are
+ * formatted back in upper case.
+ *
+ * Lookups parse the string in place and allocate nothing. Not thread-safe:
+ * callers either synchronize or, like {@link TargetTagIndex}, never mutate
+ * after publishing.
+ */
+public class EpcTable {
+
+    // metas[id]: longitud en caracteres en los bits bajos, tipo de almacenamiento en los altos
+    private static final int KIND_PACKED = 0;
+    private static final int KIND_HEX_ARENA = 1 << 24;
+    private static final int KIND_RAW_ARENA = 2 << 24;
+    private static final int KIND_MASK = 3 << 24;
+    private static final int LENGTH_MASK = (1 << 24) - 1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] highs;   // packed: caracteres [0, 16); arena: offset
+    private long[] lows;    // packed: caracteres [16, 32); arena: hash del contenido
+    private int[] metas;
+    private int size = 0;
+
+    // Índice abierto con sondeo lineal: id + 1, 0 = libre
+    private int[] slots;
+    private int mask;
+
+    private byte[] arena = new byte[0];
+    private int arenaSize = 0;
+
+    public EpcTable() {
+        this(MIN_CAPACITY);
+    }
+
+    public EpcTable(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        highs = new long[capacity];
+        lows = new long[capacity];
+        metas = new int[capacity];
+        int slotCount = Integer.highestOneBit(Math.max(4, capacity * 2) - 1) << 1;
+        slots = new int[slotCount];
+        mask = slotCount - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Id of {@code epc}, or -1 when absent or empty.
+     */
+    public int indexOf(CharSequence epc) {
+        if (epc == null || epc.length() == 0) {
+            return -1;
+        }
+        if (EpcCodec.isPackable(epc)) {
+            return indexOf(EpcCodec.packHigh(epc), EpcCodec.packLow(epc), epc.length());
+        }
+        int kind = isHex(epc) ? KIND_HEX_ARENA : KIND_RAW_ARENA;
+        long hash = arenaHash(epc, kind);
+        int slot = (int) EpcCodec.mix(hash, 0, epc.length()) & mask;
+        int meta = kind | epc.length();
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (metas[id] == meta && lows[id] == hash && arenaEquals(id, epc)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Id of an EPC already packed with {@link EpcCodec}, or -1.
+     */
+    public int indexOf(long high, long low, int length) {
+        int slot = (int) EpcCodec.mix(high, low, length) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (metas[id] == length && highs[id] == high && lows[id] == low) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Id of {@code epc}, adding it if absent; -1 for an empty EPC. A new EPC
+     * gets id {@code size() - 1}.
+     */
+    public int add(CharSequence epc) {
+        if (epc == null || epc.length() == 0) {
+            return -1;
+        }
+        int existing = indexOf(epc);
+        if (existing >= 0) {
+            return existing;
+        }
+        ensureCapacity();
+        int id = size;
+        int length = epc.length();
+        if (EpcCodec.isPackable(epc)) {
+            highs[id] = EpcCodec.packHigh(epc);
+            lows[id] = EpcCodec.packLow(epc);
+            metas[id] = length;
+        } else {
+            int kind = isHex(epc) ? KIND_HEX_ARENA : KIND_RAW_ARENA;
+            highs[id] = appendToArena(epc, kind);
+            lows[id] = arenaHash(epc, kind);
+            metas[id] = kind | length;
+        }
+        size++;
+        insertSlot(id);
+        return id;
+    }
+
+    /**
+     * Like {@link #add(CharSequence)} for an EPC already packed with
+     * {@link EpcCodec}, as the inventory journal stores them.
+     */
+    public int add(long high, long low, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        int existing = indexOf(high, low, length);
+        if (existing >= 0) {
+            return existing;
+        }
+        ensureCapacity();
+        int id = size;
+        highs[id] = high;
+        lows[id] = low;
+        metas[id] = length;
+        size++;
+        insertSlot(id);
+        return id;
+    }
+
+    /**
+     * Upper-case form of the EPC with id {@code id}.
+     */
+    public String get(int id) {
+        StringBuilder out = new StringBuilder(metas[id] & LENGTH_MASK);
+        appendTo(id, out);
+        return out.toString();
+    }
+
+    public void appendTo(int id, StringBuilder out) {
+        int meta = metas[id];
+        int length = meta & LENGTH_MASK;
+        int kind = meta & KIND_MASK;
+        if (kind == KIND_PACKED) {
+            EpcCodec.appendHex(highs[id], lows[id], length, out);
+            return;
+        }
+        int offset = (int) highs[id];
+        for (int i = 0; i < length; i++) {
+            out.append(kind == KIND_HEX_ARENA ? EpcCodec.hexChar(nibbleAt(offset, i)) : rawCharAt(offset, i));
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        arenaSize = 0;
+    }
+
+    /**
+     * Bytes held by the arrays of this table, for footprint reports.
+     */
+    public long footprintBytes() {
+        return (long) highs.length * 8 + (long) lows.length * 8 + (long) metas.length * 4
+                + (long) slots.length * 4 + arena.length;
+    }
+
+    private void ensureCapacity() {
+        if (size == highs.length) {
+            int capacity = highs.length + (highs.length >> 1);
+            highs = Arrays.copyOf(highs, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            metas = Arrays.copyOf(metas, capacity);
+        }
+        // Factor de carga máximo 0,5
+        if ((size + 1) * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                insertSlot(id);
+            }
+        }
+    }
+
+    private void insertSlot(int id) {
+        int meta = metas[id];
+        long seed = (meta & KIND_MASK) == KIND_PACKED ? highs[id] : lows[id];
+        long low = (meta & KIND_MASK) == KIND_PACKED ? lows[id] : 0;
+        int slot = (int) EpcCodec.mix(seed, low, meta & LENGTH_MASK) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    private static boolean isHex(CharSequence epc) {
+        for (int i = 0; i < epc.length(); i++) {
+            if (EpcCodec.hexDigit(epc.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hash de 64 bits por bloques de 16 caracteres, sin copiar el string
+    private static long arenaHash(CharSequence epc, int kind) {
+        long hash = kind;
+        int length = epc.length();
+        for (int from = 0; from < length; from += 16) {
+            long chunk = 0;
+            int to = Math.min(length, from + 16);
+            for (int i = from; i < to; i++) {
+                chunk = kind == KIND_HEX_ARENA
+                        ? (chunk << 4) | EpcCodec.hexDigit(epc.charAt(i))
+                        : chunk * 31 + Character.toUpperCase(epc.charAt(i));
+            }
+            hash = EpcCodec.mix(hash, chunk, to - from);
+        }
+        return hash;
+    }
+
+    private long appendToArena(CharSequence epc, int kind) {
+        int length = epc.length();
+        int bytes = kind == KIND_HEX_ARENA ? (length + 1) >> 1 : length * 2;
+        if (arenaSize + bytes > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaSize + bytes, Math.max(64, arena.length * 2)));
+        }
+        int offset = arenaSize;
+        if (kind == KIND_HEX_ARENA) {
+            for (int i = 0; i < length; i += 2) {
+                int high = EpcCodec.hexDigit(epc.charAt(i));
+                int low = i + 1 < length ? EpcCodec.hexDigit(epc.charAt(i + 1)) : 0;
+                arena[offset + (i >> 1)] = (byte) ((high << 4) | low);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                char c = Character.toUpperCase(epc.charAt(i));
+                arena[offset + i * 2] = (byte) (c >> 8);
+                arena[offset + i * 2 + 1] = (byte) c;
+            }
+        }
+        arenaSize += bytes;
+        return offset;
+    }
+
+    private boolean arenaEquals(int id, CharSequence epc) {
+        int offset = (int) highs[id];
+        boolean hex = (metas[id] & KIND_MASK) == KIND_HEX_ARENA;
+        for (int i = 0; i < epc.length(); i++) {
+            if (hex ? nibbleAt(offset, i) != EpcCodec.hexDigit(epc.charAt(i))
+                    : rawCharAt(offset, i) != Character.toUpperCase(epc.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int nibbleAt(int offset, int index) {
+        int b = arena[offset + (index >> 1)];
+        return (index & 1) == 0 ? (b >> 4) & 0xF : b & 0xF;
+    }
+
+    private char rawCharAt(int offset, int index) {
+        return (char) (((arena[offset + index * 2] & 0xFF) << 8) | (arena[offset + index * 2 + 1] & 0xFF));
+    }
+}
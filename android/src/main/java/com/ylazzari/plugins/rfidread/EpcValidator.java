@@ -0,0 +1,115 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * First stage of the inventory pipeline: decides whether a raw EPC from the
+ * SDK is worth processing. It scans the hex string once and allocates
+ * nothing, replacing the per-read {@code epc.matches("[0]+")} regex.
+ *
+ * Instances are immutable apart from the rejection counters, so a new
+ * validator can be swapped in while inventory is running.
+ */
+public class EpcValidator {
+
+    public static final int VALID = 0;
+    public static final int REJECT_EMPTY = 1;
+    public static final int REJECT_ALL_ZERO = 2;
+    public static final int REJECT_NOT_HEX = 3;
+    public static final int REJECT_LENGTH = 4;
+    private static final int REASON_COUNT = 5;
+
+    /** Gen2 EPCs are at most 496 bits = 124 hex characters. */
+    public static final int MAX_EPC_HEX_CHARS = 124;
+
+    private final int minLength;
+    private final int maxLength;
+    private final boolean requireWordAligned;
+    private final boolean rejectAllZero;
+    private final AtomicLongArray rejections = new AtomicLongArray(REASON_COUNT);
+
+    public EpcValidator() {
+        this(4, MAX_EPC_HEX_CHARS, true, true);
+    }
+
+    /**
+     * @param minLength          minimum EPC length in hex characters
+     * @param maxLength          maximum EPC length in hex characters
+     * @param requireWordAligned require a multiple of 4 hex characters (16-bit words)
+     * @param rejectAllZero      reject EPCs made only of '0'
+     */
+    public EpcValidator(int minLength, int maxLength, boolean requireWordAligned, boolean rejectAllZero) {
+        this.minLength = Math.max(1, minLength);
+        this.maxLength = Math.max(this.minLength, maxLength);
+        this.requireWordAligned = requireWordAligned;
+        this.rejectAllZero = rejectAllZero;
+    }
+
+    public boolean isValid(String epc) {
+        return check(epc) == VALID;
+    }
+
+    /**
+     * Returns {@link #VALID} or the REJECT_* reason, counting rejections.
+     */
+    public int check(String epc) {
+        int reason = classify(epc);
+        if (reason != VALID) {
+            rejections.incrementAndGet(reason);
+        }
+        return reason;
+    }
+
+    private int classify(String epc) {
+        if (epc == null) {
+            return REJECT_EMPTY;
+        }
+        int length = epc.length();
+        if (length == 0) {
+            return REJECT_EMPTY;
+        }
+        if (length < minLength || length > maxLength || (requireWordAligned && (length & 3) != 0)) {
+            return REJECT_LENGTH;
+        }
+
+        boolean allZero = true;
+        for (int i = 0; i < length; i++) {
+            char c = epc.charAt(i);
+            if (c != '0') {
+                allZero = false;
+                if (EpcCodec.hexDigit(c) < 0) {
+                    return REJECT_NOT_HEX;
+                }
+            }
+        }
+        return rejectAllZero && allZero ? REJECT_ALL_ZERO : VALID;
+    }
+
+    public long getRejectedCount(int reason) {
+        return rejections.get(reason);
+    }
+
+    public long getRejectedTotal() {
+        long total = 0;
+        for (int i = 1; i < REASON_COUNT; i++) {
+            total += rejections.get(i);
+        }
+        return total;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public boolean isRequireWordAligned() {
+        return requireWordAligned;
+    }
+
+    public boolean isRejectAllZero() {
+        return rejectAllZero;
+    }
+}
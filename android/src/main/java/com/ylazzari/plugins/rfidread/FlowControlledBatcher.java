@@ -0,0 +1,373 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TagBatcher} with credit-based backpressure from JS.
+ *
+ * Every emitted batch carries a sequence number and holds one of
+ * {@code window} credits until JS acknowledges it (or {@code ackTimeoutMs}
+ * passes). While no credit is free, reads stay pending; once the pending
+ * reads would fill a batch, the queue switches to merge mode and keeps only
+ * the newest read per EPC, and reads of new EPCs beyond {@code maxPending}
+ * are dropped. The queue is therefore bounded and, under overload, JS
+ * receives each EPC once per batch instead of every read.
+ *
+ * Cadence and size adapt to the measured ack round trip: batches are not
+ * emitted more often than JS acknowledges them, and grow to hold the reads
+ * that arrive in that time.
+ */
+public class FlowControlledBatcher {
+
+    public static final int DEFAULT_WINDOW = 2;
+    public static final int DEFAULT_MAX_PENDING = 2048;
+    public static final long DEFAULT_ACK_TIMEOUT_MS = 5000;
+    static final long MAX_DELAY_MS = 1000;
+
+    public interface Sink {
+        void onBatch(String[] epcs, String[] rssis, long[] timestamps, int count, long seq);
+    }
+
+    private final int baseMaxTags;
+    private final long baseDelayMs;
+    private final int maxPending;
+    private final long ackTimeoutMs;
+    private final Sink sink;
+    private final ScheduledExecutorService scheduler;
+
+    private int window;
+
+    private String[] epcs;
+    private String[] rssis;
+    private long[] timestamps;
+    private int count = 0;
+    // EPC -> posición pendiente, sólo en modo merge
+    private Map<String, Integer> mergeIndex = null;
+
+    private long generation = 0;
+    private ScheduledFuture<?> pendingFlush;
+
+    private final Map<Long, long[]> inFlight = new HashMap<>(); // seq -> {emitNanos, reads}
+    private long nextSeq = 1;
+
+    // Medidas para adaptar cadencia y tamaño
+    private float rttMs = 0;
+    private float ingestPerSecond = 0;
+    private long rateWindowStartNanos = System.nanoTime();
+    private long rateWindowReads = 0;
+
+    private long totalReads = 0;
+    private long totalBatches = 0;
+    private long ackedBatches = 0;
+    private long mergedCount = 0;
+    private long droppedCount = 0;
+    private long ackTimeouts = 0;
+    private long overloadEpisodes = 0;
+
+    public FlowControlledBatcher(int maxTags, long maxDelayMs, int window, int maxPending, Sink sink) {
+        this.baseMaxTags = Math.max(1, maxTags);
+        this.baseDelayMs = Math.max(1, maxDelayMs);
+        this.window = Math.max(1, window);
+        this.maxPending = Math.max(this.baseMaxTags, maxPending);
+        this.ackTimeoutMs = DEFAULT_ACK_TIMEOUT_MS;
+        this.sink = sink;
+        int capacity = Math.min(this.maxPending, Math.max(16, this.baseMaxTags * 2));
+        this.epcs = new String[capacity];
+        this.rssis = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RFIDTagBatcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void add(String epc, String rssi, long timestamp) {
+        Frame frame = null;
+        synchronized (this) {
+            totalReads++;
+            sampleIngest();
+            expireInFlight();
+
+            if (mergeIndex == null) {
+                append(epc, rssi, timestamp);
+            } else {
+                Integer slot = mergeIndex.get(epc);
+                if (slot != null) {
+                    rssis[slot] = rssi;
+                    timestamps[slot] = timestamp;
+                    mergedCount++;
+                } else if (count >= maxPending) {
+                    droppedCount++;
+                } else {
+                    mergeIndex.put(epc, count);
+                    append(epc, rssi, timestamp);
+                }
+            }
+
+            if (count >= currentMaxTags()) {
+                if (hasCredit()) {
+                    frame = takeFrame();
+                } else if (mergeIndex == null) {
+                    enterMergeMode();
+                }
+            }
+            if (count > 0 && pendingFlush == null) {
+                schedule();
+            }
+        }
+        deliver(frame);
+    }
+
+    /**
+     * Frees the credit of batch {@code seq} and emits what is pending right away,
+     * since JS just showed it is ready for more.
+     */
+    public void ack(long seq) {
+        Frame frame = null;
+        synchronized (this) {
+            long[] sent = inFlight.remove(seq);
+            if (sent == null) {
+                return;
+            }
+            ackedBatches++;
+            float sample = (System.nanoTime() - sent[0]) / 1_000_000f;
+            rttMs = rttMs == 0 ? sample : rttMs + 0.2f * (sample - rttMs);
+            if (count > 0 && hasCredit()) {
+                frame = takeFrame();
+            }
+        }
+        deliver(frame);
+    }
+
+    public synchronized void setWindow(int window) {
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Emits whatever is pending, credits or not, e.g. when inventory stops.
+     */
+    public void flush() {
+        Frame frame;
+        synchronized (this) {
+            frame = takeFrame();
+        }
+        deliver(frame);
+    }
+
+    public void close() {
+        flush();
+        scheduler.shutdownNow();
+    }
+
+    public synchronized long getTotalReads() {
+        return totalReads;
+    }
+
+    public synchronized long getTotalBatches() {
+        return totalBatches;
+    }
+
+    /** Stats snapshot; see the field names for meaning. */
+    public synchronized Stats getStats() {
+        expireInFlight();
+        return new Stats(count, inFlight.size(), window, currentMaxTags(), currentDelayMs(), rttMs,
+                ingestPerSecond, mergeIndex != null, totalReads, totalBatches, ackedBatches, mergedCount,
+                droppedCount, ackTimeouts, overloadEpisodes);
+    }
+
+    public static final class Stats {
+        public final int queueDepth;
+        public final int inFlight;
+        public final int window;
+        public final int maxTags;
+        public final long delayMs;
+        public final float ackRttMs;
+        public final float readsPerSecond;
+        public final boolean overloaded;
+        public final long totalReads;
+        public final long batches;
+        public final long ackedBatches;
+        public final long mergedCount;
+        public final long droppedCount;
+        public final long ackTimeouts;
+        public final long overloadEpisodes;
+
+        Stats(int queueDepth, int inFlight, int window, int maxTags, long delayMs, float ackRttMs,
+              float readsPerSecond, boolean overloaded, long totalReads, long batches, long ackedBatches,
+              long mergedCount, long droppedCount, long ackTimeouts, long overloadEpisodes) {
+            this.queueDepth = queueDepth;
+            this.inFlight = inFlight;
+            this.window = window;
+            this.maxTags = maxTags;
+            this.delayMs = delayMs;
+            this.ackRttMs = ackRttMs;
+            this.readsPerSecond = readsPerSecond;
+            this.overloaded = overloaded;
+            this.totalReads = totalReads;
+            this.batches = batches;
+            this.ackedBatches = ackedBatches;
+            this.mergedCount = mergedCount;
+            this.droppedCount = droppedCount;
+            this.ackTimeouts = ackTimeouts;
+            this.overloadEpisodes = overloadEpisodes;
+        }
+    }
+
+    // Los métodos siguientes se llaman con el lock tomado
+
+    private boolean hasCredit() {
+        return inFlight.size() < window;
+    }
+
+    /** No más de un lote por ida y vuelta de JS, sin bajar del maxDelayMs configurado. */
+    private long currentDelayMs() {
+        return Math.min(MAX_DELAY_MS, Math.max(baseDelayMs, (long) (rttMs / window)));
+    }
+
+    /** Lo que llega en un intervalo de emisión, sin bajar del maxTags configurado. */
+    private int currentMaxTags() {
+        long perInterval = (long) (ingestPerSecond * currentDelayMs() / 1000f);
+        return (int) Math.min(maxPending, Math.max(baseMaxTags, perInterval));
+    }
+
+    private void sampleIngest() {
+        rateWindowReads++;
+        long now = System.nanoTime();
+        long elapsed = now - rateWindowStartNanos;
+        if (elapsed >= 250_000_000L) {
+            float sample = rateWindowReads * 1e9f / elapsed;
+            ingestPerSecond = ingestPerSecond == 0 ? sample : ingestPerSecond + 0.3f * (sample - ingestPerSecond);
+            rateWindowReads = 0;
+            rateWindowStartNanos = now;
+        }
+    }
+
+    // Un lote sin ack (listener eliminado, WebView colgado) no bloquea el flujo para siempre
+    private void expireInFlight() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() - ackTimeoutMs * 1_000_000L;
+        Iterator<long[]> it = inFlight.values().iterator();
+        while (it.hasNext()) {
+            if (it.next()[0] < deadline) {
+                it.remove();
+                ackTimeouts++;
+            }
+        }
+    }
+
+    private void append(String epc, String rssi, long timestamp) {
+        if (count == epcs.length) {
+            int capacity = Math.min(maxPending, epcs.length * 2);
+            epcs = Arrays.copyOf(epcs, capacity);
+            rssis = Arrays.copyOf(rssis, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        epcs[count] = epc;
+        rssis[count] = rssi;
+        timestamps[count] = timestamp;
+        count++;
+    }
+
+    // Compacta lo pendiente a la última lectura por EPC
+    private void enterMergeMode() {
+        mergeIndex = new HashMap<>(Math.max(16, count * 2));
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            Integer slot = mergeIndex.get(epcs[i]);
+            if (slot != null) {
+                rssis[slot] = rssis[i];
+                timestamps[slot] = timestamps[i];
+                mergedCount++;
+            } else {
+                mergeIndex.put(epcs[i], kept);
+                epcs[kept] = epcs[i];
+                rssis[kept] = rssis[i];
+                timestamps[kept] = timestamps[i];
+                kept++;
+            }
+        }
+        Arrays.fill(epcs, kept, count, null);
+        Arrays.fill(rssis, kept, count, null);
+        count = kept;
+        overloadEpisodes++;
+        PluginLog.w("FlowControlledBatcher", "JS is not keeping up, merging reads by EPC");
+    }
+
+    private void schedule() {
+        final long scheduledGeneration = generation;
+        pendingFlush = scheduler.schedule(() -> onTimer(scheduledGeneration), currentDelayMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void onTimer(long expectedGeneration) {
+        Frame frame = null;
+        synchronized (this) {
+            if (generation != expectedGeneration) {
+                return;
+            }
+            pendingFlush = null;
+            expireInFlight();
+            // Sin crédito se vuelve a mirar en un intervalo, salvo que antes llegue un ack
+            if (hasCredit()) {
+                frame = takeFrame();
+            } else if (count > 0) {
+                schedule();
+            }
+        }
+        deliver(frame);
+    }
+
+    private Frame takeFrame() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        generation++;
+        if (count == 0) {
+            return null;
+        }
+        long seq = nextSeq++;
+        Frame frame = new Frame(
+                Arrays.copyOf(epcs, count),
+                Arrays.copyOf(rssis, count),
+                Arrays.copyOf(timestamps, count),
+                seq);
+        inFlight.put(seq, new long[]{System.nanoTime(), count});
+        Arrays.fill(epcs, 0, count, null);
+        Arrays.fill(rssis, 0, count, null);
+        count = 0;
+        mergeIndex = null;
+        totalBatches++;
+        return frame;
+    }
+
+    private void deliver(Frame frame) {
+        if (frame != null) {
+            sink.onBatch(frame.epcs, frame.rssis, frame.timestamps, frame.epcs.length, frame.seq);
+        }
+    }
+
+    private static final class Frame {
+        final String[] epcs;
+        final String[] rssis;
+        final long[] timestamps;
+        final long seq;
+
+        Frame(String[] epcs, String[] rssis, long[] timestamps, long seq) {
+            this.epcs = epcs;
+            this.rssis = rssis;
+            this.timestamps = timestamps;
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Append-only on-device journal of aggregated inventory entries.
+ *
+ * Each flush appends one fixed-size record per entry that changed since the
+ * previous flush; the newest record for an EPC is its current state. Records
+ * are written into memory-mapped segment files of {@link #RECORDS_PER_SEGMENT}
+ * records, so they survive the process being killed without an fsync per
+ * write. A record becomes valid when its EPC length byte, written last, is
+ * non-zero.
+ *
+ * Record layout (little endian, {@link #RECORD_SIZE} bytes):
+ * <pre>
+ *  0  byte   EPC length in hex chars (1..32, 0 = empty slot)
+ *  1  byte   antenna
+ *  2  short  RSSI min in tenths of dBm ({@link Short#MIN_VALUE} = none)
+ *  4  int    read count
+ *  8  long   last seen (ms)
+ * 16  float  RSSI average
+ * 20  float  RSSI max
+ * 24  long   EPC chars 0..16 packed
+ * 32  long   EPC chars 16..32 packed
+ * 40  long   first seen (ms)
+ * </pre>
+ * EPCs longer than 128 bits are not journaled and only counted.
+ */
+public class InventoryJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 48;
+    public static final int RECORDS_PER_SEGMENT = 65536;
+    public static final long SEGMENT_BYTES = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CSV_HEADER = "epc,count,rssiAvg,rssiMax,antenna,firstSeen,lastSeen\n";
+
+    /** Receives records in journal order, see {@link #forEach(Visitor)}. */
+    public interface Visitor {
+        void onRecord(long epcHigh, long epcLow, int epcLength, int count, float rssiMin, float rssiAvg,
+                      float rssiMax, int antenna, long firstSeen, long lastSeen);
+    }
+
+    private final File directory;
+
+    private int segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slot;
+
+    private long recordCount;
+    private long skippedCount;
+
+    public InventoryJournal(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+        int last = 0;
+        while (segmentFile(last + 1).exists()) {
+            last++;
+        }
+        openSegment(last);
+        recordCount = (long) segmentIndex * RECORDS_PER_SEGMENT + slot;
+    }
+
+    public synchronized boolean append(TagAggregator.Entry entry) {
+        if (!EpcCodec.isPackable(entry.epc)) {
+            skippedCount++;
+            return false;
+        }
+        if (slot == RECORDS_PER_SEGMENT) {
+            rollover();
+        }
+
+        writeRecord(buffer, slot * RECORD_SIZE, entry);
+        slot++;
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * Flushes the mapped pages to storage. Not needed to survive a process
+     * kill, only a power loss.
+     */
+    public synchronized void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    /**
+     * Deletes every segment and starts an empty journal.
+     */
+    public synchronized void clear() throws IOException {
+        closeSegment();
+        for (int i = 0; segmentFile(i).exists(); i++) {
+            if (!segmentFile(i).delete()) {
+                throw new IOException("Cannot delete " + segmentFile(i));
+            }
+        }
+        skippedCount = 0;
+        openSegment(0);
+        recordCount = 0;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segmentIndex + 1;
+    }
+
+    public synchronized long getSizeBytes() {
+        return recordCount * RECORD_SIZE;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Visits every record oldest first, straight from the mapped segments.
+     */
+    public void forEach(Visitor visitor) throws IOException {
+        forEach(0, visitor);
+    }
+
+    /**
+     * Visits the records from index {@code fromRecord} on, e.g. the tail after a checkpoint.
+     */
+    public synchronized void forEach(long fromRecord, Visitor visitor) throws IOException {
+        int first = (int) (Math.max(0, fromRecord) / RECORDS_PER_SEGMENT);
+        for (int i = first; i <= segmentIndex; i++) {
+            int records = i == segmentIndex ? slot : RECORDS_PER_SEGMENT;
+            int start = i == first ? (int) (Math.max(0, fromRecord) % RECORDS_PER_SEGMENT) : 0;
+            MappedByteBuffer segment = i == segmentIndex ? buffer : mapReadOnly(i);
+            for (int r = start; r < records; r++) {
+                readRecord(segment, r * RECORD_SIZE, visitor);
+            }
+        }
+    }
+
+    /**
+     * Copies the raw records (layout above) to {@code out} without going through the heap.
+     */
+    public synchronized long exportBinary(File out) throws IOException {
+        force();
+        try (FileChannel target = new FileOutputStream(out).getChannel()) {
+            for (int i = 0; i <= segmentIndex; i++) {
+                long bytes = (i == segmentIndex ? slot : RECORDS_PER_SEGMENT) * (long) RECORD_SIZE;
+                try (RandomAccessFile file = new RandomAccessFile(segmentFile(i), "r")) {
+                    FileChannel source = file.getChannel();
+                    long position = 0;
+                    while (position < bytes) {
+                        position += source.transferTo(position, bytes - position, target);
+                    }
+                }
+            }
+        }
+        return recordCount;
+    }
+
+    /**
+     * Visits only the newest record of each EPC written from {@code fromRecord} on,
+     * newest first, skipping EPCs already in {@code seen} and adding the rest.
+     */
+    synchronized void forEachLatest(long fromRecord, EpcSet seen, Visitor visitor) throws IOException {
+        int first = (int) (Math.max(0, fromRecord) / RECORDS_PER_SEGMENT);
+        for (int i = segmentIndex; i >= first; i--) {
+            int records = i == segmentIndex ? slot : RECORDS_PER_SEGMENT;
+            int start = i == first ? (int) (Math.max(0, fromRecord) % RECORDS_PER_SEGMENT) : 0;
+            MappedByteBuffer segment = i == segmentIndex ? buffer : mapReadOnly(i);
+            for (int r = records - 1; r >= start; r--) {
+                int base = r * RECORD_SIZE;
+                int length = segment.get(base);
+                if (length != 0 && seen.add(segment.getLong(base + 24), segment.getLong(base + 32), length)) {
+                    readRecord(segment, base, visitor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the current state of every EPC as CSV. Segments are scanned
+     * newest first and only the first record seen per EPC is written, so the
+     * heap holds an {@link EpcSet} of EPCs rather than the records themselves.
+     */
+    public synchronized long exportCsv(File out) throws IOException {
+        long written = 0;
+        EpcSet seen = new EpcSet(1024);
+        StringBuilder line = new StringBuilder(128);
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write(CSV_HEADER);
+            for (int i = segmentIndex; i >= 0; i--) {
+                int records = i == segmentIndex ? slot : RECORDS_PER_SEGMENT;
+                MappedByteBuffer segment = i == segmentIndex ? buffer : mapReadOnly(i);
+                for (int r = records - 1; r >= 0; r--) {
+                    int base = r * RECORD_SIZE;
+                    int length = segment.get(base);
+                    long high = segment.getLong(base + 24);
+                    long low = segment.getLong(base + 32);
+                    if (length == 0 || !seen.add(high, low, length)) {
+                        continue;
+                    }
+                    line.setLength(0);
+                    EpcCodec.appendHex(high, low, length, line);
+                    line.append(',').append(segment.getInt(base + 4)).append(',');
+                    appendRssi(segment.getFloat(base + 16), line);
+                    line.append(',');
+                    appendRssi(segment.getFloat(base + 20), line);
+                    line.append(',').append(segment.get(base + 1))
+                        .append(',').append(segment.getLong(base + 40))
+                        .append(',').append(segment.getLong(base + 8))
+                        .append('\n');
+                    writer.append(line);
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes {@code entry} at {@code base} in the layout above. The EPC must be packable.
+     */
+    static void writeRecord(ByteBuffer target, int base, TagAggregator.Entry entry) {
+        String epc = entry.epc;
+        target.put(base + 1, (byte) parseAntenna(entry.antenna));
+        target.putShort(base + 2, Float.isNaN(entry.rssiMin)
+                ? Short.MIN_VALUE : (short) Math.round(entry.rssiMin * 10));
+        target.putInt(base + 4, entry.count);
+        target.putLong(base + 8, entry.lastSeen);
+        target.putFloat(base + 16, entry.getRssiAvg());
+        target.putFloat(base + 20, entry.rssiMax);
+        target.putLong(base + 24, EpcCodec.packHigh(epc));
+        target.putLong(base + 32, EpcCodec.packLow(epc));
+        target.putLong(base + 40, entry.firstSeen);
+        // Commit byte last: a record cut short by a crash stays an empty slot
+        target.put(base, (byte) epc.length());
+    }
+
+    static void readRecord(ByteBuffer source, int base, Visitor visitor) {
+        int length = source.get(base);
+        if (length == 0) {
+            return;
+        }
+        short rssiMin = source.getShort(base + 2);
+        visitor.onRecord(source.getLong(base + 24), source.getLong(base + 32), length,
+                source.getInt(base + 4), rssiMin == Short.MIN_VALUE ? Float.NaN : rssiMin / 10f,
+                source.getFloat(base + 16), source.getFloat(base + 20),
+                source.get(base + 1), source.getLong(base + 40), source.getLong(base + 8));
+    }
+
+    private static void appendRssi(float rssi, StringBuilder out) {
+        if (!Float.isNaN(rssi)) {
+            out.append(Math.round(rssi * 10) / 10.0);
+        }
+    }
+
+    private static int parseAntenna(String antenna) {
+        if (antenna == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(antenna);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void rollover() {
+        buffer.force();
+        closeSegment();
+        try {
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open journal segment " + (segmentIndex + 1), e);
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(segmentFile(index), "rw");
+        channel = file.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        segmentIndex = index;
+
+        // Resume after the last committed record
+        slot = 0;
+        while (slot < RECORDS_PER_SEGMENT && buffer.get(slot * RECORD_SIZE) != 0) {
+            slot++;
+        }
+    }
+
+    private void closeSegment() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                PluginLog.w("InventoryJournal", "Error closing journal segment: " + e.getMessage());
+            }
+        }
+        channel = null;
+        buffer = null;
+    }
+
+    private MappedByteBuffer mapReadOnly(int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(index), "r")) {
+            MappedByteBuffer segment = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, SEGMENT_BYTES);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            return segment;
+        }
+    }
+
+    private File segmentFile(int index) {
+        return new File(directory, String.format(Locale.US, "%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,281 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Identity and checkpoints of the inventory session stored next to the
+ * {@link InventoryJournal} segments.
+ *
+ * A session stays "active" while it is being journaled, so an active
+ * session found at startup means the process died mid-count. A checkpoint
+ * is a compact copy of the aggregated state (one journal-layout record per
+ * EPC) plus the journal position it covers; recovery loads it and replays
+ * only the journal records written after it.
+ *
+ * Checkpoint layout (little endian): a {@link #HEADER_SIZE} byte header
+ * (magic, version, journal position, creation time, entry count) followed
+ * by the records.
+ */
+public class InventorySession {
+
+    private static final String TAG = "InventorySession";
+    private static final String META_FILE = "session.meta";
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+    private static final int CHECKPOINT_MAGIC = 0x4B434652; // "RFCK"
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int WRITE_CHUNK_RECORDS = 1024;
+
+    /** Outcome of {@link #recover(InventoryJournal, TagAggregator)}. */
+    public static final class Recovery {
+        public final String sessionId;
+        public final int checkpointEntries;
+        public final long replayedRecords;
+        public final int uniqueCount;
+        public final long totalReads;
+        public final long elapsedMs;
+
+        Recovery(String sessionId, int checkpointEntries, long replayedRecords, int uniqueCount,
+                 long totalReads, long elapsedMs) {
+            this.sessionId = sessionId;
+            this.checkpointEntries = checkpointEntries;
+            this.replayedRecords = replayedRecords;
+            this.uniqueCount = uniqueCount;
+            this.totalReads = totalReads;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+
+    private final File directory;
+    private final String id;
+    private final long startedAt;
+    private boolean active;
+    private long checkpointRecords = -1;
+    private long checkpointAt = 0;
+
+    private InventorySession(File directory, String id, long startedAt, boolean active) {
+        this.directory = directory;
+        this.id = id;
+        this.startedAt = startedAt;
+        this.active = active;
+    }
+
+    /**
+     * Reads the session stored in {@code directory}, or null if there is none.
+     */
+    public static InventorySession load(File directory) {
+        File meta = new File(directory, META_FILE);
+        if (!meta.isFile()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(meta)) {
+            props.load(in);
+            String id = props.getProperty("id");
+            if (id == null) {
+                return null;
+            }
+            return new InventorySession(directory, id, Long.parseLong(props.getProperty("startedAt", "0")),
+                    "active".equals(props.getProperty("state")));
+        } catch (IOException | NumberFormatException e) {
+            PluginLog.w(TAG, "Ignoring unreadable session metadata: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Starts a new active session, dropping the previous session's checkpoint.
+     * The caller clears the journal.
+     */
+    public static InventorySession start(File directory) throws IOException {
+        File checkpoint = new File(directory, CHECKPOINT_FILE);
+        if (checkpoint.exists() && !checkpoint.delete()) {
+            throw new IOException("Cannot delete " + checkpoint);
+        }
+        InventorySession session = new InventorySession(directory, UUID.randomUUID().toString(),
+                System.currentTimeMillis(), true);
+        session.saveMeta();
+        return session;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public synchronized boolean isActive() {
+        return active;
+    }
+
+    /** Journal position covered by the last checkpoint, -1 if there is none. */
+    public synchronized long getCheckpointRecords() {
+        return checkpointRecords;
+    }
+
+    public synchronized long getCheckpointAt() {
+        return checkpointAt;
+    }
+
+    /**
+     * Marks the session as active (being journaled) or cleanly closed.
+     */
+    public synchronized void setActive(boolean active) throws IOException {
+        if (this.active != active) {
+            this.active = active;
+            saveMeta();
+        }
+    }
+
+    /**
+     * Writes a checkpoint of {@code entries} covering the first {@code journalRecords}
+     * journal records. Entries may be newer than that position, never older.
+     */
+    public synchronized void writeCheckpoint(List<TagAggregator.Entry> entries, long journalRecords)
+            throws IOException {
+        File tmp = new File(directory, CHECKPOINT_FILE + ".tmp");
+        long now = System.currentTimeMillis();
+        int written = 0;
+        try (RandomAccessFile file = new RandomAccessFile(tmp, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK_RECORDS * InventoryJournal.RECORD_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER_SIZE);
+            int inChunk = 0;
+            for (TagAggregator.Entry entry : entries) {
+                if (!EpcCodec.isPackable(entry.epc)) {
+                    continue;
+                }
+                InventoryJournal.writeRecord(chunk, inChunk * InventoryJournal.RECORD_SIZE, entry);
+                written++;
+                if (++inChunk == WRITE_CHUNK_RECORDS) {
+                    writeChunk(channel, chunk, inChunk);
+                    inChunk = 0;
+                }
+            }
+            writeChunk(channel, chunk, inChunk);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, CHECKPOINT_MAGIC);
+            header.putInt(4, CHECKPOINT_VERSION);
+            header.putLong(8, journalRecords);
+            header.putLong(16, now);
+            header.putInt(24, written);
+            channel.write(header, 0);
+            channel.force(false);
+        }
+        if (!tmp.renameTo(new File(directory, CHECKPOINT_FILE))) {
+            throw new IOException("Cannot replace checkpoint");
+        }
+        checkpointRecords = journalRecords;
+        checkpointAt = now;
+    }
+
+    /**
+     * Rebuilds {@code aggregator} from the last checkpoint plus the journal tail.
+     * A missing or stale checkpoint falls back to replaying the whole journal.
+     */
+    public Recovery recover(InventoryJournal journal, TagAggregator aggregator) throws IOException {
+        long start = System.nanoTime();
+        final StringBuilder epc = new StringBuilder(InventoryJournal.RECORD_SIZE);
+        InventoryJournal.Visitor restore = (high, low, length, count, rssiMin, rssiAvg, rssiMax,
+                                            antenna, firstSeen, lastSeen) -> {
+            epc.setLength(0);
+            EpcCodec.appendHex(high, low, length, epc);
+            aggregator.restore(epc.toString(), count, rssiMin, rssiAvg, rssiMax,
+                    antenna == 0 ? null : Integer.toString(antenna), firstSeen, lastSeen);
+        };
+
+        int checkpointEntries = 0;
+        long from = 0;
+        MappedByteBuffer checkpoint = mapCheckpoint();
+        if (checkpoint != null) {
+            if (checkpoint.getLong(8) <= journal.getRecordCount()) {
+                checkpointEntries = checkpoint.getInt(24);
+                from = checkpoint.getLong(8);
+            } else {
+                PluginLog.w(TAG, "Checkpoint ahead of the journal, replaying it all");
+                checkpoint = null;
+            }
+        }
+
+        // Tail newest first, then the checkpoint entries it did not supersede: one restore per EPC
+        EpcSet seen = new EpcSet(Math.max(1024, checkpointEntries));
+        synchronized (aggregator) {
+            aggregator.clear();
+            journal.forEachLatest(from, seen, restore);
+            for (int i = 0; i < checkpointEntries; i++) {
+                int base = HEADER_SIZE + i * InventoryJournal.RECORD_SIZE;
+                if (seen.add(checkpoint.getLong(base + 24), checkpoint.getLong(base + 32), checkpoint.get(base))) {
+                    InventoryJournal.readRecord(checkpoint, base, restore);
+                }
+            }
+            if (checkpoint != null) {
+                synchronized (this) {
+                    checkpointRecords = from;
+                    checkpointAt = checkpoint.getLong(16);
+                }
+            }
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+            return new Recovery(id, checkpointEntries, journal.getRecordCount() - from, aggregator.size(),
+                    aggregator.getTotalReads(), elapsedMs);
+        }
+    }
+
+    private MappedByteBuffer mapCheckpoint() throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        if (!file.isFile() || file.length() < HEADER_SIZE) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int count = buffer.getInt(24);
+            if (buffer.getInt(0) != CHECKPOINT_MAGIC || buffer.getInt(4) != CHECKPOINT_VERSION || count < 0
+                    || raf.length() != HEADER_SIZE + (long) count * InventoryJournal.RECORD_SIZE) {
+                PluginLog.w(TAG, "Ignoring invalid checkpoint");
+                return null;
+            }
+            return buffer;
+        }
+    }
+
+    private static void writeChunk(FileChannel channel, ByteBuffer chunk, int records) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(chunk.array(), 0, records * InventoryJournal.RECORD_SIZE);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    private void saveMeta() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("id", id);
+        props.setProperty("startedAt", Long.toString(startedAt));
+        props.setProperty("state", active ? "active" : "closed");
+
+        File tmp = new File(directory, META_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            props.store(out, null);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(new File(directory, META_FILE))) {
+            throw new IOException("Cannot replace session metadata");
+        }
+    }
+}
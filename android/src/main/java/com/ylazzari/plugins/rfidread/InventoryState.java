@@ -0,0 +1,138 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Which inventory is running and in what phase, with atomic transitions.
+ *
+ * IDLE -> (tryStart) -> STARTING -> (started) -> RUNNING -> (requestStop) -> STOPPING -> (stopped) -> IDLE
+ *
+ * Only one inventory kind can be active. Plugin calls, the native trigger
+ * and the SDK callback read it from different threads; every transition is
+ * a compare-and-set on one immutable snapshot, so two racing starts cannot
+ * both win.
+ *
+ * The plugin runs every start and stop on the reader command thread, so a
+ * stop never sees a start half done: it either cancels the queued start or
+ * runs after it. {@link #requestStop} therefore only stops a RUNNING
+ * inventory and does not record stops for a STARTING one.
+ */
+public class InventoryState {
+
+    public enum Kind { READING, FILTERED, LOCATE }
+
+    public enum Phase { IDLE, STARTING, RUNNING, STOPPING }
+
+    private static final class Snapshot {
+        final Phase phase;
+        final Kind kind;
+        final long generation;
+
+        Snapshot(Phase phase, Kind kind, long generation) {
+            this.phase = phase;
+            this.kind = kind;
+            this.generation = generation;
+        }
+    }
+
+    private final AtomicReference<Snapshot> state = new AtomicReference<>(new Snapshot(Phase.IDLE, null, 0));
+
+    /**
+     * IDLE -> STARTING. Returns false when another inventory is active; see {@link #getKind()}.
+     */
+    public boolean tryStart(Kind kind) {
+        Snapshot current = state.get();
+        return current.phase == Phase.IDLE
+                && state.compareAndSet(current, new Snapshot(Phase.STARTING, kind, current.generation + 1));
+    }
+
+    /**
+     * STARTING -> RUNNING. Only the caller that won {@link #tryStart} may call it.
+     */
+    public void started(Kind kind) {
+        Snapshot current = state.get();
+        if (current.phase != Phase.STARTING || current.kind != kind
+                || !state.compareAndSet(current, new Snapshot(Phase.RUNNING, kind, current.generation))) {
+            throw new IllegalStateException("started(" + kind + ") in " + current.phase + " " + current.kind);
+        }
+    }
+
+    /**
+     * STARTING -> IDLE after a failed start.
+     */
+    public void startFailed(Kind kind) {
+        while (true) {
+            Snapshot current = state.get();
+            if (current.phase != Phase.STARTING || current.kind != kind) {
+                return;
+            }
+            if (state.compareAndSet(current, new Snapshot(Phase.IDLE, null, current.generation))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * RUNNING -> STOPPING. Returns true when the caller won the stop and must
+     * stop the reader and call {@link #stopped}; false when {@code kind} is not running.
+     */
+    public boolean requestStop(Kind kind) {
+        while (true) {
+            Snapshot current = state.get();
+            if (current.kind != kind || current.phase != Phase.RUNNING) {
+                return false;
+            }
+            if (state.compareAndSet(current, new Snapshot(Phase.STOPPING, kind, current.generation))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * STOPPING -> IDLE.
+     */
+    public void stopped(Kind kind) {
+        while (true) {
+            Snapshot current = state.get();
+            if (current.phase != Phase.STOPPING || current.kind != kind) {
+                return;
+            }
+            if (state.compareAndSet(current, new Snapshot(Phase.IDLE, null, current.generation))) {
+                return;
+            }
+        }
+    }
+
+    /** STARTING or RUNNING as {@code kind}: its reads are accepted. */
+    public boolean isActive(Kind kind) {
+        Snapshot current = state.get();
+        return current.kind == kind && (current.phase == Phase.STARTING || current.phase == Phase.RUNNING);
+    }
+
+    /**
+     * Like {@link #isActive} but also true while {@code kind} is stopping, so
+     * reads the SDK delivers before confirming the stop still reach the pipeline.
+     */
+    public boolean acceptsReads(Kind kind) {
+        Snapshot current = state.get();
+        return current.kind == kind && current.phase != Phase.IDLE;
+    }
+
+    public boolean isIdle() {
+        return state.get().phase == Phase.IDLE;
+    }
+
+    public Phase getPhase() {
+        return state.get().phase;
+    }
+
+    /** Kind of the active inventory, null when idle. */
+    public Kind getKind() {
+        return state.get().kind;
+    }
+
+    /** Incremented by every start, so a reader can tell two sessions apart. */
+    public long getGeneration() {
+        return state.get().generation;
+    }
+}
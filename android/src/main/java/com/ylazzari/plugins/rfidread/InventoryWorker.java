@@ -0,0 +1,99 @@
+package com.ylazzari.plugins.rfidread;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumer thread for {@link TagRingBuffer}. It drains raw reads and runs the
+ * rest of the pipeline (validation, aggregation, bridge emission) off the
+ * SDK callback thread, so a slow WebView never stalls the reader.
+ */
+public class InventoryWorker implements Runnable {
+    private static final String TAG = "InventoryWorker";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long STOP_JOIN_TIMEOUT_MS = 500;
+
+    private final TagRingBuffer buffer;
+    private final TagRingBuffer.Handler handler;
+    private volatile boolean running = true;
+    private volatile boolean parked = false;
+    private Thread thread;
+
+    public InventoryWorker(TagRingBuffer buffer, TagRingBuffer.Handler handler) {
+        this.buffer = buffer;
+        this.handler = handler;
+    }
+
+    public void start() {
+        thread = new Thread(this, "RFIDInventoryWorker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Called by the producer after publishing a read.
+     */
+    public void signal() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops the thread after draining every read already in the buffer.
+     * Returns true once the thread has exited, so the caller may become the
+     * buffer's consumer; false if it is still running after the join timeout.
+     */
+    public boolean stopAndDrain() {
+        running = false;
+        if (thread == null) {
+            return true;
+        }
+        LockSupport.unpark(thread);
+        return awaitExit(STOP_JOIN_TIMEOUT_MS);
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for a stopped worker to exit. Returns true
+     * once the thread is gone; until then it is still the buffer's consumer.
+     */
+    public boolean awaitExit(long timeoutMs) {
+        if (thread == null) {
+            return true;
+        }
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return !thread.isAlive();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drainSafely() > 0) {
+                continue;
+            }
+            parked = true;
+            // Re-check after announcing the park so a concurrent offer is not missed
+            if (buffer.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            parked = false;
+        }
+        drainSafely();
+    }
+
+    private int drainSafely() {
+        try {
+            return buffer.drain(handler);
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Error processing tag read: " + e.getMessage(), e);
+            return 1;
+        }
+    }
+}
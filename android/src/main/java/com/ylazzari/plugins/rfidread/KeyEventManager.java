@@ -1,83 +1,142 @@
 package com.ylazzari.plugins.rfidread;
 
-import android.util.Log;
-import java.util.ArrayList;
-import java.util.List;
-import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Fans hardware key events from KeyInterceptorService out to subscribers.
+ *
+ * Listeners live in an immutable array, sorted by priority, published through
+ * an AtomicReference. Registration copies the array (rare, UI thread);
+ * dispatch reads one snapshot and iterates it without locking or allocating.
+ */
 public class KeyEventManager {
     private static final String TAG = "KeyEventManager";
-    private static KeyEventManager instance;
-    private List<KeyEventListener> listeners = new ArrayList<>();
-    private WeakReference<RFIDPlugin> rfidPluginRef;
-    
+
+    /** RFIDPlugin runs first so trigger handling never waits on app listeners. */
+    public static final int PRIORITY_PLUGIN = 100;
+    public static final int PRIORITY_DEFAULT = 0;
+
+    private static final Registration[] EMPTY = new Registration[0];
+
+    private final AtomicReference<Registration[]> listeners = new AtomicReference<>(EMPTY);
+
+    /**
+     * downTime and source identify the originating KeyEvent (0 when there is none),
+     * so subscribers can drop copies of the same press arriving by other paths.
+     */
     public interface KeyEventListener {
-        void onKeyEvent(int keyCode, boolean isPressed);
+        void onKeyEvent(int keyCode, boolean isPressed, long downTime, int source);
     }
-    
+
+    private static final class Registration {
+        final KeyEventListener listener;
+        final int priority;
+
+        Registration(KeyEventListener listener, int priority) {
+            this.listener = listener;
+            this.priority = priority;
+        }
+    }
+
+    private static final class Holder {
+        static final KeyEventManager INSTANCE = new KeyEventManager();
+    }
+
     private KeyEventManager() {
-        Log.d(TAG, "🔧 KeyEventManager instance created");
+        PluginLog.d(TAG, "🔧 KeyEventManager instance created");
     }
     
-    public static synchronized KeyEventManager getInstance() {
-        if (instance == null) {
-            instance = new KeyEventManager();
-        }
-        return instance;
+    public static KeyEventManager getInstance() {
+        return Holder.INSTANCE;
     }
     
     public void addListener(KeyEventListener listener) {
-        if (listener != null && !listeners.contains(listener)) {
-            listeners.add(listener);
-            Log.d(TAG, "✅ Key event listener added. Total listeners: " + listeners.size());
+        addListener(listener, PRIORITY_DEFAULT);
+    }
+
+    /**
+     * Higher priority listeners are notified first; equal priorities keep registration order.
+     */
+    public void addListener(KeyEventListener listener, int priority) {
+        if (listener == null) {
+            return;
+        }
+        while (true) {
+            Registration[] current = listeners.get();
+            if (indexOf(current, listener) >= 0) {
+                return;
+            }
+            Registration[] next = new Registration[current.length + 1];
+            int insertAt = 0;
+            while (insertAt < current.length && current[insertAt].priority >= priority) {
+                insertAt++;
+            }
+            System.arraycopy(current, 0, next, 0, insertAt);
+            next[insertAt] = new Registration(listener, priority);
+            System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+            if (listeners.compareAndSet(current, next)) {
+                PluginLog.d(TAG, "✅ Key event listener added. Total listeners: " + next.length);
+                return;
+            }
         }
     }
     
     public void removeListener(KeyEventListener listener) {
-        if (listeners.remove(listener)) {
-            Log.d(TAG, "✅ Key event listener removed. Total listeners: " + listeners.size());
+        while (true) {
+            Registration[] current = listeners.get();
+            int index = indexOf(current, listener);
+            if (index < 0) {
+                return;
+            }
+            Registration[] next = current.length == 1 ? EMPTY : new Registration[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            if (listeners.compareAndSet(current, next)) {
+                PluginLog.d(TAG, "✅ Key event listener removed. Total listeners: " + next.length);
+                return;
+            }
         }
     }
-    
-    public void setRFIDPlugin(RFIDPlugin plugin) {
-        this.rfidPluginRef = new WeakReference<>(plugin);
-        Log.d(TAG, "✅ RFIDPlugin reference set directly in KeyEventManager");
+
+    public int getListenerCount() {
+        return listeners.get().length;
     }
     
     public void notifyKeyEvent(int keyCode, boolean isPressed) {
-        Log.d(TAG, "🎯 Notifying " + listeners.size() + " listeners + RFIDPlugin of key event: " + keyCode + 
-              ", pressed: " + isPressed);
-              
-        // Method 1: Notify regular listeners (MainActivity)
-        List<KeyEventListener> currentListeners = new ArrayList<>(listeners);
-        for (KeyEventListener listener : currentListeners) {
+        notifyKeyEvent(keyCode, isPressed, 0, 0);
+    }
+
+    public void notifyKeyEvent(int keyCode, boolean isPressed, long downTime, int source) {
+        Registration[] snapshot = listeners.get();
+        if (PluginLog.isDebugEnabled()) {
+            PluginLog.d(TAG, "🎯 Notifying " + snapshot.length + " listeners of key event: " + keyCode +
+                  ", pressed: " + isPressed);
+        }
+        if (snapshot.length == 0) {
+            PluginLog.w(TAG, "⚠️ No key event listeners registered");
+            return;
+        }
+
+        for (Registration registration : snapshot) {
             try {
-                listener.onKeyEvent(keyCode, isPressed);
+                registration.listener.onKeyEvent(keyCode, isPressed, downTime, source);
             } catch (Exception e) {
-                Log.e(TAG, "❌ Error notifying listener: " + e.getMessage(), e);
-            }
-        }
-        
-        // Method 2: DIRECT notification to RFIDPlugin (BYPASS MainActivity)
-        if (rfidPluginRef != null) {
-            RFIDPlugin plugin = rfidPluginRef.get();
-            if (plugin != null) {
-                Log.i(TAG, "🚀 DIRECT notification to RFIDPlugin - BYPASSING MainActivity");
-                try {
-                    plugin.handleKeyEventFromActivity(keyCode, isPressed);
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Error notifying RFIDPlugin directly: " + e.getMessage(), e);
-                }
-            } else {
-                Log.w(TAG, "⚠️ RFIDPlugin reference is null or garbage collected");
+                PluginLog.e(TAG, "❌ Error notifying listener: " + e.getMessage(), e);
             }
-        } else {
-            Log.w(TAG, "⚠️ No RFIDPlugin reference set");
         }
     }
     
     public void clearListeners() {
-        listeners.clear();
-        Log.d(TAG, "🧹 All listeners cleared");
+        listeners.set(EMPTY);
+        PluginLog.d(TAG, "🧹 All listeners cleared");
+    }
+
+    private static int indexOf(Registration[] registrations, KeyEventListener listener) {
+        for (int i = 0; i < registrations.length; i++) {
+            if (registrations[i].listener == listener) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
@@ -2,7 +2,6 @@ package com.ylazzari.plugins.rfidread;
 
 import android.accessibilityservice.AccessibilityService;
 import android.accessibilityservice.AccessibilityServiceInfo;
-import android.util.Log;
 import android.view.KeyEvent;
 import android.view.accessibility.AccessibilityEvent;
 
@@ -12,7 +11,7 @@ public class KeyInterceptorService extends AccessibilityService {
     @Override
     public void onServiceConnected() {
         super.onServiceConnected();
-        Log.d(TAG, "🔧 KeyInterceptorService connected");
+        PluginLog.d(TAG, "🔧 KeyInterceptorService connected");
         
         // Configure the service to intercept key events
         AccessibilityServiceInfo info = new AccessibilityServiceInfo();
@@ -24,7 +23,7 @@ public class KeyInterceptorService extends AccessibilityService {
         info.notificationTimeout = 100;
         
         setServiceInfo(info);
-        Log.d(TAG, "✅ Service configured for key interception");
+        PluginLog.d(TAG, "✅ Service configured for key interception");
     }
     
     @Override
@@ -32,19 +31,26 @@ public class KeyInterceptorService extends AccessibilityService {
         int keyCode = event.getKeyCode();
         int action = event.getAction();
         
-        Log.d(TAG, "🎯 Hardware key intercepted: " + keyCode + ", action: " + 
-              (action == KeyEvent.ACTION_DOWN ? "DOWN" : action == KeyEvent.ACTION_UP ? "UP" : "OTHER"));
+        if (PluginLog.isDebugEnabled()) {
+            PluginLog.d(TAG, "🎯 Hardware key intercepted: " + keyCode + ", action: " + 
+                  (action == KeyEvent.ACTION_DOWN ? "DOWN" : action == KeyEvent.ACTION_UP ? "UP" : "OTHER"));
+        }
         
         // Check for trigger keys
         if (keyCode == 139 || keyCode == 280 || keyCode == 293) {
-            Log.d(TAG, "✅ Trigger key detected in AccessibilityService: " + keyCode);
+            if (PluginLog.isDebugEnabled()) {
+                PluginLog.d(TAG, "✅ Trigger key detected in AccessibilityService: " + keyCode);
+            }
             
             boolean isPressed = (action == KeyEvent.ACTION_DOWN);
+            if (isPressed && event.getRepeatCount() == 0) {
+                PerfStats.getInstance().markKeyIntercepted(event.getDownTime());
+            }
             
             // Notify via KeyEventManager
-            KeyEventManager.getInstance().notifyKeyEvent(keyCode, isPressed);
+            KeyEventManager.getInstance().notifyKeyEvent(keyCode, isPressed, event.getDownTime(), event.getSource());
             
-            Log.d(TAG, "📡 Key event notified via KeyEventManager");
+            PluginLog.d(TAG, "📡 Key event notified via KeyEventManager");
             
             // Return true to consume the event and prevent InfoWedge from getting it
             return true;
@@ -62,12 +68,12 @@ public class KeyInterceptorService extends AccessibilityService {
     
     @Override
     public void onInterrupt() {
-        Log.d(TAG, "⚠️ KeyInterceptorService interrupted");
+        PluginLog.d(TAG, "⚠️ KeyInterceptorService interrupted");
     }
     
     @Override
     public void onDestroy() {
         super.onDestroy();
-        Log.d(TAG, "🔴 KeyInterceptorService destroyed");
+        PluginLog.d(TAG, "🔴 KeyInterceptorService destroyed");
     }
 }
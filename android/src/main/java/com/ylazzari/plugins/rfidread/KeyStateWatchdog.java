@@ -0,0 +1,301 @@
+package com.ylazzari.plugins.rfidread;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.provider.Settings;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fallback trigger detection for devices where the accessibility service is
+ * not enabled. It polls the InfoWedge key state on its own HandlerThread.
+ *
+ * Compared with the old 100 ms Timer:
+ * - reflective service lookups are resolved once per start, and providers
+ *   that do not exist are dropped after the first probe;
+ * - the interval starts fast after a state change and backs off
+ *   geometrically while the trigger is idle, up to {@code maxIntervalMs}
+ *   (120 ms by default, close to the old timer). This is a state poll: a
+ *   pull shorter than the current interval is not seen, so the cap bounds
+ *   both start latency and the shortest pull that is detected;
+ * - the owner pauses it while the app is in the background;
+ * - CPU time spent probing is accounted so its cost is visible.
+ */
+public class KeyStateWatchdog {
+
+    private static final String TAG = "KeyStateWatchdog";
+    private static final int TRIGGER_KEY = 293;
+
+    public static final long MIN_INTERVAL_MS = 50;
+    public static final long DEFAULT_MAX_INTERVAL_MS = 120;
+    /** Upper bound for {@link #setMaxIntervalMs}; above it most short pulls are missed. */
+    public static final long MAX_INTERVAL_LIMIT_MS = 1000;
+
+    private static final String[] SETTINGS_KEYS = {
+        "key_state_293",
+        "trigger_key_state",
+        "scanner_key_state",
+        "hardware_key_293"
+    };
+    private static final String[] SERVICE_NAMES = {
+        "infowedge",
+        "chainway_key",
+        "scanner_service",
+        "hardware_key"
+    };
+    private static final String[] PROVIDER_URIS = {
+        "content://com.rscja.infowedge.keystate",
+        "content://com.chainway.key.provider/current",
+        "content://com.rscja.scanner.keystate/293"
+    };
+    private static final String[] STATE_COLUMNS = {"state", "pressed", "value", "status"};
+
+    public interface Listener {
+        void onKeyStateChanged(boolean pressed);
+    }
+
+    private final Context context;
+    private final Listener listener;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private volatile boolean running = false;
+
+    // Resolved on the watchdog thread at start
+    private final List<Object> services = new ArrayList<>();
+    private final List<Method> serviceMethods = new ArrayList<>();
+    private final List<Uri> providers = new ArrayList<>();
+
+    private boolean lastState = false;
+    private volatile long intervalMs = MIN_INTERVAL_MS;
+    private volatile long maxIntervalMs = DEFAULT_MAX_INTERVAL_MS;
+    private volatile int activeProbes = 0;
+
+    private volatile long cpuNanos = 0;
+    private volatile long ticks = 0;
+    private volatile long stateChanges = 0;
+
+    private final Runnable tick = this::tick;
+
+    public KeyStateWatchdog(Context context, Listener listener) {
+        this.context = context;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new HandlerThread("RFIDKeyWatchdog");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(() -> {
+            long cpuStart = Debug.threadCpuTimeNanos();
+            resolveProbes();
+            cpuNanos += Debug.threadCpuTimeNanos() - cpuStart;
+            intervalMs = MIN_INTERVAL_MS;
+            tick();
+        });
+        PluginLog.d(TAG, "Key state watchdog started");
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        handler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+        handler = null;
+        thread = null;
+        PluginLog.d(TAG, "Key state watchdog stopped after " + ticks + " ticks, cpu " + (cpuNanos / 1_000_000) + "ms");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getCpuTimeMs() {
+        return cpuNanos / 1_000_000;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getStateChanges() {
+        return stateChanges;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * Idle backoff cap, clamped to [{@link #MIN_INTERVAL_MS}, {@link #MAX_INTERVAL_LIMIT_MS}].
+     * Lower values catch shorter pulls and start faster at the cost of more CPU.
+     */
+    public void setMaxIntervalMs(long maxIntervalMs) {
+        this.maxIntervalMs = Math.max(MIN_INTERVAL_MS, Math.min(MAX_INTERVAL_LIMIT_MS, maxIntervalMs));
+        if (intervalMs > this.maxIntervalMs) {
+            intervalMs = this.maxIntervalMs;
+        }
+    }
+
+    public long getMaxIntervalMs() {
+        return maxIntervalMs;
+    }
+
+    /** Reflective services plus content providers that answered at start. */
+    public int getActiveProbeCount() {
+        return activeProbes;
+    }
+
+    private void tick() {
+        if (!running) {
+            return;
+        }
+        long cpuStart = Debug.threadCpuTimeNanos();
+
+        boolean state = readKeyState();
+        if (state != lastState) {
+            lastState = state;
+            stateChanges++;
+            intervalMs = MIN_INTERVAL_MS;
+            listener.onKeyStateChanged(state);
+        } else if (!state) {
+            intervalMs = Math.min(maxIntervalMs, intervalMs * 2);
+        }
+        // While pressed keep the fast rate so the release is seen promptly
+
+        ticks++;
+        cpuNanos += Debug.threadCpuTimeNanos() - cpuStart;
+
+        Handler h = handler;
+        if (running && h != null) {
+            h.postDelayed(tick, intervalMs);
+        }
+    }
+
+    private void resolveProbes() {
+        services.clear();
+        serviceMethods.clear();
+        providers.clear();
+
+        try {
+            Class<?> serviceManagerClass = Class.forName("android.os.ServiceManager");
+            Method getServiceMethod = serviceManagerClass.getMethod("getService", String.class);
+            for (String serviceName : SERVICE_NAMES) {
+                try {
+                    Object service = getServiceMethod.invoke(null, serviceName);
+                    if (service == null) {
+                        continue;
+                    }
+                    Method method = findKeyStateMethod(service.getClass());
+                    if (method != null) {
+                        services.add(service);
+                        serviceMethods.add(method);
+                    }
+                } catch (Exception e) {
+                    // Service not available
+                }
+            }
+        } catch (Exception e) {
+            // Reflection not available
+        }
+
+        ContentResolver resolver = context.getContentResolver();
+        for (String uriString : PROVIDER_URIS) {
+            Uri uri = Uri.parse(uriString);
+            try (Cursor cursor = resolver.query(uri, null, "keycode=?", new String[]{"293"}, null)) {
+                if (cursor != null) {
+                    providers.add(uri);
+                }
+            } catch (Exception e) {
+                // Provider does not exist
+            }
+        }
+
+        activeProbes = serviceMethods.size() + providers.size();
+        PluginLog.d(TAG, "Resolved " + serviceMethods.size() + " key services and " + providers.size() + " providers");
+    }
+
+    private static Method findKeyStateMethod(Class<?> serviceClass) {
+        try {
+            return serviceClass.getMethod("getKeyState", int.class);
+        } catch (NoSuchMethodException e) {
+            try {
+                return serviceClass.getMethod("isKeyPressed", int.class);
+            } catch (NoSuchMethodException e2) {
+                return null;
+            }
+        }
+    }
+
+    private boolean readKeyState() {
+        return readSettings() || readServices() || readProviders();
+    }
+
+    private boolean readSettings() {
+        ContentResolver resolver = context.getContentResolver();
+        for (String key : SETTINGS_KEYS) {
+            try {
+                String value = Settings.System.getString(resolver, key);
+                if ("1".equals(value) || "true".equals(value)) {
+                    return true;
+                }
+            } catch (Exception e) {
+                // Ignore
+            }
+        }
+        return false;
+    }
+
+    private boolean readServices() {
+        for (int i = 0; i < serviceMethods.size(); i++) {
+            try {
+                Object result = serviceMethods.get(i).invoke(services.get(i), TRIGGER_KEY);
+                if (result instanceof Boolean && (Boolean) result) {
+                    return true;
+                }
+                if (result instanceof Integer && (Integer) result == 1) {
+                    return true;
+                }
+            } catch (Exception e) {
+                // Ignore
+            }
+        }
+        return false;
+    }
+
+    private boolean readProviders() {
+        ContentResolver resolver = context.getContentResolver();
+        for (Uri uri : providers) {
+            try (Cursor cursor = resolver.query(uri, null, "keycode=?", new String[]{"293"}, null)) {
+                if (cursor == null || !cursor.moveToFirst()) {
+                    continue;
+                }
+                for (String column : STATE_COLUMNS) {
+                    int columnIndex = cursor.getColumnIndex(column);
+                    if (columnIndex >= 0) {
+                        String value = cursor.getString(columnIndex);
+                        if ("1".equals(value) || "true".equals(value)) {
+                            return true;
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // Ignore
+            }
+        }
+        return false;
+    }
+}
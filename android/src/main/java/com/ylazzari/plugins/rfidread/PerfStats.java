@@ -0,0 +1,182 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trigger-to-first-read timeline, shared by the key path and the plugin.
+ *
+ * Each stage is stamped once per timeline with {@link System#nanoTime()}:
+ * key intercepted, trigger accepted, inventory started, first SDK callback
+ * and first event emitted. The gap between consecutive stamped stages is
+ * recorded in a {@link LatencyHistogram}, so a slow scan can be attributed
+ * to the key path, reader startup or the bridge.
+ *
+ * It also keeps the last {@link #MAX_POWER_DECISIONS} decisions of the
+ * {@link AdaptivePowerController}.
+ */
+public class PerfStats {
+
+    public static final int STAGE_KEY_INTERCEPTED = 0;
+    public static final int STAGE_TRIGGER_ACCEPTED = 1;
+    public static final int STAGE_INVENTORY_STARTED = 2;
+    public static final int STAGE_FIRST_CALLBACK = 3;
+    public static final int STAGE_FIRST_EMIT = 4;
+    private static final int STAGE_COUNT = 5;
+    // A timeline that has not reached the first emit within this window is abandoned
+    private static final long STALE_TIMELINE_NANOS = 10_000_000_000L;
+
+    /** Histogram names, indexed by the stage that closes the interval. */
+    public static final String[] INTERVAL_NAMES = {
+        null,
+        "keyToTrigger",
+        "triggerToInventory",
+        "inventoryToFirstCallback",
+        "firstCallbackToEmit"
+    };
+    public static final String TOTAL_NAME = "total";
+    public static final int MAX_POWER_DECISIONS = 32;
+
+    public interface SampleListener {
+        /**
+         * @param stageNanos stamp per stage, 0 when the stage was not reached
+         */
+        void onSample(long[] stageNanos);
+    }
+
+    private static final PerfStats instance = new PerfStats();
+
+    private final LatencyHistogram[] intervals = new LatencyHistogram[STAGE_COUNT];
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final long[] timeline = new long[STAGE_COUNT];
+    private long timelineKeyDownTime = -1;
+    private boolean timelineOpen = false;
+    private long completedTimelines = 0;
+    private volatile SampleListener sampleListener;
+    private final ArrayDeque<AdaptivePowerController.Decision> powerDecisions = new ArrayDeque<>();
+    private long powerDecisionCount = 0;
+
+    private PerfStats() {
+        for (int i = 1; i < STAGE_COUNT; i++) {
+            intervals[i] = new LatencyHistogram();
+        }
+    }
+
+    public static PerfStats getInstance() {
+        return instance;
+    }
+
+    public void setSampleListener(SampleListener listener) {
+        this.sampleListener = listener;
+    }
+
+    /**
+     * Stamps a key press. The same physical press can arrive through several
+     * paths; it is identified by its KeyEvent down time and only counted once.
+     */
+    public synchronized void markKeyIntercepted(long keyDownTime) {
+        if (timelineOpen && keyDownTime == timelineKeyDownTime) {
+            return;
+        }
+        openTimeline(STAGE_KEY_INTERCEPTED, System.nanoTime());
+        timelineKeyDownTime = keyDownTime;
+    }
+
+    public void mark(int stage) {
+        long now = System.nanoTime();
+        long[] sample = null;
+        synchronized (this) {
+            boolean stale = timelineOpen && now - firstStamp() > STALE_TIMELINE_NANOS;
+            if (!timelineOpen || stale || timeline[stage] != 0) {
+                // A stage seen twice means a new round started without a key press
+                if (stage == STAGE_FIRST_CALLBACK || stage == STAGE_FIRST_EMIT) {
+                    timelineOpen = timelineOpen && !stale;
+                    return;
+                }
+                openTimeline(stage, now);
+                return;
+            }
+
+            timeline[stage] = now;
+            for (int previous = stage - 1; previous >= 0; previous--) {
+                if (timeline[previous] != 0) {
+                    intervals[stage].recordNanos(now - timeline[previous]);
+                    break;
+                }
+            }
+
+            if (stage == STAGE_FIRST_EMIT) {
+                total.recordNanos(now - firstStamp());
+                completedTimelines++;
+                timelineOpen = false;
+                if (sampleListener != null) {
+                    sample = timeline.clone();
+                }
+            }
+        }
+
+        SampleListener listener = sampleListener;
+        if (sample != null && listener != null) {
+            listener.onSample(sample);
+        }
+    }
+
+    public LatencyHistogram getInterval(int stage) {
+        return intervals[stage];
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public synchronized long getCompletedTimelines() {
+        return completedTimelines;
+    }
+
+    public synchronized void recordPowerDecision(AdaptivePowerController.Decision decision) {
+        if (powerDecisions.size() == MAX_POWER_DECISIONS) {
+            powerDecisions.poll();
+        }
+        powerDecisions.add(decision);
+        powerDecisionCount++;
+    }
+
+    /** Most recent power decisions, oldest first. */
+    public synchronized List<AdaptivePowerController.Decision> getPowerDecisions() {
+        return new ArrayList<>(powerDecisions);
+    }
+
+    public synchronized long getPowerDecisionCount() {
+        return powerDecisionCount;
+    }
+
+    public synchronized void reset() {
+        for (int i = 1; i < STAGE_COUNT; i++) {
+            intervals[i].reset();
+        }
+        total.reset();
+        completedTimelines = 0;
+        timelineOpen = false;
+        powerDecisions.clear();
+        powerDecisionCount = 0;
+    }
+
+    private void openTimeline(int stage, long now) {
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            timeline[i] = 0;
+        }
+        timeline[stage] = now;
+        timelineKeyDownTime = -1;
+        timelineOpen = true;
+    }
+
+    private long firstStamp() {
+        for (long stamp : timeline) {
+            if (stamp != 0) {
+                return stamp;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ylazzari.plugins.rfidread;
+
+import android.util.Log;
+
+/**
+ * Plugin-wide logging with a runtime level (see RFIDPlugin.setLogLevel).
+ *
+ * A disabled call costs one volatile read. Per-key and per-tag call sites
+ * guard with {@link #isDebugEnabled()} so they do not even build the
+ * message string when debug logging is off.
+ */
+public final class PluginLog {
+
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    public static final int NONE = Log.ASSERT + 1;
+
+    private static volatile int level = INFO;
+
+    private PluginLog() {
+    }
+
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static boolean isLoggable(int priority) {
+        return priority >= level;
+    }
+
+    public static boolean isDebugEnabled() {
+        return DEBUG >= level;
+    }
+
+    /**
+     * Level from its JS name (verbose, debug, info, warn, error, none), or -1.
+     */
+    public static int levelFromName(String name) {
+        if (name == null) {
+            return -1;
+        }
+        switch (name) {
+            case "verbose": return VERBOSE;
+            case "debug": return DEBUG;
+            case "info": return INFO;
+            case "warn": return WARN;
+            case "error": return ERROR;
+            case "none": return NONE;
+            default: return -1;
+        }
+    }
+
+    public static String levelName(int value) {
+        switch (value) {
+            case VERBOSE: return "verbose";
+            case DEBUG: return "debug";
+            case INFO: return "info";
+            case WARN: return "warn";
+            case ERROR: return "error";
+            default: return "none";
+        }
+    }
+
+    public static void v(String tag, String msg) {
+        if (VERBOSE >= level) {
+            Log.v(tag, msg);
+        }
+    }
+
+    public static void d(String tag, String msg) {
+        if (DEBUG >= level) {
+            Log.d(tag, msg);
+        }
+    }
+
+    public static void i(String tag, String msg) {
+        if (INFO >= level) {
+            Log.i(tag, msg);
+        }
+    }
+
+    public static void w(String tag, String msg) {
+        if (WARN >= level) {
+            Log.w(tag, msg);
+        }
+    }
+
+    public static void e(String tag, String msg) {
+        if (ERROR >= level) {
+            Log.e(tag, msg);
+        }
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        if (ERROR >= level) {
+            Log.e(tag, msg, tr);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * Smooths the RSSI of one tag for locate mode and maps it to a 0-100
+ * proximity.
+ *
+ * The RSSI is tracked with a scalar Kalman filter whose process noise grows
+ * with the time since the previous read: a single noisy read barely moves
+ * the estimate, while the estimate still follows the handheld when reads
+ * keep pointing the same way. With no read for {@code lostAfterMs} the tag
+ * is reported out of range. Reads arrive on the inventory worker and
+ * samples are taken on the locate scheduler, hence the lock.
+ */
+public class ProximityEstimator {
+
+    public static final float DEFAULT_MIN_RSSI = -80f;
+    public static final float DEFAULT_MAX_RSSI = -30f;
+    public static final long DEFAULT_LOST_AFTER_MS = 1000;
+
+    // Varianza de una lectura (dB², ~4 dB de ruido) y deriva esperada por segundo
+    static final float MEASUREMENT_VARIANCE = 16f;
+    static final float PROCESS_VARIANCE_PER_SECOND = 60f;
+
+    /** One locate update. */
+    public static final class Sample {
+        public final int proximity;
+        public final float rssi;
+        public final float rawRssi;
+        public final float readsPerSecond;
+        public final long reads;
+        public final boolean inRange;
+
+        Sample(int proximity, float rssi, float rawRssi, float readsPerSecond, long reads, boolean inRange) {
+            this.proximity = proximity;
+            this.rssi = rssi;
+            this.rawRssi = rawRssi;
+            this.readsPerSecond = readsPerSecond;
+            this.reads = reads;
+            this.inRange = inRange;
+        }
+    }
+
+    private final float minRssi;
+    private final float maxRssi;
+    private final long lostAfterMs;
+
+    private boolean hasEstimate = false;
+    private float estimate = Float.NaN;
+    private float variance = 0f;
+    private float lastRawRssi = Float.NaN;
+    private long lastReadMs;
+    private long reads = 0;
+    private long readsAtLastSample = 0;
+    private long lastSampleMs;
+
+    public ProximityEstimator(float minRssi, float maxRssi, long lostAfterMs, long nowMs) {
+        if (!(maxRssi > minRssi)) {
+            throw new IllegalArgumentException("maxRssi must be greater than minRssi");
+        }
+        this.minRssi = minRssi;
+        this.maxRssi = maxRssi;
+        this.lostAfterMs = Math.max(1, lostAfterMs);
+        this.lastSampleMs = nowMs;
+    }
+
+    /**
+     * Feeds one read of the target; reads without RSSI only count toward the rate.
+     */
+    public synchronized void update(float rssi, long nowMs) {
+        reads++;
+        if (Float.isNaN(rssi)) {
+            return;
+        }
+        if (!hasEstimate || nowMs - lastReadMs > lostAfterMs) {
+            // Primera lectura, o el tag reaparece: se parte de la medida
+            estimate = rssi;
+            variance = MEASUREMENT_VARIANCE;
+            hasEstimate = true;
+        } else {
+            variance += PROCESS_VARIANCE_PER_SECOND * Math.max(0, nowMs - lastReadMs) / 1000f;
+            float gain = variance / (variance + MEASUREMENT_VARIANCE);
+            estimate += gain * (rssi - estimate);
+            variance *= 1f - gain;
+        }
+        lastRawRssi = rssi;
+        lastReadMs = nowMs;
+    }
+
+    /**
+     * Current estimate plus the read rate since the previous sample.
+     */
+    public synchronized Sample sample(long nowMs) {
+        long elapsedMs = nowMs - lastSampleMs;
+        float rate = elapsedMs > 0 ? (reads - readsAtLastSample) * 1000f / elapsedMs : 0f;
+        readsAtLastSample = reads;
+        lastSampleMs = nowMs;
+
+        boolean inRange = hasEstimate && nowMs - lastReadMs <= lostAfterMs;
+        if (!inRange) {
+            return new Sample(0, Float.NaN, lastRawRssi, rate, reads, false);
+        }
+        return new Sample(toProximity(estimate), estimate, lastRawRssi, rate, reads, true);
+    }
+
+    public synchronized long getReads() {
+        return reads;
+    }
+
+    int toProximity(float rssi) {
+        float scaled = (rssi - minRssi) * 100f / (maxRssi - minRssi);
+        return Math.round(Math.max(0f, Math.min(100f, scaled)));
+    }
+}
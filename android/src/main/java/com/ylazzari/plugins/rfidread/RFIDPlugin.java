@@ -6,7 +6,6 @@ import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
-import com.rscja.deviceapi.RFIDWithUHFUART;
 import com.rscja.deviceapi.entity.UHFTAGInfo;
 import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
 
@@ -16,23 +15,20 @@ import android.os.Looper;
 import android.provider.Settings;
 import android.view.KeyEvent;
 import android.annotation.SuppressLint;
-import android.util.Log;
 
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import java.lang.reflect.Method;
-import java.lang.reflect.Field;
-import android.net.Uri;
-import android.database.Cursor;
-import android.provider.Settings;
+import java.io.File;
+import java.io.IOException;
 import android.content.Intent;
 import android.text.TextUtils;
 
@@ -40,17 +36,17 @@ import android.text.TextUtils;
 
 @CapacitorPlugin(name = "RFIDUHF")
 public class RFIDPlugin extends Plugin {
-    private RFIDWithUHFUART mReader = null;
-    private boolean loopStarted = false;
-    private ExecutorService executorService = null;
-    private boolean isInventoryRunning = false;
-    private boolean isFilteredInventoryRunning = false;
+    // Sólo se usa desde el hilo de readerCommands; volatile para las comprobaciones desde el bridge
+    private volatile UhfReader mReader = null;
+    // Si no es null se usa en lugar del módulo Chainway (pruebas de carga sin hardware)
+    private volatile SimulatedUhfReader.Config simulatorConfig = null;
+    // Lectura normal, filtrada o localizar: una sola a la vez, con transiciones atómicas
+    private final InventoryState inventoryState = new InventoryState();
     private Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private Set<String> foundTags = new HashSet<>();
-    private Set<String> targetTags = new HashSet<>();
-    private long lastNotificationTime = 0;
-    private static final long NOTIFICATION_THROTTLE = 10; // 10ms minimum between notifications
+    // El worker añade mientras getFilteredReadingStatus / clearFoundTags leen desde el hilo del plugin
+    private final EpcSet foundTags = new EpcSet();
+    private volatile TargetTagIndex targetIndex = new TargetTagIndex(new ArrayList<>(), 0);
 
     // Constantes para configuración
     private static final int DEFAULT_POWER = 15;
@@ -58,50 +54,199 @@ public class RFIDPlugin extends Plugin {
     private static final int MAX_POWER = 30;
     private static final String TAG = "RFIDPlugin";
 
+    // Plazos de los comandos al lector (cola + ejecución); un arranque en frío enciende el módulo
+    private static final long START_TIMEOUT_MS = 10000;
+    private static final long STOP_TIMEOUT_MS = 5000;
+    private static final long CONFIG_TIMEOUT_MS = 3000;
+    private static final long ADAPTIVE_POWER_TIMEOUT_MS = 1000;
+
     // Variables para manejo de eventos de teclado
-    private long lastKeyEventTime = 0;
-    private static final long KEY_DEBOUNCE_DELAY = 300; // 300ms de debounce
-    private boolean isKeyPressed = false;
-    private static final long KEY_TIMEOUT = 5000; // 5 segundos timeout para auto-reset
+    // Deduplica por identidad del KeyEvent (downTime/source) en lugar de un debounce por tiempo
+    private final TriggerStateMachine triggerState = new TriggerStateMachine();
     
-    // InfoWedge monitoring
-    private Timer infowedgeMonitor;
-    private boolean lastInfoWedgeKeyState = false;
+    // Fallback de gatillo (InfoWedge) cuando el servicio de accesibilidad no está activo
+    private KeyStateWatchdog keyWatchdog;
+    private volatile boolean keyWatchdogRequested = false;
+    private volatile long keyWatchdogMaxIntervalMs = KeyStateWatchdog.DEFAULT_MAX_INTERVAL_MS;
+
+    // Validación de EPC sin asignaciones, compartida por ambos callbacks
+    private volatile EpcValidator epcValidator = new EpcValidator();
+
+    // Batched delivery (tagBatch) for startReading({ batch })
+    private TagBatcher tagBatcher = null;
+    // batch.format 'compact': un bloque base64 por lote (tagBatchCompact)
+    private final CompactTagEncoder compactEncoder = new CompactTagEncoder();
+    // batch.ack: lotes con seq y créditos devueltos por JS con ackTagBatch
+    private volatile FlowControlledBatcher flowBatcher = null;
+    private volatile FlowControlledBatcher.Stats lastFlowStats = null;
+
+    // Native EPC aggregation (getInventorySnapshot / inventoryDelta)
+    private final TagAggregator tagAggregator = new TagAggregator();
+    // Contadores de la sesión en curso; el ring y el agregador acumulan desde la carga del plugin
+    private final AtomicLong sessionReads = new AtomicLong();
+    private volatile long sessionDroppedBase = 0;
+    private volatile boolean sessionAggregating = false;
+    private ScheduledExecutorService inventoryScheduler = null;
+    private ScheduledFuture<?> inventoryDeltaTask = null;
+    private static final long DEFAULT_DELTA_INTERVAL_MS = 250;
+
+    // Journal binario en disco del inventario agregado (setInventoryJournal / exportInventory)
+    private static final String JOURNAL_DIR = "rfid-journal";
+    private static final long JOURNAL_FLUSH_MS = 500;
+    private static final long CHECKPOINT_INTERVAL_MS = 30_000;
+    private volatile InventoryJournal inventoryJournal = null;
+    private ScheduledExecutorService journalExecutor = null;
+    private ScheduledFuture<?> journalFlushTask = null;
+    private ScheduledFuture<?> checkpointTask = null;
+
+    // Sesión de inventario: la reconstruida en load() espera a resumeSession() (hilo RFIDJournal)
+    private volatile InventorySession inventorySession = null;
+    private volatile InventorySession.Recovery pendingRecovery = null;
+    private InventoryJournal recoveredJournal = null;
+
+    // Modo localizar: RSSI suavizado en nativo, locateUpdate a cadencia fija (startLocate / stopLocate)
+    private static final long DEFAULT_LOCATE_INTERVAL_MS = 100;
+    private static final long MIN_LOCATE_INTERVAL_MS = 20;
+
+    // readBufferedTags / clearBuffer
+    private static final int DEFAULT_BUFFERED_READ = 500;
+    private static final int MAX_BUFFERED_READ = 10000;
+    private static final long MAX_BUFFERED_WAIT_MS = 5000;
+    private static final long BUFFER_POLL_INTERVAL_MS = 5;
+    // Tope de un vaciado completo por si el módulo sigue llenando el buffer
+    private static final int MAX_BUFFER_DRAIN = 100000;
+    private ScheduledExecutorService locateScheduler = null;
+    private ScheduledFuture<?> locateTask = null;
+    private volatile ProximityEstimator proximityEstimator = null;
+    private String locateEpc = null;
+    private boolean locateFilterApplied = false;
+
+    // Potencia adaptativa durante el inventario (setAdaptivePower); sin config la potencia es fija
+    private static final long MIN_POWER_INTERVAL_MS = 250;
+    private volatile AdaptivePowerController.Config adaptivePowerConfig = null;
+    private volatile AdaptivePowerController powerController = null;
+    private ScheduledExecutorService powerScheduler = null;
+    private ScheduledFuture<?> powerTask = null;
+
+    // SDK callback -> ring buffer -> worker thread -> bridge
+    private static final int READ_BUFFER_CAPACITY = 4096;
+    private final TagRingBuffer readBuffer = new TagRingBuffer(READ_BUFFER_CAPACITY);
+    private volatile InventoryWorker inventoryWorker = null;
+    // Procesamiento de la sesión en curso, para entregar lo pendiente al parar
+    private volatile TagRingBuffer.Handler inventoryHandler = null;
+    // Worker que no terminó en el timeout de parada: sigue siendo el consumidor del ring
+    private volatile InventoryWorker strandedWorker = null;
+    private volatile int lastUndrainedCount = 0;
+    private static final long STRANDED_WORKER_WAIT_MS = 2000;
+
+    // Único hilo que habla con el módulo: toda llamada al SDK pasa por aquí, con prioridad y plazo
+    private final ReaderCommandExecutor readerCommands = new ReaderCommandExecutor();
+
+    // Mantiene el módulo encendido entre rondas (COLD / WARM / INVENTORYING)
+    private final ReaderLifecycle readerLifecycle = new ReaderLifecycle(new ReaderLifecycle.Hooks() {
+        @Override
+        public boolean powerUp() {
+            return mReader != null && mReader.init();
+        }
+
+        @Override
+        public void powerDown() {
+            if (mReader != null) {
+                mReader.free();
+            }
+        }
+    }, readerCommands);
+
+    // Latencia inicio -> primer tag de la última sesión
+    private volatile long sessionStartNanos = 0;
+    private volatile long readerStartupNanos = -1;
+    private volatile long firstTagLatencyNanos = -1;
+    private volatile boolean firstTagPending = false;
+
+    // Timeline gatillo -> primer evento (getPerformanceStats / perfSample)
+    private final PerfStats perfStats = PerfStats.getInstance();
+    private volatile boolean firstEmitPending = false;
+
+    // Modo de gatillo nativo: el inventario arranca/para sin pasar por JS
+    private volatile TriggerMode triggerMode = TriggerMode.NONE;
+    private volatile JSObject triggerReadingOptions = new JSObject();
+
+    private final KeyEventManager.KeyEventListener keyEventListener = this::handleKeyEventFromActivity;
 
     @Override
     public void load() {
         try {
-            Log.d(TAG, "Iniciando carga del plugin RFID");
-            mReader = RFIDWithUHFUART.getInstance();
-            if (mReader != null) {
-                boolean result = mReader.init();
-                if (!result) {
-                    Log.e(TAG, "Error en la inicialización del lector");
-                    notifyListeners("initError", new JSObject().put("message", "Fallo en la inicialización del lector"));
-                } else {
-                    Log.d(TAG, "Lector inicializado correctamente");
-                    // Configurar potencia por defecto
-                    mReader.setPower(DEFAULT_POWER);
-                    notifyListeners("initSuccess", new JSObject().put("message", "Lector inicializado correctamente"));
+            PluginLog.d(TAG, "Iniciando carga del plugin RFID");
+            // El encendido del módulo no bloquea la carga del plugin
+            readerCommands.submit(ReaderCommandExecutor.Priority.COMMAND, null, START_TIMEOUT_MS, () -> {
+                mReader = obtainReader();
+                if (mReader == null) {
+                    PluginLog.e(TAG, "No se pudo obtener instancia del lector");
+                    return readingFailure("No se pudo obtener instancia del lector");
                 }
-            } else {
-                Log.e(TAG, "No se pudo obtener instancia del lector");
-                notifyListeners("initError", new JSObject().put("message", "No se pudo obtener instancia del lector"));
-            }
+                if (!readerLifecycle.warmUp()) {
+                    PluginLog.e(TAG, "Error en la inicialización del lector");
+                    return readingFailure("Fallo en la inicialización del lector");
+                }
+                PluginLog.d(TAG, "Lector inicializado correctamente");
+                // Configurar potencia por defecto
+                mReader.setPower(DEFAULT_POWER);
+                JSObject ret = new JSObject();
+                ret.put("success", true);
+                ret.put("message", "Lector inicializado correctamente");
+                return ret;
+            }, new ReaderCommandExecutor.Callback<JSObject>() {
+                @Override
+                public void onResult(JSObject ret) {
+                    boolean ok = ret.getBoolean("success", false);
+                    notifyListeners(ok ? "initSuccess" : "initError",
+                            new JSObject().put("message", ret.getString("message")));
+                }
+
+                @Override
+                public void onError(String message, Exception e) {
+                    notifyListeners("initError", new JSObject().put("message", "Error: " + message));
+                }
+            });
             
-            // Disable InfoWedge monitoring to reduce SELinux errors
-            // startInfoWedgeMonitoring(); // Commented out - causes SELinux errors
+            // InfoWedge monitoring is opt-in (startInfoWedgeMonitoring) to avoid SELinux noise
             
-            // DIRECT REGISTRATION: Register this plugin directly with KeyEventManager
-            Log.i(TAG, "🔗 Registering RFIDPlugin directly with KeyEventManager");
-            KeyEventManager.getInstance().setRFIDPlugin(this);
+            // Suscripción directa a las teclas del AccessibilityService, antes que cualquier otro listener
+            PluginLog.i(TAG, "🔗 Registering RFIDPlugin directly with KeyEventManager");
+            KeyEventManager.getInstance().addListener(keyEventListener, KeyEventManager.PRIORITY_PLUGIN);
+
+            // Si el proceso murió a mitad de un conteo, reconstruir el inventario en segundo plano
+            getJournalExecutor().execute(this::recoverSession);
             
         } catch (Exception e) {
-            Log.e(TAG, "Error en load(): " + e.getMessage(), e);
+            PluginLog.e(TAG, "Error en load(): " + e.getMessage(), e);
             notifyListeners("initError", new JSObject().put("message", "Error: " + e.getMessage()));
         }
     }
 
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        if (keyWatchdogRequested) {
+            startKeyWatchdog();
+        }
+    }
+
+    @Override
+    protected void handleOnPause() {
+        // El fallback sólo corre en primer plano
+        stopKeyWatchdog();
+        super.handleOnPause();
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        KeyEventManager.getInstance().removeListener(keyEventListener);
+        keyWatchdogRequested = false;
+        stopKeyWatchdog();
+        super.handleOnDestroy();
+    }
+
     @SuppressLint("HardwareIds")
     @PluginMethod
     public void getDeviceId(PluginCall call) {
@@ -122,93 +267,207 @@ public class RFIDPlugin extends Plugin {
 
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
     public void startReading(PluginCall call) {
-        try {
-            Log.d(TAG, "startReading called");
+        PluginLog.d(TAG, "startReading called");
+        long startNanos = System.nanoTime();
+        // Si hay una parada en curso, el arranque espera su turno en vez de rechazarse
+        submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, startKey(InventoryState.Kind.READING),
+                START_TIMEOUT_MS, true,
+                () -> startReadingInternal(call.getObject("batch", null), call.getObject("aggregate", null),
+                        startNanos));
+    }
+
+    private UhfReader obtainReader() throws Exception {
+        SimulatedUhfReader.Config config = simulatorConfig;
+        if (config != null) {
+            return new SimulatedUhfReader(config);
+        }
+        return ChainwayUhfReader.getInstance();
+    }
+
+    private JSObject readingFailure(String message) {
+        JSObject ret = new JSObject();
+        ret.put("success", false);
+        ret.put("message", message);
+        return ret;
+    }
 
+    /**
+     * Arranque de inventario compartido por startReading y el modo de gatillo nativo
+     */
+    private JSObject startReadingInternal(JSObject batchOptions, JSObject aggregateOptions, long startNanos) {
+        try {
             if (mReader == null) {
-                mReader = RFIDWithUHFUART.getInstance();
+                mReader = obtainReader();
                 if (mReader == null) {
-                    call.reject("No se pudo obtener instancia del lector");
-                    return;
+                    return readingFailure("No se pudo obtener instancia del lector");
                 }
             }
 
-            if (isInventoryRunning) {
-                call.reject("La lectura ya está en funcionamiento");
-                return;
+            if (!inventoryState.tryStart(InventoryState.Kind.READING)) {
+                return readingFailure(busyMessage());
             }
 
-            // Reinicializar el lector
-            if (!mReader.init()) {
-                call.reject("Error al inicializar el lector RFID");
-                return;
+            // Encender el lector sólo si está frío
+            if (!readerLifecycle.acquire()) {
+                inventoryState.startFailed(InventoryState.Kind.READING);
+                return readingFailure("Error al inicializar el lector RFID");
             }
+            beginLatencySession(startNanos);
+            // Sólo se agrega si alguien lo consume: eventos inventoryDelta o el journal
+            final boolean aggregateOnly = aggregateOptions != null;
+            beginInventorySession(aggregateOnly);
 
             // Limpiar buffer antes de empezar
             clearBufferInternal();
 
-            // Configurar callback usando la interfaz correcta
+            // Modo por lotes opcional: { batch: { maxTags, maxDelayMs, format } }
+            closeTagBatcher();
+            if (batchOptions != null) {
+                int maxTags = batchOptions.getInteger("maxTags", TagBatcher.DEFAULT_MAX_TAGS);
+                long maxDelayMs = batchOptions.getInteger("maxDelayMs", (int) TagBatcher.DEFAULT_MAX_DELAY_MS);
+                String format = batchOptions.getString("format", "json");
+                final boolean compact = "compact".equals(format);
+                if (!compact && !"json".equals(format)) {
+                    readerLifecycle.release();
+                    inventoryState.startFailed(InventoryState.Kind.READING);
+                    return readingFailure("Formato de lote no válido: " + format);
+                }
+                if (compact) {
+                    maxTags = Math.min(maxTags, CompactTagEncoder.MAX_RECORDS);
+                }
+
+                if (batchOptions.getBoolean("ack", false)) {
+                    int window = batchOptions.getInteger("window", FlowControlledBatcher.DEFAULT_WINDOW);
+                    int maxPending = batchOptions.getInteger("maxPending", FlowControlledBatcher.DEFAULT_MAX_PENDING);
+                    if (compact) {
+                        maxPending = Math.min(maxPending, CompactTagEncoder.MAX_RECORDS);
+                    }
+                    flowBatcher = new FlowControlledBatcher(maxTags, maxDelayMs, window, maxPending,
+                            compact ? this::emitCompactTagBatch : this::emitTagBatch);
+                } else {
+                    tagBatcher = new TagBatcher(maxTags, maxDelayMs, compact
+                            ? (e, r, t, c) -> emitCompactTagBatch(e, r, t, c, 0)
+                            : (e, r, t, c) -> emitTagBatch(e, r, t, c, 0));
+                }
+                PluginLog.d(TAG, "Batched delivery enabled: maxTags=" + maxTags + ", maxDelayMs=" + maxDelayMs
+                        + ", format=" + format + ", ack=" + (flowBatcher != null));
+            }
+            final TagBatcher batcher = tagBatcher;
+            final FlowControlledBatcher flow = flowBatcher;
+
+            // Agregación nativa con eventos inventoryDelta: { aggregate: { deltaIntervalMs } }
+            if (aggregateOnly) {
+                long deltaIntervalMs = aggregateOptions.getInteger("deltaIntervalMs", (int) DEFAULT_DELTA_INTERVAL_MS);
+                startInventoryDeltas(Math.max(10, deltaIntervalMs));
+            }
+
+            // El worker procesa las lecturas fuera del hilo del SDK
+            startInventoryWorker((epc, rssi, antenna, timestamp) -> {
+                if (!epcValidator.isValid(epc)) {
+                    return;
+                }
+
+                sessionReads.incrementAndGet();
+                if (aggregateOnly || inventoryJournal != null) {
+                    tagAggregator.record(epc, rssi, antenna, timestamp);
+                }
+                AdaptivePowerController power = powerController;
+                if (power != null) {
+                    power.onRead(CompactTagEncoder.parseRssiCentiDbm(rssi));
+                }
+                if (aggregateOnly) {
+                    return;
+                }
+
+                if (flow != null) {
+                    flow.add(epc, rssi, timestamp);
+                    return;
+                }
+                if (batcher != null) {
+                    batcher.add(epc, rssi, timestamp);
+                    return;
+                }
+
+                JSObject tagData = new JSObject();
+                tagData.put("epc", epc);
+                tagData.put("rssi", rssi);
+                tagData.put("timestamp", timestamp);
+
+                if (PluginLog.isDebugEnabled()) {
+                    PluginLog.d(TAG, "Tag detectado: " + epc + " RSSI: " + rssi);
+                }
+                markFirstEmit();
+                notifyListeners("tagFound", tagData);
+            });
+
+            // El callback del SDK sólo encola la lectura cruda
             mReader.setInventoryCallback(new IUHFInventoryCallback() {
                 @Override
                 public void callback(UHFTAGInfo uhftagInfo) {
-                    if (uhftagInfo != null && isInventoryRunning) {
-                        String epc = uhftagInfo.getEPC();
-                        String rssi = uhftagInfo.getRssi();
-
-                        if (epc != null && !epc.isEmpty() && !epc.matches("[0]+")) {
-                            JSObject tagData = new JSObject();
-                            tagData.put("epc", epc);
-                            tagData.put("rssi", rssi);
-                            tagData.put("timestamp", System.currentTimeMillis());
-
-                            Log.d(TAG, "Tag detectado: " + epc + " RSSI: " + rssi);
-                            notifyListeners("tagFound", tagData);
-                        }
+                    if (uhftagInfo != null && inventoryState.acceptsReads(InventoryState.Kind.READING)) {
+                        enqueueRead(uhftagInfo);
                     }
                 }
             });
 
             // Iniciar inventario
+            startPowerControl();
             boolean success = mReader.startInventoryTag();
-            if (!success) {
-                call.reject("Error al iniciar la lectura del RFID");
-                return;
+            if (success) {
+                perfStats.mark(PerfStats.STAGE_INVENTORY_STARTED);
+            } else {
+                stopPowerControl();
+                stopInventoryWorker();
+                closeTagBatcher();
+                stopInventoryDeltas(false);
+                readerLifecycle.release();
+                inventoryState.startFailed(InventoryState.Kind.READING);
+                return readingFailure("Error al iniciar la lectura del RFID");
             }
 
-            isInventoryRunning = true;
-            loopStarted = true;
+            inventoryState.started(InventoryState.Kind.READING);
 
             JSObject ret = new JSObject();
             ret.put("success", true);
             ret.put("message", "Lectura RFID iniciada correctamente");
-            call.resolve(ret);
+            ret.put("warmStart", readerLifecycle.wasLastAcquireWarm());
+            ret.put("startupMs", readerStartupNanos / 1_000_000.0);
 
-            Log.d(TAG, "Lectura iniciada exitosamente");
+            PluginLog.d(TAG, "Lectura iniciada exitosamente");
+            return ret;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error en startReading: " + e.getMessage(), e);
-            isInventoryRunning = false;
-            loopStarted = false;
-            call.reject("Error al iniciar el lector RFID: " + e.getMessage());
+            PluginLog.e(TAG, "Error en startReading: " + e.getMessage(), e);
+            stopPowerControl();
+            stopInventoryWorker();
+            closeTagBatcher();
+            stopInventoryDeltas(false);
+            readerLifecycle.release();
+            inventoryState.startFailed(InventoryState.Kind.READING);
+            return readingFailure("Error al iniciar el lector RFID: " + e.getMessage());
         }
     }
 
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
     public void startFilteredReading(PluginCall call) {
+        long startNanos = System.nanoTime();
+        submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, startKey(InventoryState.Kind.FILTERED),
+                START_TIMEOUT_MS, true, () -> startFilteredReadingInternal(call, startNanos));
+    }
+
+    private JSObject startFilteredReadingInternal(PluginCall call, long startNanos) {
         try {
-            Log.d(TAG, "startFilteredReading called");
+            PluginLog.d(TAG, "startFilteredReading called");
 
             if (mReader == null) {
-                mReader = RFIDWithUHFUART.getInstance();
+                mReader = obtainReader();
                 if (mReader == null) {
-                    call.reject("Could not get reader instance");
-                    return;
+                    return readingFailure("Could not get reader instance");
                 }
             }
 
-            if (isFilteredInventoryRunning || isInventoryRunning) {
-                call.reject("Reading is already running");
-                return;
+            if (!inventoryState.tryStart(InventoryState.Kind.FILTERED)) {
+                return readingFailure(busyMessage());
             }
 
             JSArray defaultEmptyArray = new JSArray();
@@ -219,118 +478,157 @@ public class RFIDPlugin extends Plugin {
                 targetEpcs = new ArrayList<>();
             }
 
-            targetTags.clear();
-            foundTags.clear();
+            // keepFound: tras resumeSession() no se vuelven a notificar los EPC ya contados
+            if (!call.getBoolean("keepFound", false)) {
+                foundTags.clear();
+            }
 
+            List<String> targetStrings = new ArrayList<>(targetEpcs.size());
             for (Object epc : targetEpcs) {
                 if (epc instanceof String) {
-                    targetTags.add((String) epc);
+                    targetStrings.add((String) epc);
                 }
             }
+            targetIndex = new TargetTagIndex(targetStrings, targetStrings.size());
+            final TargetTagIndex targets = targetIndex;
 
-            if (!mReader.init()) {
-                call.reject("Error initializing RFID reader");
-                return;
+            if (!readerLifecycle.acquire()) {
+                inventoryState.startFailed(InventoryState.Kind.FILTERED);
+                return readingFailure("Error initializing RFID reader");
             }
+            beginLatencySession(startNanos);
+            final boolean aggregateMatches = call.getBoolean("aggregate", false);
+            beginInventorySession(aggregateMatches);
 
             clearBufferInternal();
 
-                        mReader.setInventoryCallback(new IUHFInventoryCallback() {
+            startInventoryWorker((epc, rssi, antenna, timestamp) -> {
+                if (!epcValidator.isValid(epc)) {
+                    return;
+                }
+                // La potencia se ajusta con todas las lecturas, también las que no son objetivo
+                AdaptivePowerController power = powerController;
+                if (power != null) {
+                    power.onRead(CompactTagEncoder.parseRssiCentiDbm(rssi));
+                }
+
+                // Sin objetivos se notifica cualquier EPC nuevo (comportamiento previo)
+                if (!targets.isEmpty() && !targets.contains(epc)) {
+                    return;
+                }
+                sessionReads.incrementAndGet();
+                if (aggregateMatches || inventoryJournal != null) {
+                    tagAggregator.record(epc, rssi, antenna, timestamp);
+                }
+
+                // add() atómico: un EPC se notifica una sola vez aunque clearFoundTags corra en paralelo
+                if (foundTags.add(epc)) {
+
+                    JSObject tagData = new JSObject();
+                    tagData.put("epc", epc);
+                    tagData.put("rssi", rssi);
+                    tagData.put("timestamp", timestamp);
+
+                    markFirstEmit();
+                    notifyListeners("filteredTagFound", tagData);
+                }
+            });
+
+            mReader.setInventoryCallback(new IUHFInventoryCallback() {
                 @Override
                 public void callback(UHFTAGInfo uhftagInfo) {
-                    if (uhftagInfo != null && isFilteredInventoryRunning) {
-                        String epc = uhftagInfo.getEPC();
-                        String rssi = uhftagInfo.getRssi();
-
-                                                if (epc != null && !epc.isEmpty() && !epc.matches("[0]+")) {
-                            // Simple duplicate check without synchronization for speed
-                            if (!foundTags.contains(epc)) {
-                                foundTags.add(epc);
-
-                                JSObject tagData = new JSObject();
-                                tagData.put("epc", epc);
-                                tagData.put("rssi", rssi);
-                                tagData.put("timestamp", System.currentTimeMillis());
-
-                                // Direct notification for speed - similar to BuscarTags
-                                notifyListeners("filteredTagFound", tagData);
-                            }
-                        }
+                    if (uhftagInfo != null && inventoryState.acceptsReads(InventoryState.Kind.FILTERED)) {
+                        enqueueRead(uhftagInfo);
                     }
                 }
             });
 
+            startPowerControl();
             boolean success = mReader.startInventoryTag();
-            if (!success) {
-                call.reject("Error starting RFID reading");
-                return;
+            if (success) {
+                perfStats.mark(PerfStats.STAGE_INVENTORY_STARTED);
+            } else {
+                stopPowerControl();
+                stopInventoryWorker();
+                readerLifecycle.release();
+                inventoryState.startFailed(InventoryState.Kind.FILTERED);
+                return readingFailure("Error starting RFID reading");
             }
 
-            isFilteredInventoryRunning = true;
-            loopStarted = true;
+            inventoryState.started(InventoryState.Kind.FILTERED);
 
             JSObject ret = new JSObject();
             ret.put("success", true);
             ret.put("message", "Filtered RFID reading started successfully");
-            ret.put("targetCount", targetTags.size());
-            call.resolve(ret);
+            ret.put("targetCount", targetIndex.size());
 
-            Log.d(TAG, "Filtered reading started successfully with " + targetTags.size() + " target tags");
+            PluginLog.d(TAG, "Filtered reading started successfully with " + targetIndex.size() + " target tags");
+            return ret;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error in startFilteredReading: " + e.getMessage(), e);
-            isFilteredInventoryRunning = false;
-            loopStarted = false;
-            call.reject("Error starting filtered RFID reader: " + e.getMessage());
+            PluginLog.e(TAG, "Error in startFilteredReading: " + e.getMessage(), e);
+            stopPowerControl();
+            stopInventoryWorker();
+            readerLifecycle.release();
+            inventoryState.startFailed(InventoryState.Kind.FILTERED);
+            return readingFailure("Error starting filtered RFID reader: " + e.getMessage());
         }
     }
 
-        @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
     public void stopFilteredReading(PluginCall call) {
-        try {
-            Log.d(TAG, "stopFilteredReading called");
-
-            // Set flags to false immediately to stop callbacks
-            isFilteredInventoryRunning = false;
-            loopStarted = false;
-
-            if (executorService != null && !executorService.isShutdown()) {
-                executorService.shutdown();
-                executorService = null;
-            }
+        PluginLog.d(TAG, "stopFilteredReading called");
+        submitStop(call, InventoryState.Kind.FILTERED, this::stopFilteredReadingInternal);
+    }
 
-            boolean success = false;
-            if (mReader != null) {
-                success = mReader.stopInventory();
+    private JSObject stopFilteredReadingInternal() {
+        if (!inventoryState.requestStop(InventoryState.Kind.FILTERED)) {
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("message", "Filtered reading is not running");
+            ret.put("foundCount", foundTags.size());
+            ret.put("targetCount", targetIndex.size());
+            return ret;
+        }
+        return finishFilteredStop();
+    }
 
-                // Faster cleanup - similar to BuscarTags
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+    // Con el estado en STOPPING: detiene el módulo, procesa lo encolado y vuelve a IDLE
+    private JSObject finishFilteredStop() {
+        try {
+            stopPowerControl();
 
-                clearBufferInternal();
-                lastNotificationTime = 0;
-            }
+            boolean success = mReader != null && mReader.stopInventory();
+            // Las lecturas que quedaban en camino se notifican como el resto; sin lector sólo se para el worker
+            int flushed = flushInventory();
+            readerLifecycle.release();
 
             JSObject ret = new JSObject();
             ret.put("success", success);
             ret.put("message", success ? "Filtered reading stopped successfully" : "Error stopping filtered reading");
             ret.put("foundCount", foundTags.size());
-            call.resolve(ret);
+            ret.put("targetCount", targetIndex.size());
+            ret.put("flushedCount", flushed);
+            putUndrainedCount(ret);
+            ret.put("matchedReads", sessionReads.get());
+            ret.put("droppedCount", sessionDroppedCount());
+            putLatency(ret);
 
-            Log.d(TAG, "Filtered reading stopped. Found " + foundTags.size() + " tags total");
+            PluginLog.d(TAG, "Filtered reading stopped. Found " + foundTags.size() + " tags total");
+            return ret;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error in stopFilteredReading: " + e.getMessage(), e);
-            isFilteredInventoryRunning = false;
-            loopStarted = false;
+            PluginLog.e(TAG, "Error in stopFilteredReading: " + e.getMessage(), e);
+            stopPowerControl();
+            stopInventoryWorker();
+            readerLifecycle.release();
 
             JSObject ret = new JSObject();
             ret.put("success", false);
             ret.put("message", "Error stopping filtered RFID reader: " + e.getMessage());
-            call.resolve(ret);
+            return ret;
+        } finally {
+            inventoryState.stopped(InventoryState.Kind.FILTERED);
         }
     }
 
@@ -338,9 +636,9 @@ public class RFIDPlugin extends Plugin {
     public void getFilteredReadingStatus(PluginCall call) {
         try {
             JSObject ret = new JSObject();
-            ret.put("isRunning", isFilteredInventoryRunning);
+            ret.put("isRunning", inventoryState.isActive(InventoryState.Kind.FILTERED));
             ret.put("foundCount", foundTags.size());
-            ret.put("targetCount", targetTags.size());
+            ret.put("targetCount", targetIndex.size());
             ret.put("success", true);
             call.resolve(ret);
         } catch (Exception e) {
@@ -353,7 +651,6 @@ public class RFIDPlugin extends Plugin {
         try {
             int previousSize = foundTags.size();
             foundTags.clear();
-            lastNotificationTime = 0;
 
             JSObject ret = new JSObject();
             ret.put("success", true);
@@ -361,291 +658,1718 @@ public class RFIDPlugin extends Plugin {
             ret.put("message", "Found tags cleared successfully");
             call.resolve(ret);
 
-            Log.d(TAG, "Found tags cleared, " + previousSize + " tags removed from memory");
+            PluginLog.d(TAG, "Found tags cleared, " + previousSize + " tags removed from memory");
         } catch (Exception e) {
             call.reject("Error clearing found tags", e);
         }
     }
 
-
+    /**
+     * Modo localizar ("Geiger"): inventario restringido a un EPC con el select del módulo cuando está
+     * disponible, RSSI suavizado en nativo y un evento locateUpdate (proximidad 0-100) cada intervalMs.
+     * JS no recibe las lecturas crudas.
+     */
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
-    public void stopReading(PluginCall call) {
-        try {
-            Log.d(TAG, "stopReading called");
+    public void startLocate(PluginCall call) {
+        long startNanos = System.nanoTime();
+        submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, startKey(InventoryState.Kind.LOCATE),
+                START_TIMEOUT_MS, true, () -> startLocateInternal(call, startNanos));
+    }
 
-            if (!isInventoryRunning) {
-                JSObject ret = new JSObject();
-                ret.put("success", false);
-                ret.put("message", "El lector no está en funcionamiento");
-                call.resolve(ret);
-                return;
+    private JSObject startLocateInternal(PluginCall call, long startNanos) {
+        final String epc = call.getString("epc");
+        if (epc == null || !epcValidator.isValid(epc)) {
+            return readingFailure("EPC no válido: " + epc);
+        }
+        final long intervalMs = Math.max(MIN_LOCATE_INTERVAL_MS,
+                call.getLong("intervalMs", DEFAULT_LOCATE_INTERVAL_MS));
+        float minRssi = call.getFloat("minRssi", ProximityEstimator.DEFAULT_MIN_RSSI);
+        float maxRssi = call.getFloat("maxRssi", ProximityEstimator.DEFAULT_MAX_RSSI);
+        long lostAfterMs = call.getLong("lostAfterMs", ProximityEstimator.DEFAULT_LOST_AFTER_MS);
+
+        try {
+            if (mReader == null) {
+                mReader = obtainReader();
+                if (mReader == null) {
+                    return readingFailure("No se pudo obtener instancia del lector");
+                }
+            }
+            if (!inventoryState.tryStart(InventoryState.Kind.LOCATE)) {
+                return readingFailure(busyMessage());
             }
 
-            // Marcar que debe parar
-            isInventoryRunning = false;
-            loopStarted = false;
+            final ProximityEstimator estimator = new ProximityEstimator(minRssi, maxRssi, lostAfterMs, nowMs());
 
-            // Shutdown del ExecutorService si existe
-            if (executorService != null && !executorService.isShutdown()) {
-                executorService.shutdown();
-                executorService = null;
+            if (!readerLifecycle.acquire()) {
+                inventoryState.startFailed(InventoryState.Kind.LOCATE);
+                return readingFailure("Error al inicializar el lector RFID");
             }
+            beginLatencySession(startNanos);
+            beginInventorySession(false);
+            clearBufferInternal();
 
-            if (mReader != null) {
-                // Parar el inventario
-                boolean success = mReader.stopInventory();
-
-                // Pequeña pausa para asegurar que se detenga
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-
-                // Limpiar el buffer completamente
-                clearBufferInternal();
+            // El select deja al módulo responder sólo al objetivo; si no, se filtra en el worker
+            locateFilterApplied = EpcCodec.isPackable(epc)
+                    && mReader.setFilter(UhfReader.BANK_EPC, UhfReader.EPC_START_BIT, epc.length() * 4, epc);
+            locateEpc = epc;
+            proximityEstimator = estimator;
 
-                // Liberar recursos temporalmente
-                try {
-                    mReader.free();
-                } catch (Exception e) {
-                    Log.w(TAG, "Error liberando recursos: " + e.getMessage());
+            startInventoryWorker((readEpc, rssi, antenna, timestamp) -> {
+                if (epc.equalsIgnoreCase(readEpc)) {
+                    estimator.update(TagAggregator.parseRssi(rssi), nowMs());
                 }
+            });
 
-                JSObject ret = new JSObject();
-                ret.put("success", success);
-                ret.put("message", success ? "Lectura detenida correctamente" : "Error al detener la lectura");
-                call.resolve(ret);
+            mReader.setInventoryCallback(new IUHFInventoryCallback() {
+                @Override
+                public void callback(UHFTAGInfo uhftagInfo) {
+                    if (uhftagInfo != null && inventoryState.acceptsReads(InventoryState.Kind.LOCATE)) {
+                        enqueueRead(uhftagInfo);
+                    }
+                }
+            });
 
-                Log.d(TAG, "Lectura detenida exitosamente");
-            } else {
-                JSObject ret = new JSObject();
-                ret.put("success", false);
-                ret.put("message", "Lector no disponible");
-                call.resolve(ret);
+            if (!mReader.startInventoryTag()) {
+                finishLocate();
+                inventoryState.startFailed(InventoryState.Kind.LOCATE);
+                return readingFailure("Error al iniciar la lectura RFID");
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error en stopReading: " + e.getMessage(), e);
-            isInventoryRunning = false;
-            loopStarted = false;
+            perfStats.mark(PerfStats.STAGE_INVENTORY_STARTED);
+            locateTask = getLocateScheduler().scheduleAtFixedRate(this::emitLocateUpdate,
+                    intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            inventoryState.started(InventoryState.Kind.LOCATE);
 
             JSObject ret = new JSObject();
-            ret.put("success", false);
-            ret.put("message", "Error al detener el lector RFID: " + e.getMessage());
-            call.resolve(ret);
+            ret.put("success", true);
+            ret.put("epc", epc);
+            ret.put("filterApplied", locateFilterApplied);
+            ret.put("intervalMs", intervalMs);
+            PluginLog.d(TAG, "Locate started for " + epc + " (filter " + locateFilterApplied + ")");
+            return ret;
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Error in startLocate: " + e.getMessage(), e);
+            finishLocate();
+            inventoryState.startFailed(InventoryState.Kind.LOCATE);
+            return readingFailure("Error iniciando el modo localizar: " + e.getMessage());
         }
     }
 
-    @PluginMethod
-    public void free(PluginCall call) {
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void stopLocate(PluginCall call) {
+        submitStop(call, InventoryState.Kind.LOCATE, this::stopLocateInternal);
+    }
+
+    private JSObject stopLocateInternal() {
+        if (!inventoryState.requestStop(InventoryState.Kind.LOCATE)) {
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("message", "El modo localizar no está activo");
+            return ret;
+        }
+        JSObject ret = new JSObject();
         try {
-            if (mReader != null) {
-                stopReading(call);
-                mReader.free();
-                mReader = null;
-                JSObject ret = new JSObject();
-                ret.put("success", true);
-                call.resolve(ret);
-            }
+            boolean success = mReader == null || mReader.stopInventory();
+            ProximityEstimator estimator = proximityEstimator;
+            boolean filterApplied = locateFilterApplied;
+            String epc = locateEpc;
+            finishLocate();
+
+            ret.put("success", success);
+            ret.put("epc", epc);
+            ret.put("reads", estimator != null ? estimator.getReads() : 0);
+            ret.put("filterApplied", filterApplied);
+            ret.put("droppedCount", sessionDroppedCount());
+            putLatency(ret);
         } catch (Exception e) {
-            call.reject("Error liberando recursos del lector", e);
+            PluginLog.e(TAG, "Error in stopLocate: " + e.getMessage(), e);
+            finishLocate();
+            inventoryState.stopped(InventoryState.Kind.LOCATE);
+            return readingFailure("Error deteniendo el modo localizar: " + e.getMessage());
         }
+        // IDLE antes de resolver, para que un startLocate inmediato no vea el estado STOPPING
+        inventoryState.stopped(InventoryState.Kind.LOCATE);
+        return ret;
     }
 
+    // Deshace startLocate: cadencia, worker, select del módulo y reserva del lector
+    private void finishLocate() {
+        if (locateTask != null) {
+            locateTask.cancel(false);
+            locateTask = null;
+        }
+        stopInventoryWorker();
+        if (locateFilterApplied && mReader != null) {
+            mReader.clearFilter();
+        }
+        locateFilterApplied = false;
+        locateEpc = null;
+        proximityEstimator = null;
+        clearBufferInternal();
+        readerLifecycle.release();
+    }
 
-    @PluginMethod
-    public void getInventoryTag(PluginCall call) {
-        try {
-            UHFTAGInfo tagInfo = mReader.readTagFromBuffer();
-            JSObject ret = new JSObject();
-            if (tagInfo != null) {
-                ret.put("epc", tagInfo.getEPC());
-                ret.put("rssi", tagInfo.getRssi());
-                ret.put("success", true);
-                call.resolve(ret);
-            } else {
-                ret.put("success", false);
-                ret.put("message", "No hay tags en el buffer");
-                call.resolve(ret);
-            }
-        } catch (Exception e) {
-            call.reject("Error leyendo tag del buffer", e);
+    private void emitLocateUpdate() {
+        ProximityEstimator estimator = proximityEstimator;
+        String epc = locateEpc;
+        if (!inventoryState.isActive(InventoryState.Kind.LOCATE) || estimator == null) {
+            return;
+        }
+        ProximityEstimator.Sample sample = estimator.sample(nowMs());
+        JSObject update = new JSObject();
+        update.put("epc", epc);
+        update.put("proximity", sample.proximity);
+        update.put("inRange", sample.inRange);
+        if (sample.inRange) {
+            update.put("rssi", Math.round(sample.rssi * 10) / 10.0);
         }
+        if (!Float.isNaN(sample.rawRssi)) {
+            update.put("rawRssi", sample.rawRssi);
+        }
+        update.put("readsPerSecond", Math.round(sample.readsPerSecond * 10) / 10.0);
+        update.put("reads", sample.reads);
+        update.put("timestamp", System.currentTimeMillis());
+        markFirstEmit();
+        notifyListeners("locateUpdate", update);
+    }
+
+    private synchronized ScheduledExecutorService getLocateScheduler() {
+        if (locateScheduler == null) {
+            locateScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "RFIDLocate");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return locateScheduler;
+    }
+
+    // Reloj monotónico en ms para el filtro de RSSI
+    private static long nowMs() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void stopReading(PluginCall call) {
+        PluginLog.d(TAG, "stopReading called");
+        submitStop(call, InventoryState.Kind.READING, this::stopReadingInternal);
     }
 
     /**
-     * Método interno para limpiar el buffer del lector
+     * Parada de inventario compartida por stopReading y el modo de gatillo nativo
      */
-    private void clearBufferInternal() {
-        if (mReader != null) {
-            try {
-                // Limpiar el buffer múltiples veces para asegurar que esté vacío
-                for (int i = 0; i < 10; i++) {
-                    UHFTAGInfo tagInfo = mReader.readTagFromBuffer();
-                    if (tagInfo == null) {
-                        break;
-                    }
-                }
-                Log.d(TAG, "Buffer limpiado internamente");
-            } catch (Exception e) {
-                Log.w(TAG, "Error limpiando buffer interno: " + e.getMessage());
-            }
+    private JSObject stopReadingInternal() {
+        // Inicios y paradas corren en el hilo del lector: nunca hay un inicio a medias
+        if (!inventoryState.requestStop(InventoryState.Kind.READING)) {
+            JSObject ret = new JSObject();
+            ret.put("success", false);
+            ret.put("message", "El lector no está en funcionamiento");
+            return ret;
         }
+        return finishReadingStop();
     }
 
-    @PluginMethod
-    public void setPower(PluginCall call) {
+    // Con el estado en STOPPING: detiene el módulo, entrega lo pendiente y vuelve a IDLE.
+    // Sin lector el desmontaje (worker, lotes, deltas, potencia) se hace igual.
+    private JSObject finishReadingStop() {
         try {
-            int power = call.getInt("power", DEFAULT_POWER);
+            stopPowerControl();
 
-            // Validar rango de potencia
-            if (power < MIN_POWER || power > MAX_POWER) {
-                call.reject("Potencia debe estar entre " + MIN_POWER + " y " + MAX_POWER);
-                return;
-            }
+            // Parar el inventario; al volver, el SDK ya no produce lecturas nuevas
+            boolean readerPresent = mReader != null;
+            boolean success = readerPresent && mReader.stopInventory();
 
-            if (mReader != null) {
-                boolean success = mReader.setPower(power);
-                JSObject ret = new JSObject();
-                ret.put("success", success);
-                ret.put("power", power);
-                call.resolve(ret);
-            } else {
-                call.reject("Lector no inicializado");
+            // Procesar lo encolado y lo que quedó en el buffer del SDK, y entregar el último lote y delta
+            boolean flowWasActive = flowBatcher != null;
+            int flushed = flushInventory();
+            closeTagBatcher();
+            stopInventoryDeltas(true);
+            requestJournalFlush();
+
+            // Mantener el lector caliente; free() real tras el idle timeout
+            readerLifecycle.release();
+
+            JSObject ret = new JSObject();
+            ret.put("success", success);
+            ret.put("message", success ? "Lectura detenida correctamente"
+                    : readerPresent ? "Error al detener la lectura" : "Lector no disponible");
+            putSessionCounts(ret);
+            ret.put("flushedCount", flushed);
+            putUndrainedCount(ret);
+            ret.put("droppedCount", sessionDroppedCount());
+            if (flowWasActive && lastFlowStats != null) {
+                ret.put("flowControl", flowStatsToJS(lastFlowStats));
             }
+            putLatency(ret);
+
+            PluginLog.d(TAG, "Lectura detenida exitosamente");
+            return ret;
         } catch (Exception e) {
-            call.reject("Error configurando potencia", e);
+            PluginLog.e(TAG, "Error en stopReading: " + e.getMessage(), e);
+            stopPowerControl();
+            stopInventoryWorker();
+            closeTagBatcher();
+            stopInventoryDeltas(false);
+            readerLifecycle.release();
+
+            JSObject ret = new JSObject();
+            ret.put("success", false);
+            ret.put("message", "Error al detener el lector RFID: " + e.getMessage());
+            return ret;
+        } finally {
+            inventoryState.stopped(InventoryState.Kind.READING);
         }
     }
 
-    @PluginMethod
-    public void getPower(PluginCall call) {
-        try {
-            if (mReader != null) {
-                int power = mReader.getPower();
-                JSObject ret = new JSObject();
-                ret.put("success", true);
-                ret.put("power", power);
-                call.resolve(ret);
-            } else {
-                call.reject("Lector no inicializado");
-            }
-        } catch (Exception e) {
-            call.reject("Error obteniendo potencia", e);
-        }
+    private static String startKey(InventoryState.Kind kind) {
+        return "start:" + kind.name();
     }
 
-    @PluginMethod
-    public void initReader(PluginCall call) {
+    /**
+     * Ejecuta la tarea en el hilo del lector y responde a la llamada con su resultado.
+     * Con rejectFailure, un resultado success=false rechaza la promesa con su message.
+     */
+    private void submitReaderCall(PluginCall call, ReaderCommandExecutor.Priority priority, String key,
+                                  long timeoutMs, boolean rejectFailure, ReaderCommandExecutor.Task<JSObject> task) {
+        readerCommands.submit(priority, key, timeoutMs, task, callCallback(call, rejectFailure));
+    }
+
+    private ReaderCommandExecutor.Callback<JSObject> callCallback(final PluginCall call, final boolean rejectFailure) {
+        return new ReaderCommandExecutor.Callback<JSObject>() {
+            @Override
+            public void onResult(JSObject ret) {
+                if (rejectFailure && !ret.getBoolean("success", false)) {
+                    call.reject(ret.getString("message"));
+                } else {
+                    call.resolve(ret);
+                }
+            }
+
+            @Override
+            public void onError(String message, Exception e) {
+                call.reject(message, e);
+            }
+        };
+    }
+
+    /**
+     * Las paradas adelantan a la configuración en cola y cancelan el arranque pendiente del mismo tipo,
+     * que ya no tendría sentido. Si sólo había ese arranque, la parada lo informa como éxito.
+     */
+    private void submitStop(PluginCall call, InventoryState.Kind kind, final ReaderCommandExecutor.Task<JSObject> stop) {
+        final int cancelledStarts = readerCommands.cancelPending(startKey(kind), "Inicio cancelado por una parada");
+        submitReaderCall(call, ReaderCommandExecutor.Priority.STOP, null, STOP_TIMEOUT_MS, false, () -> {
+            JSObject ret = stop.run();
+            if (cancelledStarts > 0 && inventoryState.getKind() != kind && !ret.getBoolean("success", false)) {
+                ret.put("success", true);
+                ret.put("message", "Inicio pendiente cancelado");
+            }
+            if (cancelledStarts > 0) {
+                ret.put("cancelledStart", true);
+            }
+            return ret;
+        });
+    }
+
+    private String busyMessage() {
+        InventoryState.Kind kind = inventoryState.getKind();
+        if (kind == InventoryState.Kind.LOCATE) {
+            return "El modo localizar está activo";
+        }
+        if (kind == InventoryState.Kind.FILTERED) {
+            return "La lectura filtrada está en funcionamiento";
+        }
+        return "La lectura ya está en funcionamiento";
+    }
+
+    /**
+     * Cancela los inicios en cola, detiene el inventario activo sea del tipo que sea y apaga el lector
+     */
+    @PluginMethod
+    public void free(PluginCall call) {
+        for (InventoryState.Kind kind : InventoryState.Kind.values()) {
+            readerCommands.cancelPending(startKey(kind), "Lector liberado");
+        }
+        submitReaderCall(call, ReaderCommandExecutor.Priority.STOP, null, STOP_TIMEOUT_MS, false, () -> {
+            InventoryState.Kind active = inventoryState.getKind();
+            if (active == InventoryState.Kind.READING) {
+                stopReadingInternal();
+            } else if (active == InventoryState.Kind.FILTERED) {
+                stopFilteredReadingInternal();
+            } else if (active == InventoryState.Kind.LOCATE) {
+                stopLocateInternal();
+            }
+            if (mReader != null) {
+                readerLifecycle.forceCold();
+                mReader = null;
+            }
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            return ret;
+        });
+    }
+
+
+    @PluginMethod
+    public void getInventoryTag(PluginCall call) {
+        submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, false, () -> {
+            if (mReader == null) {
+                return readingFailure("Lector no inicializado");
+            }
+            UHFTAGInfo tagInfo = mReader.readTagFromBuffer();
+            JSObject ret = new JSObject();
+            if (tagInfo != null) {
+                ret.put("epc", tagInfo.getEPC());
+                ret.put("rssi", tagInfo.getRssi());
+                ret.put("success", true);
+            } else {
+                ret.put("success", false);
+                ret.put("message", "No hay tags en el buffer");
+            }
+            return ret;
+        });
+    }
+
+    /**
+     * Método interno para limpiar el buffer del lector
+     */
+    private void clearBufferInternal() {
+        if (mReader != null) {
+            try {
+                int cleared = drainReaderBuffer();
+                PluginLog.d(TAG, "Buffer limpiado internamente, " + cleared + " tags removidos");
+            } catch (Exception e) {
+                PluginLog.w(TAG, "Error limpiando buffer interno: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Vacía el buffer del SDK hasta que no devuelve nada. Devuelve cuántos tags había.
+     */
+    private int drainReaderBuffer() {
+        int drained = 0;
+        while (drained < MAX_BUFFER_DRAIN && mReader.readTagFromBuffer() != null) {
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Lee hasta max tags del buffer del SDK en un solo viaje por el bridge. Con timeoutMs espera
+     * lecturas nuevas hasta completar max o agotar el plazo; si no, vuelve en cuanto el buffer se vacía.
+     * dedupe deja una entrada por EPC (última lectura y count); aggregate, entradas como las de
+     * getInventorySnapshot. Se rechaza durante un inventario, que es quien consume ese buffer.
+     */
+    @PluginMethod
+    public void readBufferedTags(PluginCall call) {
+        final int max = Math.max(1, Math.min(MAX_BUFFERED_READ, call.getInt("max", DEFAULT_BUFFERED_READ)));
+        final long timeoutMs = Math.max(0, Math.min(MAX_BUFFERED_WAIT_MS, call.getLong("timeoutMs", 0L)));
+        final boolean aggregate = call.getBoolean("aggregate", false);
+        final boolean dedupe = call.getBoolean("dedupe", false);
+        BufferedRead read = new BufferedRead(call, max, timeoutMs, dedupe, aggregate);
+        readerCommands.submit(ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, read, read);
+    }
+
+    /**
+     * Una lectura de readBufferedTags repartida en pasadas. Cada pasada vacía lo que hay en el buffer;
+     * si falta completar max y queda plazo, la siguiente se encola en BACKGROUND tras
+     * BUFFER_POLL_INTERVAL_MS, así una parada o un comando no esperan a que venza el timeoutMs.
+     */
+    private final class BufferedRead
+            implements ReaderCommandExecutor.Task<JSObject>, ReaderCommandExecutor.Callback<JSObject> {
+        private final ReaderCommandExecutor.Callback<JSObject> done;
+        private final int max;
+        private final long startNanos = System.nanoTime();
+        private final long deadline;
+        private final Map<String, JSObject> byEpc;
+        private final TagAggregator aggregator;
+        private JSArray tags = new JSArray();
+        private int reads = 0;
+        private int rejected = 0;
+
+        BufferedRead(PluginCall call, int max, long timeoutMs, boolean dedupe, boolean aggregate) {
+            this.done = callCallback(call, true);
+            this.max = max;
+            this.deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            this.byEpc = dedupe && !aggregate ? new LinkedHashMap<String, JSObject>() : null;
+            this.aggregator = aggregate ? new TagAggregator() : null;
+        }
+
+        // Una pasada en el hilo del lector; null si sigue en otra pasada
+        @Override
+        public JSObject run() {
+            if (mReader == null) {
+                return reads == 0 ? readingFailure("Lector no inicializado") : result();
+            }
+            if (!inventoryState.isIdle()) {
+                // Un inventario que arrancó entre pasadas se queda con el buffer; se entrega lo leído
+                return reads == 0 ? readingFailure(busyMessage()) : result();
+            }
+            UHFTAGInfo tagInfo;
+            while (reads < max && (tagInfo = mReader.readTagFromBuffer()) != null) {
+                add(tagInfo);
+            }
+            if (reads >= max || System.nanoTime() >= deadline) {
+                return result();
+            }
+            readerCommands.submitAfter(BUFFER_POLL_INTERVAL_MS, ReaderCommandExecutor.Priority.BACKGROUND, null,
+                    CONFIG_TIMEOUT_MS, this, this);
+            return null;
+        }
+
+        @Override
+        public void onResult(JSObject ret) {
+            if (ret != null) {
+                done.onResult(ret);
+            }
+        }
+
+        @Override
+        public void onError(String message, Exception e) {
+            done.onError(message, e);
+        }
+
+        private void add(UHFTAGInfo tagInfo) {
+            reads++;
+            String epc = tagInfo.getEPC();
+            if (epc == null || !epcValidator.isValid(epc)) {
+                rejected++;
+                return;
+            }
+            long timestamp = System.currentTimeMillis();
+            if (aggregator != null) {
+                aggregator.record(epc, tagInfo.getRssi(), tagInfo.getAnt(), timestamp);
+                return;
+            }
+
+            JSObject tag = byEpc != null ? byEpc.get(epc) : null;
+            if (tag == null) {
+                tag = new JSObject();
+                tag.put("epc", epc);
+                tags.put(tag);
+                if (byEpc != null) {
+                    byEpc.put(epc, tag);
+                }
+            }
+            tag.put("rssi", tagInfo.getRssi());
+            if (tagInfo.getAnt() != null) {
+                tag.put("antenna", tagInfo.getAnt());
+            }
+            tag.put("timestamp", timestamp);
+            if (byEpc != null) {
+                tag.put("count", tag.optInt("count", 0) + 1);
+            }
+        }
+
+        private JSObject result() {
+            if (aggregator != null) {
+                tags = aggregateEntriesToJS(aggregator.snapshot());
+            }
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("tags", tags);
+            ret.put("count", tags.length());
+            ret.put("reads", reads);
+            ret.put("rejectedCount", rejected);
+            // Se llegó a max: puede quedar más en el buffer
+            ret.put("more", reads >= max);
+            ret.put("drainMs", (System.nanoTime() - startNanos) / 1_000_000.0);
+            return ret;
+        }
+    }
+
+    /**
+     * Cambia entre el módulo Chainway y el lector simulado.
+     * El lector actual se libera; el nuevo se inicializa en el próximo initReader / startReading.
+     */
+    @PluginMethod
+    public void setReaderBackend(PluginCall call) {
+        try {
+            if (!inventoryState.isIdle()) {
+                call.reject("No se puede cambiar el lector durante la lectura");
+                return;
+            }
+
+            String backend = call.getString("backend", "chainway");
+            SimulatedUhfReader.Config config;
+            if ("simulator".equals(backend)) {
+                config = new SimulatedUhfReader.Config();
+                JSObject options = call.getObject("simulator", new JSObject());
+                config.tagPopulation = options.optInt("tagPopulation", config.tagPopulation);
+                config.readsPerSecond = options.optInt("readsPerSecond", config.readsPerSecond);
+                config.rssiMean = (float) options.optDouble("rssiMean", config.rssiMean);
+                config.rssiStdDev = (float) options.optDouble("rssiStdDev", config.rssiStdDev);
+                config.burstOnMs = options.optLong("burstOnMs", config.burstOnMs);
+                config.burstOffMs = options.optLong("burstOffMs", config.burstOffMs);
+                config.seed = options.optLong("seed", config.seed);
+                config.startupDelayMs = options.optInt("startupDelayMs", config.startupDelayMs);
+            } else if ("chainway".equals(backend)) {
+                config = null;
+            } else {
+                call.reject("Backend no válido: " + backend);
+                return;
+            }
+
+            final SimulatedUhfReader.Config selected = config;
+            submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, true, () -> {
+                if (!inventoryState.isIdle()) {
+                    return readingFailure("No se puede cambiar el lector durante la lectura");
+                }
+                readerLifecycle.forceCold();
+                simulatorConfig = selected;
+                mReader = null;
+
+                JSObject ret = new JSObject();
+                ret.put("success", true);
+                ret.put("backend", backend);
+                return ret;
+            });
+        } catch (Exception e) {
+            call.reject("Error cambiando el lector", e);
+        }
+    }
+
+    @PluginMethod
+    public void setPower(PluginCall call) {
         try {
+            int power = call.getInt("power", DEFAULT_POWER);
+
+            // Validar rango de potencia
+            if (power < MIN_POWER || power > MAX_POWER) {
+                call.reject("Potencia debe estar entre " + MIN_POWER + " y " + MAX_POWER);
+                return;
+            }
+
+            // Varias llamadas seguidas se funden en una: se aplica la última y todas reciben su resultado
+            readerCommands.submitCoalescing(ReaderCommandExecutor.Priority.COMMAND, "setPower", CONFIG_TIMEOUT_MS,
+                    () -> {
+                        if (mReader == null) {
+                            throw new IllegalStateException("Lector no inicializado");
+                        }
+                        boolean success = mReader.setPower(power);
+                        AdaptivePowerController controller = powerController;
+                        if (success && controller != null) {
+                            // El ajuste automático sigue desde la potencia fijada a mano
+                            controller.setCurrentPower(power);
+                        }
+                        JSObject ret = new JSObject();
+                        ret.put("success", success);
+                        ret.put("power", power);
+                        return ret;
+                    }, callCallback(call, false));
+        } catch (Exception e) {
+            call.reject("Error configurando potencia", e);
+        }
+    }
+
+    @PluginMethod
+    public void getPower(PluginCall call) {
+        submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, true, () -> {
             if (mReader == null) {
-                mReader = RFIDWithUHFUART.getInstance();
+                return readingFailure("Lector no inicializado");
+            }
+            int power = mReader.getPower();
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("power", power);
+            return ret;
+        });
+    }
+
+    /**
+     * Ajuste automático de potencia durante el inventario. goal 'zone' mantiene las lecturas entre
+     * minRssi y maxRssi; 'discovery' busca el máximo de EPCs nuevos por segundo. Las decisiones
+     * quedan en getPerformanceStats.
+     */
+    @PluginMethod
+    public void setAdaptivePower(PluginCall call) {
+        try {
+            boolean enabled = call.getBoolean("enabled", true);
+            if (!enabled) {
+                adaptivePowerConfig = null;
+                stopPowerControl();
+                JSObject ret = new JSObject();
+                ret.put("success", true);
+                ret.put("enabled", false);
+                call.resolve(ret);
+                return;
+            }
+
+            AdaptivePowerController.Config config = new AdaptivePowerController.Config();
+            String goalName = call.getString("goal", "zone");
+            if ("zone".equals(goalName)) {
+                config.goal = AdaptivePowerController.Goal.ZONE;
+            } else if ("discovery".equals(goalName)) {
+                config.goal = AdaptivePowerController.Goal.DISCOVERY;
+            } else {
+                call.reject("Objetivo de potencia no válido: " + goalName);
+                return;
+            }
+            config.minPower = call.getInt("minPower", MIN_POWER);
+            config.maxPower = call.getInt("maxPower", MAX_POWER);
+            if (config.minPower < MIN_POWER || config.maxPower > MAX_POWER || config.minPower > config.maxPower) {
+                call.reject("Potencia debe estar entre " + MIN_POWER + " y " + MAX_POWER);
+                return;
+            }
+            config.step = Math.max(1, call.getInt("step", AdaptivePowerController.DEFAULT_STEP));
+            config.minRssi = call.getFloat("minRssi", config.minRssi);
+            config.maxRssi = call.getFloat("maxRssi", config.maxRssi);
+            if (config.goal == AdaptivePowerController.Goal.ZONE && !(config.maxRssi > config.minRssi)) {
+                call.reject("maxRssi debe ser mayor que minRssi");
+                return;
+            }
+            config.intervalMs = Math.max(MIN_POWER_INTERVAL_MS,
+                    call.getLong("intervalMs", AdaptivePowerController.DEFAULT_INTERVAL_MS));
+            adaptivePowerConfig = config;
+
+            // Con el inventario en marcha se aplica en el acto; lee y fija la potencia en el módulo
+            submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, false, () -> {
+                if (inventoryState.isActive(InventoryState.Kind.READING)
+                        || inventoryState.isActive(InventoryState.Kind.FILTERED)) {
+                    startPowerControl();
+                }
+
+                JSObject ret = new JSObject();
+                ret.put("success", true);
+                ret.put("enabled", true);
+                ret.put("goal", goalName);
+                ret.put("minPower", config.minPower);
+                ret.put("maxPower", config.maxPower);
+                ret.put("running", powerController != null);
+                return ret;
+            });
+        } catch (Exception e) {
+            call.reject("Error configurando la potencia adaptativa", e);
+        }
+    }
+
+    private synchronized void startPowerControl() {
+        stopPowerControl();
+        AdaptivePowerController.Config config = adaptivePowerConfig;
+        UhfReader reader = mReader;
+        if (config == null || reader == null) {
+            return;
+        }
+        int current = reader.getPower();
+        if (current < MIN_POWER || current > MAX_POWER) {
+            current = DEFAULT_POWER;
+        }
+        final AdaptivePowerController controller = new AdaptivePowerController(config, current, nowMs(),
+                this::applyAdaptivePower, tagAggregator::size, perfStats);
+        // Arrancar dentro de los límites configurados
+        if (controller.getPower() != current && !applyAdaptivePower(controller.getPower())) {
+            controller.setCurrentPower(current);
+        }
+        powerController = controller;
+        powerTask = getPowerScheduler().scheduleWithFixedDelay(() -> evaluatePower(controller),
+                config.intervalMs, config.intervalMs, TimeUnit.MILLISECONDS);
+        PluginLog.d(TAG, "Adaptive power started at " + controller.getPower() + " (" + config.goal + ")");
+    }
+
+    private synchronized void stopPowerControl() {
+        if (powerTask != null) {
+            powerTask.cancel(false);
+            powerTask = null;
+        }
+        AdaptivePowerController controller = powerController;
+        if (controller != null) {
+            powerController = null;
+            PluginLog.d(TAG, "Adaptive power stopped at " + controller.getPower() + " after "
+                    + controller.getAdjustments() + " adjustments");
+        }
+    }
+
+    private void evaluatePower(AdaptivePowerController controller) {
+        try {
+            controller.evaluate(nowMs());
+        } catch (Exception e) {
+            // Una excepción cancelaría la tarea periódica
+            PluginLog.e(TAG, "Error ajustando la potencia: " + e.getMessage(), e);
+        }
+    }
+
+    // Desde el hilo RFIDPower: espera al hilo del lector, detrás de cualquier comando de JS
+    private boolean applyAdaptivePower(final int power) {
+        try {
+            Boolean applied = readerCommands.await(ReaderCommandExecutor.Priority.BACKGROUND, "adaptivePower",
+                    ADAPTIVE_POWER_TIMEOUT_MS, () -> {
+                        UhfReader reader = mReader;
+                        return reader != null && reader.setPower(power);
+                    });
+            return applied != null && applied;
+        } catch (Exception e) {
+            PluginLog.w(TAG, "Adaptive power " + power + " not applied: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized ScheduledExecutorService getPowerScheduler() {
+        if (powerScheduler == null) {
+            powerScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "RFIDPower");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return powerScheduler;
+    }
+
+    @PluginMethod
+    public void initReader(PluginCall call) {
+        readerCommands.submit(ReaderCommandExecutor.Priority.COMMAND, null, START_TIMEOUT_MS, () -> {
+            if (mReader == null) {
+                mReader = obtainReader();
+            }
+            if (mReader == null) {
+                return readingFailure("No se pudo obtener instancia del lector");
+            }
+            if (!readerLifecycle.warmUp()) {
+                notifyListeners("initError", new JSObject().put("message", "Fallo en la inicialización del lector"));
+                return readingFailure("Fallo en la inicialización del lector");
+            }
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("message", "Lector inicializado correctamente");
+            notifyListeners("initSuccess", ret);
+            return ret;
+        }, callCallback(call, true));
+    }
+
+    @PluginMethod
+    public void resetKeyState(PluginCall call) {
+        try {
+            // Resetear el estado de las teclas
+            triggerState.reset();
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("message", "Estado de teclas reseteado correctamente");
+            call.resolve(ret);
+
+            // Notificar que se ha reseteado el estado
+            notifyListeners("keyStateReset", ret);
+        } catch (Exception e) {
+            call.reject("Error reseteando estado de teclas", e);
+        }
+    }
+
+    /**
+     * Método para obtener el estado actual del inventario
+     */
+    @PluginMethod
+    public void getInventoryStatus(PluginCall call) {
+        try {
+            JSObject ret = new JSObject();
+            ret.put("isRunning", inventoryState.isActive(InventoryState.Kind.READING));
+            ret.put("rejectedCount", epcValidator.getRejectedTotal());
+            ret.put("droppedCount", readBuffer.getDroppedCount());
+            ret.put("bufferHighWaterMark", readBuffer.getHighWaterMark());
+            ret.put("bufferCapacity", readBuffer.capacity());
+            ret.put("readerState", readerLifecycle.getState().name());
+            putLatency(ret);
+            ret.put("success", true);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Error obteniendo estado del inventario", e);
+        }
+    }
+
+    /**
+     * Tiempo que el lector permanece encendido sin inventario antes de liberarlo
+     */
+    @PluginMethod
+    public void setReaderIdleTimeout(PluginCall call) {
+        try {
+            Long idleTimeoutMs = call.getLong("idleTimeoutMs", null);
+            if (idleTimeoutMs == null || idleTimeoutMs < 0) {
+                call.reject("idleTimeoutMs debe ser un número >= 0");
+                return;
+            }
+            // Con 0 el lector se apaga en el acto, así que pasa por el hilo del lector
+            submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, false, () -> {
+                readerLifecycle.setIdleTimeoutMs(idleTimeoutMs);
+
+                JSObject ret = new JSObject();
+                ret.put("success", true);
+                ret.put("idleTimeoutMs", idleTimeoutMs);
+                ret.put("readerState", readerLifecycle.getState().name());
+                return ret;
+            });
+        } catch (Exception e) {
+            call.reject("Error configurando el idle timeout del lector", e);
+        }
+    }
+
+    /**
+     * Nivel de log del plugin: verbose | debug | info | warn | error | none.
+     * Por debajo de debug las rutas por tecla y por tag no construyen mensajes.
+     */
+    @PluginMethod
+    public void setLogLevel(PluginCall call) {
+        String levelName = call.getString("level", null);
+        int level = PluginLog.levelFromName(levelName);
+        if (level < 0) {
+            call.reject("Nivel de log no válido: " + levelName);
+            return;
+        }
+        PluginLog.setLevel(level);
+
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        ret.put("level", PluginLog.levelName(level));
+        call.resolve(ret);
+    }
+
+    private void beginLatencySession(long startNanos) {
+        sessionStartNanos = startNanos;
+        readerStartupNanos = System.nanoTime() - startNanos;
+        firstTagLatencyNanos = -1;
+        firstTagPending = true;
+        firstEmitPending = true;
+    }
+
+    /**
+     * Reinicia los contadores que devuelven las paradas. aggregating: las lecturas van al agregador
+     * aunque el journal esté apagado.
+     */
+    private void beginInventorySession(boolean aggregating) {
+        sessionReads.set(0);
+        sessionDroppedBase = readBuffer.getDroppedCount();
+        sessionAggregating = aggregating;
+        tagAggregator.beginSession();
+    }
+
+    private long sessionDroppedCount() {
+        return readBuffer.getDroppedCount() - sessionDroppedBase;
+    }
+
+    // totalReads: lecturas válidas de la sesión; uniqueCount sólo si se agregaron
+    private void putSessionCounts(JSObject ret) {
+        ret.put("totalReads", sessionReads.get());
+        if (sessionAggregating || tagAggregator.getSessionReads() > 0) {
+            ret.put("uniqueCount", tagAggregator.getSessionUniqueCount());
+        }
+    }
+
+    private void markFirstEmit() {
+        if (firstEmitPending) {
+            firstEmitPending = false;
+            perfStats.mark(PerfStats.STAGE_FIRST_EMIT);
+        }
+    }
+
+    /**
+     * Percentiles por etapa del camino gatillo -> primer evento emitido
+     */
+    @PluginMethod
+    public void getPerformanceStats(PluginCall call) {
+        try {
+            JSObject intervals = new JSObject();
+            for (int stage = PerfStats.STAGE_TRIGGER_ACCEPTED; stage <= PerfStats.STAGE_FIRST_EMIT; stage++) {
+                intervals.put(PerfStats.INTERVAL_NAMES[stage], histogramToJS(perfStats.getInterval(stage)));
+            }
+            intervals.put(PerfStats.TOTAL_NAME, histogramToJS(perfStats.getTotal()));
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("sessions", perfStats.getCompletedTimelines());
+            ret.put("intervals", intervals);
+            ret.put("powerControl", powerControlToJS());
+            ret.put("readerCommands", readerCommandsToJS());
+            call.resolve(ret);
+
+            if (call.getBoolean("reset", false)) {
+                perfStats.reset();
+            }
+        } catch (Exception e) {
+            call.reject("Error obteniendo estadísticas de rendimiento", e);
+        }
+    }
+
+    /**
+     * Activa el evento perfSample con la timeline de cada sesión
+     */
+    @PluginMethod
+    public void setPerformanceSampling(PluginCall call) {
+        try {
+            boolean enabled = call.getBoolean("enabled", false);
+            perfStats.setSampleListener(enabled ? this::emitPerfSample : null);
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("enabled", enabled);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Error configurando el muestreo de rendimiento", e);
+        }
+    }
+
+    private void emitPerfSample(long[] stageNanos) {
+        JSObject sample = new JSObject();
+        long previous = 0;
+        long first = 0;
+        for (int stage = PerfStats.STAGE_KEY_INTERCEPTED; stage <= PerfStats.STAGE_FIRST_EMIT; stage++) {
+            long stamp = stageNanos[stage];
+            if (stamp == 0) {
+                continue;
+            }
+            if (previous != 0) {
+                sample.put(PerfStats.INTERVAL_NAMES[stage] + "Ms", (stamp - previous) / 1_000_000.0);
+            } else {
+                first = stamp;
+            }
+            previous = stamp;
+        }
+        sample.put(PerfStats.TOTAL_NAME + "Ms", (previous - first) / 1_000_000.0);
+        sample.put("timestamp", System.currentTimeMillis());
+        notifyListeners("perfSample", sample);
+    }
+
+    private JSObject readerCommandsToJS() {
+        ReaderCommandExecutor.Stats stats = readerCommands.getStats();
+        JSObject ret = new JSObject();
+        ret.put("pending", stats.pending);
+        ret.put("executed", stats.executed);
+        ret.put("coalesced", stats.coalesced);
+        ret.put("timedOut", stats.timedOut);
+        ret.put("expired", stats.expired);
+        ret.put("cancelled", stats.cancelled);
+        ret.put("failed", stats.failed);
+        ret.put("maxRunMs", stats.maxRunMs);
+        return ret;
+    }
+
+    private JSObject powerControlToJS() {
+        AdaptivePowerController.Config config = adaptivePowerConfig;
+        AdaptivePowerController controller = powerController;
+        JSObject power = new JSObject();
+        power.put("enabled", config != null);
+        power.put("running", controller != null);
+        if (controller != null) {
+            power.put("power", controller.getPower());
+        }
+        power.put("decisionCount", perfStats.getPowerDecisionCount());
+
+        JSArray decisions = new JSArray();
+        for (AdaptivePowerController.Decision decision : perfStats.getPowerDecisions()) {
+            JSObject item = new JSObject();
+            item.put("timestamp", decision.timestamp);
+            item.put("fromPower", decision.fromPower);
+            item.put("toPower", decision.toPower);
+            item.put("applied", decision.applied);
+            item.put("reason", decision.reason);
+            item.put("readsPerSecond", Math.round(decision.readsPerSecond));
+            item.put("newTagsPerSecond", Math.round(decision.newTagsPerSecond * 10) / 10.0);
+            if (!Float.isNaN(decision.rssiP10)) {
+                item.put("rssiP10", decision.rssiP10);
+                item.put("rssiMedian", decision.rssiMedian);
+            }
+            item.put("weakFraction", Math.round(decision.weakFraction * 1000) / 1000.0);
+            decisions.put(item);
+        }
+        power.put("decisions", decisions);
+        return power;
+    }
+
+    private JSObject histogramToJS(LatencyHistogram histogram) {
+        JSObject stats = new JSObject();
+        stats.put("count", histogram.getCount());
+        stats.put("p50", histogram.getPercentileMillis(50));
+        stats.put("p95", histogram.getPercentileMillis(95));
+        stats.put("p99", histogram.getPercentileMillis(99));
+        stats.put("max", histogram.getMaxMillis());
+        stats.put("mean", histogram.getMeanMillis());
+        return stats;
+    }
+
+    private void putLatency(JSObject ret) {
+        ret.put("warmStart", readerLifecycle.wasLastAcquireWarm());
+        if (readerStartupNanos >= 0) {
+            ret.put("startupMs", readerStartupNanos / 1_000_000.0);
+        }
+        if (firstTagLatencyNanos >= 0) {
+            ret.put("startToFirstTagMs", firstTagLatencyNanos / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Arranca el hilo consumidor del ring buffer con el procesamiento de la sesión. El ring admite un
+     * solo consumidor: si el worker anterior sigue vivo se espera a que termine y, si no termina, el
+     * inicio falla en lugar de arrancar un segundo consumidor.
+     */
+    private void startInventoryWorker(TagRingBuffer.Handler handler) {
+        stopInventoryWorker();
+        InventoryWorker stranded = strandedWorker;
+        if (stranded != null) {
+            if (!stranded.awaitExit(STRANDED_WORKER_WAIT_MS)) {
+                throw new IllegalStateException("El worker anterior sigue procesando lecturas ("
+                        + readBuffer.size() + " en cola)");
+            }
+            strandedWorker = null;
+        }
+        InventoryWorker worker = new InventoryWorker(readBuffer, handler);
+        worker.start();
+        inventoryWorker = worker;
+        inventoryHandler = handler;
+    }
+
+    /**
+     * Detiene el worker tras procesar todas las lecturas ya encoladas.
+     * Devuelve false si el hilo sigue vivo tras el timeout; queda en strandedWorker.
+     */
+    private boolean stopInventoryWorker() {
+        InventoryWorker worker = inventoryWorker;
+        if (worker == null) {
+            return true;
+        }
+        inventoryWorker = null;
+        if (worker.stopAndDrain()) {
+            return true;
+        }
+        strandedWorker = worker;
+        PluginLog.w(TAG, "El worker no terminó a tiempo; " + readBuffer.size() + " lecturas siguen en su cola");
+        return false;
+    }
+
+    /**
+     * Con el inventario ya parado en el módulo: procesa con el handler de la sesión lo que quedó en el
+     * ring y en el buffer del SDK, en lugar de descartarlo. Devuelve cuántas lecturas se entregaron aquí.
+     * Si el worker no terminó, él sigue siendo el consumidor: lo que queda en el ring lo entrega más tarde
+     * y su cantidad queda en lastUndrainedCount.
+     */
+    private int flushInventory() {
+        TagRingBuffer.Handler handler = inventoryHandler;
+        inventoryHandler = null;
+        boolean workerExited = stopInventoryWorker();
+        lastUndrainedCount = workerExited ? 0 : readBuffer.size();
+        if (handler == null || !workerExited) {
+            // Con el worker vivo el handler no puede correr también en este hilo
+            return 0;
+        }
+        int flushed = 0;
+        try {
+            // Con el worker terminado este hilo pasa a ser el único consumidor del ring
+            flushed += readBuffer.drain(handler);
+            int limit = readBuffer.capacity();
+            UHFTAGInfo tagInfo;
+            while (mReader != null && flushed < limit && (tagInfo = mReader.readTagFromBuffer()) != null) {
+                handler.onRead(tagInfo.getEPC(), tagInfo.getRssi(), tagInfo.getAnt(), System.currentTimeMillis());
+                flushed++;
+            }
+        } catch (Exception e) {
+            PluginLog.w(TAG, "Error entregando lecturas pendientes: " + e.getMessage());
+        }
+        if (flushed > 0) {
+            PluginLog.d(TAG, flushed + " lecturas pendientes entregadas al parar");
+        }
+        return flushed;
+    }
+
+    private void putUndrainedCount(JSObject ret) {
+        if (lastUndrainedCount > 0) {
+            ret.put("undrainedCount", lastUndrainedCount);
+        }
+    }
+
+    /**
+     * Único trabajo del hilo del SDK: copiar la lectura cruda al ring buffer
+     */
+    private void enqueueRead(UHFTAGInfo uhftagInfo) {
+        if (firstTagPending) {
+            firstTagPending = false;
+            firstTagLatencyNanos = System.nanoTime() - sessionStartNanos;
+            perfStats.mark(PerfStats.STAGE_FIRST_CALLBACK);
+        }
+        if (readBuffer.offer(uhftagInfo.getEPC(), uhftagInfo.getRssi(), uhftagInfo.getAnt(),
+                System.currentTimeMillis())) {
+            InventoryWorker worker = inventoryWorker;
+            if (worker != null) {
+                worker.signal();
             }
+        }
+    }
+
+    /**
+     * Emite un lote de lecturas como un único evento tagBatch
+     */
+    private void emitTagBatch(String[] epcs, String[] rssis, long[] timestamps, int count, long seq) {
+        JSArray tags = new JSArray();
+        for (int i = 0; i < count; i++) {
+            JSObject tagData = new JSObject();
+            tagData.put("epc", epcs[i]);
+            tagData.put("rssi", rssis[i]);
+            tagData.put("timestamp", timestamps[i]);
+            tags.put(tagData);
+        }
+
+        JSObject batch = new JSObject();
+        batch.put("tags", tags);
+        batch.put("count", count);
+        if (seq > 0) {
+            batch.put("seq", seq);
+        }
+        batch.put("timestamp", System.currentTimeMillis());
+        markFirstEmit();
+        notifyListeners("tagBatch", batch);
+    }
+
+    /**
+     * Igual que emitTagBatch pero con las lecturas empaquetadas por CompactTagEncoder
+     */
+    private void emitCompactTagBatch(String[] epcs, String[] rssis, long[] timestamps, int count, long seq) {
+        long baseTimestamp = timestamps[0];
+        JSObject batch = new JSObject();
+        batch.put("data", compactEncoder.encode(epcs, rssis, timestamps, count, baseTimestamp));
+        batch.put("count", count);
+        batch.put("baseTimestamp", baseTimestamp);
+        batch.put("version", CompactTagEncoder.FORMAT_VERSION);
+        if (seq > 0) {
+            batch.put("seq", seq);
+        }
+        batch.put("timestamp", System.currentTimeMillis());
+        markFirstEmit();
+        notifyListeners("tagBatchCompact", batch);
+    }
+
+    private void closeTagBatcher() {
+        if (tagBatcher != null) {
+            TagBatcher batcher = tagBatcher;
+            tagBatcher = null;
+            batcher.close();
+            PluginLog.d(TAG, "Batched delivery closed: " + batcher.getTotalReads() + " reads in "
+                    + batcher.getTotalBatches() + " batches");
+        }
+        if (flowBatcher != null) {
+            FlowControlledBatcher flow = flowBatcher;
+            flowBatcher = null;
+            flow.close();
+            lastFlowStats = flow.getStats();
+            PluginLog.d(TAG, "Flow-controlled delivery closed: " + lastFlowStats.totalReads + " reads in "
+                    + lastFlowStats.batches + " batches, " + lastFlowStats.mergedCount + " merged, "
+                    + lastFlowStats.droppedCount + " dropped");
+        }
+    }
+
+    /**
+     * Devuelve el crédito de un lote emitido con batch.ack. JS debe llamarlo al terminar de procesar
+     * cada tagBatch / tagBatchCompact; opcionalmente cambia el número de lotes en vuelo (window).
+     */
+    @PluginMethod
+    public void ackTagBatch(PluginCall call) {
+        FlowControlledBatcher flow = flowBatcher;
+        if (flow == null) {
+            call.resolve(new JSObject().put("success", false));
+            return;
+        }
+        Integer window = call.getInt("window");
+        if (window != null) {
+            flow.setWindow(window);
+        }
+        Long seq = call.getLong("seq", null);
+        if (seq != null) {
+            flow.ack(seq);
+        }
+        call.resolve(new JSObject().put("success", true));
+    }
+
+    /**
+     * Estado del control de flujo: profundidad de la cola, lotes en vuelo, fusionados y descartados
+     */
+    @PluginMethod
+    public void getFlowControlStats(PluginCall call) {
+        FlowControlledBatcher flow = flowBatcher;
+        FlowControlledBatcher.Stats stats = flow != null ? flow.getStats() : lastFlowStats;
+        JSObject ret = stats != null ? flowStatsToJS(stats) : new JSObject();
+        ret.put("success", true);
+        ret.put("active", flow != null);
+        call.resolve(ret);
+    }
+
+    private static JSObject flowStatsToJS(FlowControlledBatcher.Stats stats) {
+        JSObject ret = new JSObject();
+        ret.put("queueDepth", stats.queueDepth);
+        ret.put("inFlight", stats.inFlight);
+        ret.put("window", stats.window);
+        ret.put("maxTags", stats.maxTags);
+        ret.put("delayMs", stats.delayMs);
+        ret.put("ackRttMs", Math.round(stats.ackRttMs * 10) / 10.0);
+        ret.put("readsPerSecond", Math.round(stats.readsPerSecond));
+        ret.put("overloaded", stats.overloaded);
+        ret.put("totalReads", stats.totalReads);
+        ret.put("batches", stats.batches);
+        ret.put("ackedBatches", stats.ackedBatches);
+        ret.put("mergedCount", stats.mergedCount);
+        ret.put("droppedCount", stats.droppedCount);
+        ret.put("ackTimeouts", stats.ackTimeouts);
+        ret.put("overloadEpisodes", stats.overloadEpisodes);
+        return ret;
+    }
+
+    /**
+     * Devuelve el estado agregado por EPC de todas las lecturas desde el último clear
+     */
+    @PluginMethod
+    public void getInventorySnapshot(PluginCall call) {
+        try {
+            boolean clear = call.getBoolean("clear", false);
+            List<TagAggregator.Entry> entries;
+            long totalReads;
+            synchronized (tagAggregator) {
+                entries = tagAggregator.snapshot();
+                totalReads = tagAggregator.getTotalReads();
+                if (clear) {
+                    tagAggregator.clear();
+                }
+            }
+            if (clear) {
+                clearJournal();
+            }
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("entries", aggregateEntriesToJS(entries));
+            ret.put("uniqueCount", entries.size());
+            ret.put("totalReads", totalReads);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Error obteniendo snapshot del inventario", e);
+        }
+    }
+
+    /**
+     * Activa el journal en disco: cada cambio del inventario agregado se añade a segmentos
+     * mapeados en memoria, que sobreviven a que Android mate la app.
+     */
+    @PluginMethod
+    public void setInventoryJournal(PluginCall call) {
+        final boolean enabled = call.getBoolean("enabled", true);
+        getJournalExecutor().execute(() -> {
+            try {
+                if (enabled) {
+                    enableJournal();
+                } else {
+                    disableJournal();
+                }
+
+                JSObject ret = journalStats();
+                ret.put("success", true);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Error configurando el journal de inventario", e);
+            }
+        });
+    }
+
+    /**
+     * Continúa la sesión reconstruida en load() (ver evento sessionRecovered): vuelve a activar el journal
+     * sobre ella y marca sus EPC como ya encontrados para startFilteredReading({ keepFound: true }).
+     */
+    @PluginMethod
+    public void resumeSession(PluginCall call) {
+        getJournalExecutor().execute(() -> {
+            try {
+                InventorySession.Recovery recovery = pendingRecovery;
+                if (recovery == null) {
+                    JSObject ret = journalStats();
+                    ret.put("success", true);
+                    ret.put("resumed", false);
+                    call.resolve(ret);
+                    return;
+                }
+                if (!inventoryState.isIdle()) {
+                    call.reject("No se puede reanudar la sesión con una lectura en curso");
+                    return;
+                }
+
+                resumeRecoveredSession();
+                for (TagAggregator.Entry entry : tagAggregator.snapshot()) {
+                    foundTags.add(entry.epc);
+                }
+
+                JSObject ret = recoveryToJS(recovery);
+                ret.put("success", true);
+                ret.put("resumed", true);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Error reanudando la sesión de inventario", e);
+            }
+        });
+    }
+
+    /**
+     * Exporta el journal a un archivo (csv con el estado actual por EPC, o binary con los registros crudos)
+     * sin cargarlo en memoria.
+     */
+    @PluginMethod
+    public void exportInventory(PluginCall call) {
+        final String format = call.getString("format", "csv");
+        if (!"csv".equals(format) && !"binary".equals(format)) {
+            call.reject("Formato no válido: " + format);
+            return;
+        }
+        if (inventoryJournal == null) {
+            call.reject("El journal de inventario no está activo");
+            return;
+        }
+
+        getJournalExecutor().execute(() -> {
+            try {
+                InventoryJournal journal = inventoryJournal;
+                if (journal == null) {
+                    call.reject("El journal de inventario no está activo");
+                    return;
+                }
+                flushJournal(journal);
+
+                File out = new File(getContext().getCacheDir(), "rfid-inventory-" + System.currentTimeMillis()
+                        + ("csv".equals(format) ? ".csv" : ".bin"));
+                long records = "csv".equals(format) ? journal.exportCsv(out) : journal.exportBinary(out);
+
+                JSObject ret = new JSObject();
+                ret.put("success", true);
+                ret.put("format", format);
+                ret.put("path", out.getAbsolutePath());
+                ret.put("records", records);
+                ret.put("bytes", out.length());
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Error exportando el inventario", e);
+            }
+        });
+    }
+
+    private synchronized ScheduledExecutorService getJournalExecutor() {
+        if (journalExecutor == null) {
+            journalExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "RFIDJournal");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return journalExecutor;
+    }
+
+    private File journalDirectory() {
+        return new File(getContext().getFilesDir(), JOURNAL_DIR);
+    }
+
+    // Sólo en el hilo RFIDJournal, igual que el resto de métodos del journal y la sesión
+    private void enableJournal() throws IOException {
+        if (inventoryJournal != null) {
+            return;
+        }
+        if (pendingRecovery != null) {
+            resumeRecoveredSession();
+            return;
+        }
+        // Una sesión nueva parte de un journal vacío más el estado agregado actual
+        File dir = journalDirectory();
+        InventoryJournal journal = new InventoryJournal(dir);
+        journal.clear();
+        inventorySession = InventorySession.start(dir);
+        inventoryJournal = journal;
+        tagAggregator.setJournalTracking(true);
+        scheduleJournalTasks();
+        PluginLog.i(TAG, "Inventory session " + inventorySession.getId() + " started");
+    }
 
-            if (mReader != null) {
-                initReaderAsync(call);
-            } else {
-                call.reject("No se pudo obtener instancia del lector");
-            }
-        } catch (Exception e) {
-            call.reject("Error inicializando lector", e);
+    private void disableJournal() throws IOException {
+        InventoryJournal journal = inventoryJournal;
+        if (journal == null) {
+            return;
         }
+        cancelJournalTasks();
+        flushJournal(journal);
+        tagAggregator.setJournalTracking(false);
+        inventoryJournal = null;
+        inventorySession.setActive(false);
+        journal.force();
+        journal.close();
     }
 
-    @PluginMethod
-    public void resetKeyState(PluginCall call) {
+    private void recoverSession() {
+        File dir = journalDirectory();
+        InventorySession session = InventorySession.load(dir);
+        if (session == null || !session.isActive()) {
+            return;
+        }
         try {
-            // Resetear el estado de las teclas
-            isKeyPressed = false;
-            lastKeyEventTime = 0;
+            InventoryJournal journal = new InventoryJournal(dir);
+            InventorySession.Recovery recovery = session.recover(journal, tagAggregator);
+            inventorySession = session;
+            recoveredJournal = journal;
+            pendingRecovery = recovery;
+            PluginLog.i(TAG, "Recovered inventory session " + recovery.sessionId + ": " + recovery.uniqueCount
+                    + " tags from " + recovery.checkpointEntries + " checkpoint entries + "
+                    + recovery.replayedRecords + " journal records in " + recovery.elapsedMs + " ms");
+            notifyListeners("sessionRecovered", recoveryToJS(recovery), true);
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Error recovering inventory session: " + e.getMessage(), e);
+        }
+    }
 
-            JSObject ret = new JSObject();
-            ret.put("success", true);
-            ret.put("message", "Estado de teclas reseteado correctamente");
-            call.resolve(ret);
+    private void resumeRecoveredSession() throws IOException {
+        inventoryJournal = recoveredJournal;
+        recoveredJournal = null;
+        pendingRecovery = null;
+        // Lo restaurado ya está en disco; lo leído desde load() entra en el checkpoint inmediato
+        tagAggregator.setJournalTracking(true, false);
+        scheduleJournalTasks();
+        writeCheckpoint();
+        PluginLog.i(TAG, "Inventory session " + inventorySession.getId() + " resumed");
+    }
 
-            // Notificar que se ha reseteado el estado
-            notifyListeners("keyStateReset", ret);
-        } catch (Exception e) {
-            call.reject("Error reseteando estado de teclas", e);
+    private void discardRecoveredSession() throws IOException {
+        InventoryJournal journal = recoveredJournal;
+        recoveredJournal = null;
+        pendingRecovery = null;
+        journal.clear();
+        journal.close();
+        inventorySession.setActive(false);
+    }
+
+    private void scheduleJournalTasks() {
+        journalFlushTask = getJournalExecutor().scheduleWithFixedDelay(this::flushJournal,
+                JOURNAL_FLUSH_MS, JOURNAL_FLUSH_MS, TimeUnit.MILLISECONDS);
+        checkpointTask = getJournalExecutor().scheduleWithFixedDelay(this::checkpointSession,
+                CHECKPOINT_INTERVAL_MS, CHECKPOINT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelJournalTasks() {
+        if (journalFlushTask != null) {
+            journalFlushTask.cancel(false);
+            journalFlushTask = null;
+        }
+        if (checkpointTask != null) {
+            checkpointTask.cancel(false);
+            checkpointTask = null;
         }
     }
 
-    /**
-     * Método para obtener el estado actual del inventario
-     */
-    @PluginMethod
-    public void getInventoryStatus(PluginCall call) {
+    private void checkpointSession() {
         try {
-            JSObject ret = new JSObject();
-            ret.put("isRunning", isInventoryRunning);
-            ret.put("success", true);
-            call.resolve(ret);
+            writeCheckpoint();
         } catch (Exception e) {
-            call.reject("Error obteniendo estado del inventario", e);
+            PluginLog.e(TAG, "Error writing session checkpoint: " + e.getMessage(), e);
         }
     }
 
-    private JSObject createTagResult(String epc, String rssi) {
-        JSObject result = new JSObject();
-        result.put("epc", epc);
-        result.put("rssi", rssi);
-        return result;
+    // Todo registro anterior a la posición es como mucho tan nuevo como el snapshot tomado después
+    private void writeCheckpoint() throws IOException {
+        InventoryJournal journal = inventoryJournal;
+        InventorySession session = inventorySession;
+        if (journal == null || session == null) {
+            return;
+        }
+        flushJournal(journal);
+        long position = journal.getRecordCount();
+        if (position == session.getCheckpointRecords()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<TagAggregator.Entry> entries = tagAggregator.snapshot();
+        session.writeCheckpoint(entries, position);
+        if (PluginLog.isDebugEnabled()) {
+            PluginLog.d(TAG, "Checkpoint of " + entries.size() + " tags at record " + position + " in "
+                    + (System.nanoTime() - start) / 1_000_000L + " ms");
+        }
+    }
+
+    private void flushJournal() {
+        flushJournal(inventoryJournal);
     }
 
-    private void initReaderAsync(PluginCall call) {
-        if (executorService == null) {
-            executorService = Executors.newSingleThreadExecutor();
+    private void flushJournal(InventoryJournal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            for (TagAggregator.Entry entry : tagAggregator.drainUnjournaled()) {
+                journal.append(entry);
+            }
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Error writing inventory journal: " + e.getMessage(), e);
         }
+    }
 
-        executorService.execute(() -> {
-            boolean result = mReader.init();
+    private void requestJournalFlush() {
+        if (inventoryJournal != null) {
+            getJournalExecutor().execute(this::flushJournal);
+        }
+    }
 
-            // Ejecutar en el hilo principal para UI/callbacks
-            mainHandler.post(() -> {
-                if (!result) {
-                    call.reject("Fallo en la inicialización del lector");
-                    notifyListeners("initError", new JSObject().put("message", "Fallo en la inicialización del lector"));
-                } else {
-                    JSObject ret = new JSObject();
-                    ret.put("success", true);
-                    ret.put("message", "Lector inicializado correctamente");
-                    call.resolve(ret);
-                    notifyListeners("initSuccess", ret);
+    // Encolado detrás de cualquier flush pendiente para no reescribir entradas ya borradas.
+    // Borrar el inventario cierra la sesión en curso y abre otra.
+    private void clearJournal() {
+        getJournalExecutor().execute(() -> {
+            try {
+                if (pendingRecovery != null) {
+                    discardRecoveredSession();
                 }
-            });
+                InventoryJournal journal = inventoryJournal;
+                if (journal != null) {
+                    journal.clear();
+                    inventorySession = InventorySession.start(journal.getDirectory());
+                }
+            } catch (Exception e) {
+                PluginLog.e(TAG, "Error clearing inventory journal: " + e.getMessage(), e);
+            }
         });
     }
 
-    @PluginMethod
-    public void clearBuffer(PluginCall call) {
+    private JSObject journalStats() {
+        JSObject ret = new JSObject();
+        InventoryJournal journal = inventoryJournal;
+        InventorySession session = inventorySession;
+        ret.put("enabled", journal != null);
+        ret.put("records", journal != null ? journal.getRecordCount() : 0);
+        ret.put("segments", journal != null ? journal.getSegmentCount() : 0);
+        ret.put("bytes", journal != null ? journal.getSizeBytes() : 0);
+        ret.put("skippedCount", journal != null ? journal.getSkippedCount() : 0);
+        ret.put("sessionId", session != null ? session.getId() : null);
+        ret.put("checkpointRecords", session != null ? Math.max(0, session.getCheckpointRecords()) : 0);
+        ret.put("recoverable", pendingRecovery != null);
+        return ret;
+    }
+
+    private static JSObject recoveryToJS(InventorySession.Recovery recovery) {
+        JSObject ret = new JSObject();
+        ret.put("sessionId", recovery.sessionId);
+        ret.put("uniqueCount", recovery.uniqueCount);
+        ret.put("totalReads", recovery.totalReads);
+        ret.put("checkpointEntries", recovery.checkpointEntries);
+        ret.put("replayedRecords", recovery.replayedRecords);
+        ret.put("recoveryMs", recovery.elapsedMs);
+        return ret;
+    }
+
+    private void startInventoryDeltas(long intervalMs) {
+        stopInventoryDeltas(false);
+        if (inventoryScheduler == null) {
+            inventoryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "RFIDInventoryDelta");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        // Descartar cambios previos para que el primer delta sólo cubra esta sesión
+        tagAggregator.drainChanged();
+        inventoryDeltaTask = inventoryScheduler.scheduleWithFixedDelay(this::emitInventoryDelta,
+                intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopInventoryDeltas(boolean flush) {
+        if (inventoryDeltaTask != null) {
+            inventoryDeltaTask.cancel(false);
+            inventoryDeltaTask = null;
+            if (flush) {
+                emitInventoryDelta();
+            }
+        }
+    }
+
+    private void emitInventoryDelta() {
         try {
-            if (mReader != null) {
-                int cleared = 0;
-                for (int i = 0; i < 10; i++) {
-                    UHFTAGInfo tagInfo = mReader.readTagFromBuffer();
-                    if (tagInfo == null) {
-                        break;
-                    }
-                    cleared++;
+            List<TagAggregator.Entry> changed;
+            int uniqueCount;
+            long totalReads;
+            synchronized (tagAggregator) {
+                if (!tagAggregator.hasChanges()) {
+                    return;
                 }
+                changed = tagAggregator.drainChanged();
+                uniqueCount = tagAggregator.size();
+                totalReads = tagAggregator.getTotalReads();
+            }
 
-                JSObject ret = new JSObject();
-                ret.put("success", true);
-                ret.put("cleared", cleared);
-                ret.put("message", "Buffer limpiado, " + cleared + " tags removidos");
-                call.resolve(ret);
+            JSObject delta = new JSObject();
+            delta.put("entries", aggregateEntriesToJS(changed));
+            delta.put("count", changed.size());
+            delta.put("uniqueCount", uniqueCount);
+            delta.put("totalReads", totalReads);
+            delta.put("timestamp", System.currentTimeMillis());
+            markFirstEmit();
+            notifyListeners("inventoryDelta", delta);
+        } catch (Exception e) {
+            PluginLog.e(TAG, "Error emitting inventoryDelta: " + e.getMessage(), e);
+        }
+    }
 
-                Log.d(TAG, "Buffer limpiado manualmente, " + cleared + " tags removidos");
-            } else {
-                call.reject("Lector no inicializado");
+    private JSArray aggregateEntriesToJS(List<TagAggregator.Entry> entries) {
+        JSArray array = new JSArray();
+        for (TagAggregator.Entry entry : entries) {
+            JSObject item = new JSObject();
+            item.put("epc", entry.epc);
+            item.put("count", entry.count);
+            if (entry.rssiSamples > 0) {
+                item.put("rssiMin", entry.rssiMin);
+                item.put("rssiMax", entry.rssiMax);
+                item.put("rssiAvg", entry.getRssiAvg());
+            }
+            if (entry.antenna != null) {
+                item.put("antenna", entry.antenna);
+            }
+            item.put("firstSeen", entry.firstSeen);
+            item.put("lastSeen", entry.lastSeen);
+            array.put(item);
+        }
+        return array;
+    }
+
+    /**
+     * Configura las reglas de validación de EPC aplicadas a cada lectura
+     */
+    @PluginMethod
+    public void setEpcValidation(PluginCall call) {
+        try {
+            EpcValidator current = epcValidator;
+            int minLength = call.getInt("minLength", current.getMinLength());
+            int maxLength = call.getInt("maxLength", current.getMaxLength());
+            boolean requireWordAligned = call.getBoolean("requireWordAligned", current.isRequireWordAligned());
+            boolean rejectAllZero = call.getBoolean("rejectAllZero", current.isRejectAllZero());
+
+            if (minLength < 1 || maxLength > EpcValidator.MAX_EPC_HEX_CHARS || minLength > maxLength) {
+                call.reject("La longitud de EPC debe estar entre 1 y " + EpcValidator.MAX_EPC_HEX_CHARS);
+                return;
             }
+
+            epcValidator = new EpcValidator(minLength, maxLength, requireWordAligned, rejectAllZero);
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("minLength", minLength);
+            ret.put("maxLength", maxLength);
+            ret.put("requireWordAligned", requireWordAligned);
+            ret.put("rejectAllZero", rejectAllZero);
+            ret.put("previousRejectedCount", current.getRejectedTotal());
+            call.resolve(ret);
         } catch (Exception e) {
-            Log.e(TAG, "Error limpiando buffer: " + e.getMessage(), e);
-            call.reject("Error limpiando buffer", e);
+            call.reject("Error configurando la validación de EPC", e);
         }
     }
 
+    @PluginMethod
+    public void clearBuffer(PluginCall call) {
+        submitReaderCall(call, ReaderCommandExecutor.Priority.COMMAND, null, CONFIG_TIMEOUT_MS, true, () -> {
+            if (mReader == null) {
+                return readingFailure("Lector no inicializado");
+            }
+            long startNanos = System.nanoTime();
+            int cleared = drainReaderBuffer();
+            double drainMs = (System.nanoTime() - startNanos) / 1_000_000.0;
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("cleared", cleared);
+            ret.put("drainMs", drainMs);
+            ret.put("message", "Buffer limpiado, " + cleared + " tags removidos");
+
+            PluginLog.d(TAG, "Buffer limpiado manualmente, " + cleared + " tags removidos");
+            return ret;
+        });
+    }
+
     // 📌 Método para manejar eventos de tecla desde la Activity principal
     @PluginMethod
     public void handleKeyEvent(PluginCall call) {
@@ -655,84 +2379,195 @@ public class RFIDPlugin extends Plugin {
             handleKeyEventFromActivity(keyCode, isPressed);
             call.resolve(new JSObject().put("processed", true));
         } catch (Exception e) {
-            Log.e(TAG, "Error handling key event: " + e.getMessage(), e);
+            PluginLog.e(TAG, "Error handling key event: " + e.getMessage(), e);
             call.reject("Error handling key event", e);
         }
     }
 
     // 📌 Método público para ser llamado directamente desde MainActivity
     public void handleKeyEventFromActivity(int keyCode, boolean isPressed) {
+        handleKeyEventFromActivity(keyCode, isPressed, 0, 0);
+    }
+
+    /**
+     * Entrada única de eventos de gatillo. downTime/source identifican el KeyEvent:
+     * la misma pulsación llegando por varios caminos se procesa una sola vez.
+     * Con downTime 0 (JS, InfoWedge, watchdog) sólo se usa el estado presionado/liberado, y nunca
+     * reinicia una pulsación que llegó con identidad.
+     */
+    public void handleKeyEventFromActivity(int keyCode, boolean isPressed, long downTime, int source) {
         try {
-            long currentTime = System.currentTimeMillis();
-            
-            Log.d(TAG, "🔧 handleKeyEventFromActivity - KeyCode: " + keyCode + ", IsPressed: " + isPressed + ", CurrentTime: " + currentTime);
+            if (PluginLog.isDebugEnabled()) {
+                PluginLog.d(TAG, "🔧 handleKeyEventFromActivity - KeyCode: " + keyCode + ", IsPressed: " + isPressed
+                        + ", DownTime: " + downTime + ", Source: " + source);
+            }
 
             // Solo procesar códigos de teclas específicos del escáner RFID
-            if (keyCode == 139 || keyCode == 280 || keyCode == 293) {
-                Log.d(TAG, "🎯 Processing trigger key: " + keyCode);
-
-                if (isPressed) {
-                    // Auto-reset si la tecla ha estado presionada por mucho tiempo
-                    if (isKeyPressed && (currentTime - lastKeyEventTime > KEY_TIMEOUT)) {
-                        Log.w(TAG, "⚠️ Auto-reset: Key was stuck, releasing it");
-                        isKeyPressed = false;
-                        JSObject resetData = new JSObject();
-                        resetData.put("message", "Auto-reset: Gatillo liberado automáticamente");
-                        resetData.put("reason", "timeout");
-                        notifyListeners("triggerAutoReset", resetData);
-                    }
+            if (keyCode != 139 && keyCode != 280 && keyCode != 293) {
+                if (PluginLog.isDebugEnabled()) {
+                    PluginLog.d(TAG, "ℹ️ Ignoring non-trigger key: " + keyCode);
+                }
+                return;
+            }
 
-                    // Aplicar debounce para evitar eventos múltiples rápidos
-                    if (currentTime - lastKeyEventTime < KEY_DEBOUNCE_DELAY) {
-                        Log.d(TAG, "🔄 Debounce: Ignoring rapid key event");
-                        return;
+            long currentTime = System.currentTimeMillis();
+            int transition = isPressed
+                    ? triggerState.onDown(downTime, source, currentTime)
+                    : triggerState.onUp(downTime, source);
+
+            switch (transition) {
+                case TriggerStateMachine.RESET_THEN_PRESSED:
+                    PluginLog.w(TAG, "⚠️ Auto-reset: previous press never released");
+                    JSObject resetData = new JSObject();
+                    resetData.put("message", "Auto-reset: Gatillo liberado automáticamente");
+                    resetData.put("reason", triggerState.getLastResetReason());
+                    notifyListeners("triggerAutoReset", resetData);
+                    onNativeTrigger(false);
+                    onTriggerPressed(keyCode, currentTime);
+                    break;
+                case TriggerStateMachine.PRESSED:
+                    onTriggerPressed(keyCode, currentTime);
+                    break;
+                case TriggerStateMachine.RELEASED:
+                    JSObject data = new JSObject();
+                    data.put("message", "Gatillo liberado");
+                    data.put("keyCode", keyCode);
+                    data.put("timestamp", currentTime);
+
+                    if (PluginLog.isDebugEnabled()) {
+                        PluginLog.d(TAG, "✅ Key released: " + keyCode + " - Notifying listeners");
                     }
+                    notifyListeners("triggerReleased", data);
+                    onNativeTrigger(false);
+                    break;
+                default:
+                    PluginLog.d(TAG, "ℹ️ Duplicate trigger event ignored");
+                    break;
+            }
+        } catch (Exception e) {
+            PluginLog.e(TAG, "❌ Error handling key event from activity: " + e.getMessage(), e);
+        }
+    }
 
-                    // Solo procesar si la tecla no estaba ya presionada
-                    if (!isKeyPressed) {
-                        isKeyPressed = true;
-                        lastKeyEventTime = currentTime;
+    private void onTriggerPressed(int keyCode, long currentTime) {
+        perfStats.mark(PerfStats.STAGE_TRIGGER_ACCEPTED);
 
-                        JSObject data = new JSObject();
-                        data.put("message", "Gatillo presionado");
-                        data.put("keyCode", keyCode);
-                        data.put("timestamp", currentTime);
+        JSObject data = new JSObject();
+        data.put("message", "Gatillo presionado");
+        data.put("keyCode", keyCode);
+        data.put("timestamp", currentTime);
 
-                        Log.d(TAG, "✅ Key pressed: " + keyCode + " - Notifying listeners");
-                        notifyListeners("triggerPressed", data);
-                    } else {
-                        Log.d(TAG, "ℹ️ Key already pressed, ignoring duplicate press event");
-                    }
-                } else {
-                    // Solo procesar si la tecla estaba presionada
-                    if (isKeyPressed) {
-                        isKeyPressed = false;
-                        lastKeyEventTime = currentTime;
-
-                        JSObject data = new JSObject();
-                        data.put("message", "Gatillo liberado");
-                        data.put("keyCode", keyCode);
-                        data.put("timestamp", currentTime);
-
-                        Log.d(TAG, "✅ Key released: " + keyCode + " - Notifying listeners");
-                        notifyListeners("triggerReleased", data);
-                    } else {
-                        Log.d(TAG, "ℹ️ Key was not pressed, ignoring release event");
-                    }
-                }
-            } else {
-                Log.d(TAG, "ℹ️ Ignoring non-trigger key: " + keyCode);
+        if (PluginLog.isDebugEnabled()) {
+            PluginLog.d(TAG, "✅ Key pressed: " + keyCode + " - Notifying listeners");
+        }
+        notifyListeners("triggerPressed", data);
+        onNativeTrigger(true);
+    }
+
+    /**
+     * Configura qué hace el gatillo de forma nativa: none | holdToRead | toggle.
+     * Las opciones de lectura (batch / aggregate) se aplican a cada inventario iniciado por el gatillo.
+     */
+    @PluginMethod
+    public void setTriggerMode(PluginCall call) {
+        try {
+            String modeName = call.getString("mode", TriggerMode.NONE.getJsName());
+            TriggerMode mode = TriggerMode.fromJsName(modeName);
+            if (mode == null) {
+                call.reject("Modo de gatillo no válido: " + modeName);
+                return;
             }
+
+            JSObject readingOptions = new JSObject();
+            JSObject batchOptions = call.getObject("batch", null);
+            if (batchOptions != null) {
+                readingOptions.put("batch", batchOptions);
+            }
+            JSObject aggregateOptions = call.getObject("aggregate", null);
+            if (aggregateOptions != null) {
+                readingOptions.put("aggregate", aggregateOptions);
+            }
+            triggerReadingOptions = readingOptions;
+            triggerMode = mode;
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("mode", mode.getJsName());
+            call.resolve(ret);
+
+            PluginLog.d(TAG, "Trigger mode set to " + mode.getJsName());
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error handling key event from activity: " + e.getMessage(), e);
+            call.reject("Error configurando el modo de gatillo", e);
+        }
+    }
+
+    /**
+     * Arranca o detiene el inventario directamente desde el gatillo; JS se entera después
+     */
+    private void onNativeTrigger(boolean pressed) {
+        TriggerMode mode = triggerMode;
+        if (mode == TriggerMode.NONE) {
+            return;
+        }
+
+        final boolean start;
+        if (mode == TriggerMode.HOLD_TO_READ) {
+            start = pressed;
+        } else if (pressed) {
+            start = !inventoryState.isActive(InventoryState.Kind.READING);
+        } else {
+            return;
+        }
+
+        final long triggerNanos = System.nanoTime();
+        if (!start) {
+            // Gatillo soltado antes de que el arranque llegara al lector: no hace falta arrancar
+            readerCommands.cancelPending(startKey(InventoryState.Kind.READING), "Gatillo soltado antes del inicio");
         }
+        readerCommands.submit(start ? ReaderCommandExecutor.Priority.COMMAND : ReaderCommandExecutor.Priority.STOP,
+                start ? startKey(InventoryState.Kind.READING) : null, start ? START_TIMEOUT_MS : STOP_TIMEOUT_MS,
+                () -> {
+                    InventoryState.Kind active = inventoryState.getKind();
+                    if (active == InventoryState.Kind.FILTERED || active == InventoryState.Kind.LOCATE) {
+                        PluginLog.w(TAG, "Native trigger ignored: filtered reading or locate is running");
+                        return null;
+                    }
+
+                    JSObject result;
+                    if (start) {
+                        if (inventoryState.isActive(InventoryState.Kind.READING)) {
+                            return null;
+                        }
+                        JSObject options = triggerReadingOptions;
+                        result = startReadingInternal(options.getJSObject("batch"), options.getJSObject("aggregate"),
+                                triggerNanos);
+                    } else {
+                        if (!inventoryState.isActive(InventoryState.Kind.READING)) {
+                            return null;
+                        }
+                        result = stopReadingInternal();
+                    }
+
+                    result.put("mode", mode.getJsName());
+                    notifyListeners(start ? "triggerReadingStarted" : "triggerReadingStopped", result);
+                    return null;
+                }, new ReaderCommandExecutor.Callback<Void>() {
+                    @Override
+                    public void onResult(Void result) {
+                    }
+
+                    @Override
+                    public void onError(String message, Exception e) {
+                        PluginLog.w(TAG, "Native trigger " + (start ? "start" : "stop") + " not run: " + message);
+                    }
+                });
     }
 
     @PluginMethod
     public void simulateKeyPress(PluginCall call) {
         try {
             int keyCode = call.getInt("keyCode", 293);
-            Log.d(TAG, "🧪 Simulating key press for testing - KeyCode: " + keyCode);
+            PluginLog.d(TAG, "🧪 Simulating key press for testing - KeyCode: " + keyCode);
             
             // Simulate press
             handleKeyEventFromActivity(keyCode, true);
@@ -752,199 +2587,38 @@ public class RFIDPlugin extends Plugin {
     }
 
     // ========== INFOWEDGE MONITORING SOLUTION ==========
-    
-    private void startInfoWedgeMonitoring() {
-        try {
-            Log.d(TAG, "🔍 Starting InfoWedge monitoring as fallback solution");
-            
-            if (infowedgeMonitor != null) {
-                infowedgeMonitor.cancel();
-            }
-            
-            infowedgeMonitor = new Timer("InfoWedgeMonitor");
-            infowedgeMonitor.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    checkInfoWedgeKeyState();
-                }
-            }, 0, 100); // Check every 100ms
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error starting InfoWedge monitoring: " + e.getMessage(), e);
-        }
-    }
-    
-    private void checkInfoWedgeKeyState() {
-        try {
-            boolean currentKeyState = false;
-
-            // Method 1: Check system settings
-            currentKeyState = checkSystemKeySettings() || currentKeyState;
-
-            // Method 2: Use reflection to access InfoWedge internals
-            currentKeyState = checkInfoWedgeReflection() || currentKeyState;
-
-            // Method 3: Monitor content providers
-            currentKeyState = checkContentProviders() || currentKeyState;
 
-            // If state changed, trigger event
-            if (currentKeyState != lastInfoWedgeKeyState) {
-                Log.d(TAG, "🎯 InfoWedge key state changed: " + lastInfoWedgeKeyState + " -> " + currentKeyState);
-
-                lastInfoWedgeKeyState = currentKeyState;
-
-                final boolean keyStateForLambda = currentKeyState;
-                mainHandler.post(() -> {
-                    handleKeyEventFromActivity(293, keyStateForLambda);
-                });
-            }
-
-        } catch (Exception e) {
-            // Ignore errors in monitoring loop
-        }
-    }
-    
-    private boolean checkSystemKeySettings() {
-        try {
-            Context context = getContext();
-            if (context == null) return false;
-            
-            // Check various system settings that might indicate key state
-            String[] settingsKeys = {
-                "key_state_293",
-                "trigger_key_state",
-                "scanner_key_state",
-                "hardware_key_293"
-            };
-            
-            for (String key : settingsKeys) {
-                String value = android.provider.Settings.System.getString(
-                    context.getContentResolver(), key);
-                
-                if (value != null && (value.equals("1") || value.equals("true"))) {
-                    return true;
-                }
-            }
-            
-        } catch (Exception e) {
-            // Ignore
-        }
-        return false;
-    }
-    
-    private boolean checkInfoWedgeReflection() {
-        try {
-            // Try to access InfoWedge service via reflection
-            Class<?> serviceManagerClass = Class.forName("android.os.ServiceManager");
-            Method getServiceMethod = serviceManagerClass.getMethod("getService", String.class);
-            
-            String[] serviceNames = {
-                "infowedge",
-                "chainway_key",
-                "scanner_service",
-                "hardware_key"
-            };
-            
-            for (String serviceName : serviceNames) {
-                try {
-                    Object service = getServiceMethod.invoke(null, serviceName);
-                    if (service != null) {
-                        // Try to get key state from service
-                        Class<?> serviceClass = service.getClass();
-                        
-                        try {
-                            Method getKeyStateMethod = serviceClass.getMethod("getKeyState", int.class);
-                            Object result = getKeyStateMethod.invoke(service, 293);
-                            
-                            if (result instanceof Boolean) {
-                                return (Boolean) result;
-                            } else if (result instanceof Integer) {
-                                return ((Integer) result) == 1;
-                            }
-                        } catch (Exception e) {
-                            // Try alternative method names
-                            try {
-                                Method isKeyPressedMethod = serviceClass.getMethod("isKeyPressed", int.class);
-                                Object result = isKeyPressedMethod.invoke(service, 293);
-                                if (result instanceof Boolean) {
-                                    return (Boolean) result;
-                                }
-                            } catch (Exception e2) {
-                                // Continue to next service
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    // Continue to next service name
-                }
-            }
-            
-        } catch (Exception e) {
-            // Reflection not available or failed
-        }
-        return false;
-    }
-    
-    private boolean checkContentProviders() {
+    /**
+     * Activa el fallback por polling del estado de InfoWedge. Sólo corre si el servicio
+     * de accesibilidad no está habilitado y mientras la app está en primer plano.
+     * maxIntervalMs acota el intervalo en reposo: una pulsación más corta no se detecta.
+     */
+    @PluginMethod
+    public void startInfoWedgeMonitoring(PluginCall call) {
         try {
-            Context context = getContext();
-            if (context == null) return false;
-            
-            String[] providerUris = {
-                "content://com.rscja.infowedge.keystate",
-                "content://com.chainway.key.provider/current",
-                "content://com.rscja.scanner.keystate/293"
-            };
-            
-            for (String uriString : providerUris) {
-                try {
-                    Uri uri = Uri.parse(uriString);
-                    Cursor cursor = context.getContentResolver().query(
-                        uri, null, "keycode=?", new String[]{"293"}, null);
-                    
-                    if (cursor != null) {
-                        if (cursor.moveToFirst()) {
-                            // Look for state column
-                            String[] stateColumns = {"state", "pressed", "value", "status"};
-                            
-                            for (String column : stateColumns) {
-                                try {
-                                    int columnIndex = cursor.getColumnIndex(column);
-                                    if (columnIndex >= 0) {
-                                        String value = cursor.getString(columnIndex);
-                                        if (value != null && (value.equals("1") || value.equals("true"))) {
-                                            cursor.close();
-                                            return true;
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    // Continue to next column
-                                }
-                            }
-                        }
-                        cursor.close();
-                    }
-                } catch (Exception e) {
-                    // Continue to next provider
-                }
-            }
-            
+            keyWatchdogMaxIntervalMs = call.getLong("maxIntervalMs", KeyStateWatchdog.DEFAULT_MAX_INTERVAL_MS);
+            keyWatchdogRequested = true;
+            boolean active = startKeyWatchdog();
+
+            JSObject result = keyWatchdogStats();
+            result.put("success", true);
+            result.put("message", active
+                    ? "InfoWedge monitoring started"
+                    : "Accessibility service is enabled, InfoWedge monitoring not needed");
+            call.resolve(result);
         } catch (Exception e) {
-            // Ignore
+            call.reject("Error starting InfoWedge monitoring", e);
         }
-        return false;
     }
-    
+
     @PluginMethod
     public void stopInfoWedgeMonitoring(PluginCall call) {
         try {
-            if (infowedgeMonitor != null) {
-                infowedgeMonitor.cancel();
-                infowedgeMonitor = null;
-                Log.d(TAG, "✅ InfoWedge monitoring stopped");
-            }
-            
-            JSObject result = new JSObject();
+            keyWatchdogRequested = false;
+            JSObject result = keyWatchdogStats();
+            stopKeyWatchdog();
+
+            result.put("active", false);
             result.put("success", true);
             result.put("message", "InfoWedge monitoring stopped");
             call.resolve(result);
@@ -953,6 +2627,49 @@ public class RFIDPlugin extends Plugin {
         }
     }
 
+    /**
+     * Costo del fallback: ticks, CPU consumida e intervalo actual
+     */
+    @PluginMethod
+    public void getInfoWedgeMonitoringStats(PluginCall call) {
+        JSObject result = keyWatchdogStats();
+        result.put("success", true);
+        call.resolve(result);
+    }
+
+    private synchronized boolean startKeyWatchdog() {
+        if (isAccessibilityServiceEnabled()) {
+            stopKeyWatchdog();
+            return false;
+        }
+        if (keyWatchdog == null) {
+            keyWatchdog = new KeyStateWatchdog(getContext(), pressed ->
+                    mainHandler.post(() -> handleKeyEventFromActivity(293, pressed)));
+        }
+        keyWatchdog.setMaxIntervalMs(keyWatchdogMaxIntervalMs);
+        keyWatchdog.start();
+        return true;
+    }
+
+    private synchronized void stopKeyWatchdog() {
+        if (keyWatchdog != null) {
+            keyWatchdog.stop();
+        }
+    }
+
+    private synchronized JSObject keyWatchdogStats() {
+        JSObject result = new JSObject();
+        KeyStateWatchdog watchdog = keyWatchdog;
+        result.put("active", watchdog != null && watchdog.isRunning());
+        result.put("cpuTimeMs", watchdog != null ? watchdog.getCpuTimeMs() : 0);
+        result.put("ticks", watchdog != null ? watchdog.getTicks() : 0);
+        result.put("stateChanges", watchdog != null ? watchdog.getStateChanges() : 0);
+        result.put("intervalMs", watchdog != null ? watchdog.getIntervalMs() : 0);
+        result.put("maxIntervalMs", watchdog != null ? watchdog.getMaxIntervalMs() : keyWatchdogMaxIntervalMs);
+        result.put("probeCount", watchdog != null ? watchdog.getActiveProbeCount() : 0);
+        return result;
+    }
+
     @PluginMethod
     public void checkAccessibilityPermission(PluginCall call) {
         try {
@@ -1017,7 +2734,7 @@ public class RFIDPlugin extends Plugin {
                 }
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error checking accessibility service: " + e.getMessage(), e);
+            PluginLog.e(TAG, "Error checking accessibility service: " + e.getMessage(), e);
         }
         return false;
     }
@@ -1025,7 +2742,7 @@ public class RFIDPlugin extends Plugin {
     @PluginMethod
     public void testKeyEventFlow(PluginCall call) {
         try {
-            Log.i(TAG, "🧪 Testing complete key event flow");
+            PluginLog.i(TAG, "🧪 Testing complete key event flow");
             
             // Test 1: Direct KeyEventManager notification
             KeyEventManager.getInstance().notifyKeyEvent(777, true);
@@ -0,0 +1,404 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the serial link to the UHF module: every SDK call runs on one
+ * thread, never on the thread of the plugin method that asked for it.
+ *
+ * Commands run by {@link Priority} and, within a priority, in submission
+ * order, so a stop overtakes queued configuration. A command submitted with
+ * {@link #submitCoalescing} replaces a queued command with the same key and
+ * keeps its place; every caller gets the result of the one that runs, so a
+ * burst of setPower calls costs one UART round trip. {@link #cancelPending}
+ * removes queued commands by key, e.g. the start a stop makes pointless.
+ *
+ * Each command has a timeout counted from submission. When it expires the
+ * callers get an error right away; a command that had not started yet is
+ * dropped, except stops, which always run. A call stuck in the SDK keeps
+ * the thread, and later commands wait for it instead of touching the port
+ * concurrently.
+ */
+public class ReaderCommandExecutor implements Executor {
+    private static final String TAG = "ReaderCommandExecutor";
+
+    public enum Priority { STOP, COMMAND, BACKGROUND }
+
+    public static final long DEFAULT_TIMEOUT_MS = 3000;
+
+    public interface Task<T> {
+        T run() throws Exception;
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+
+        void onError(String message, Exception e);
+    }
+
+    private static final class Command implements Comparable<Command> {
+        final Priority priority;
+        final long seq;
+        final String key;
+        Task<?> task;
+        long deadlineNanos;
+        final List<Callback<Object>> callbacks = new ArrayList<>(1);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        ScheduledFuture<?> timeoutTask;
+
+        Command(Priority priority, long seq, String key) {
+            this.priority = priority;
+            this.seq = seq;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Command other) {
+            if (priority != other.priority) {
+                return priority.ordinal() - other.priority.ordinal();
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private final Object lock = new Object();
+    private final PriorityQueue<Command> queue = new PriorityQueue<>();
+    // Comandos en cola que aceptan fusión, por clave
+    private final Map<String, Command> coalescable = new HashMap<>();
+    private final Thread thread;
+    private final ScheduledExecutorService timeouts;
+    private long nextSeq = 0;
+
+    private long executed = 0;
+    private long coalesced = 0;
+    private long timedOut = 0;
+    private long expired = 0;
+    private long cancelled = 0;
+    private long failed = 0;
+    private long maxRunNanos = 0;
+
+    public ReaderCommandExecutor() {
+        thread = new Thread(this::runLoop, "RFIDReader");
+        thread.setDaemon(true);
+        thread.start();
+        timeouts = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RFIDReaderTimeout");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues {@code task}. {@code key} only matters for {@link #cancelPending}; may be null.
+     */
+    public <T> void submit(Priority priority, String key, long timeoutMs, Task<T> task, Callback<T> callback) {
+        enqueue(priority, key, false, timeoutMs, task, callback);
+    }
+
+    /**
+     * Like {@link #submit}, but a queued command with the same key takes this task
+     * instead and also answers {@code callback}.
+     */
+    public <T> void submitCoalescing(Priority priority, String key, long timeoutMs, Task<T> task,
+                                     Callback<T> callback) {
+        if (key == null) {
+            throw new IllegalArgumentException("Coalescing needs a key");
+        }
+        enqueue(priority, key, true, timeoutMs, task, callback);
+    }
+
+    /**
+     * Like {@link #submit}, queued after {@code delayMs}. The wait happens on the timer
+     * thread, so the reader thread stays free for other commands meanwhile; the
+     * timeout counts from the moment the command is queued.
+     */
+    public <T> void submitAfter(long delayMs, Priority priority, String key, long timeoutMs, Task<T> task,
+                                Callback<T> callback) {
+        timeouts.schedule(() -> enqueue(priority, key, false, timeoutMs, task, callback),
+                Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code task} on the reader thread and waits for it; runs it inline when
+     * already there. Not for plugin methods: it blocks the caller.
+     */
+    public <T> T await(Priority priority, String key, long timeoutMs, Task<T> task) throws Exception {
+        if (isReaderThread()) {
+            return task.run();
+        }
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Object[] result = new Object[1];
+        final Exception[] error = new Exception[1];
+        Callback<T> callback = new Callback<T>() {
+            @Override
+            public void onResult(T value) {
+                result[0] = value;
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(String message, Exception e) {
+                error[0] = e != null ? e : new IllegalStateException(message);
+                latch.countDown();
+            }
+        };
+        if (key != null) {
+            submitCoalescing(priority, key, timeoutMs, task, callback);
+        } else {
+            submit(priority, null, timeoutMs, task, callback);
+        }
+        // El propio timeout del comando despierta al latch; el margen cubre la entrega del callback
+        if (!latch.await(timeoutMs + 100, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Reader command timed out");
+        }
+        if (error[0] != null) {
+            throw error[0];
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    /** Background fire-and-forget, e.g. the idle power-down of {@link ReaderLifecycle}. */
+    @Override
+    public void execute(final Runnable runnable) {
+        submit(Priority.BACKGROUND, null, DEFAULT_TIMEOUT_MS, () -> {
+            runnable.run();
+            return null;
+        }, new Callback<Object>() {
+            @Override
+            public void onResult(Object result) {
+            }
+
+            @Override
+            public void onError(String message, Exception e) {
+                PluginLog.w(TAG, "Background reader command failed: " + message);
+            }
+        });
+    }
+
+    /**
+     * Removes the queued commands with {@code key}; their callers get {@code reason}
+     * as error. Returns how many were removed.
+     */
+    public int cancelPending(String key, String reason) {
+        List<Command> removed = new ArrayList<>();
+        synchronized (lock) {
+            Iterator<Command> it = queue.iterator();
+            while (it.hasNext()) {
+                Command command = it.next();
+                if (key.equals(command.key)) {
+                    it.remove();
+                    removed.add(command);
+                }
+            }
+            coalescable.remove(key);
+        }
+        int count = 0;
+        for (Command command : removed) {
+            if (fail(command, reason, null)) {
+                count++;
+            }
+        }
+        synchronized (lock) {
+            cancelled += count;
+        }
+        return count;
+    }
+
+    public boolean isReaderThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /** Counters snapshot; see the field names for meaning. */
+    public Stats getStats() {
+        synchronized (lock) {
+            return new Stats(queue.size(), executed, coalesced, timedOut, expired, cancelled, failed,
+                    maxRunNanos / 1_000_000.0);
+        }
+    }
+
+    public static final class Stats {
+        public final int pending;
+        public final long executed;
+        public final long coalesced;
+        public final long timedOut;
+        public final long expired;
+        public final long cancelled;
+        public final long failed;
+        public final double maxRunMs;
+
+        Stats(int pending, long executed, long coalesced, long timedOut, long expired, long cancelled,
+              long failed, double maxRunMs) {
+            this.pending = pending;
+            this.executed = executed;
+            this.coalesced = coalesced;
+            this.timedOut = timedOut;
+            this.expired = expired;
+            this.cancelled = cancelled;
+            this.failed = failed;
+            this.maxRunMs = maxRunMs;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void enqueue(Priority priority, String key, boolean coalesce, long timeoutMs, Task<T> task,
+                             Callback<T> callback) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeoutMs));
+        Command command;
+        synchronized (lock) {
+            Command queued = coalesce ? coalescable.get(key) : null;
+            if (queued != null && queued.priority == priority && !queued.done.get()) {
+                // Gana la última petición; conserva el turno de la primera
+                queued.task = task;
+                queued.deadlineNanos = Math.max(queued.deadlineNanos, deadline);
+                queued.callbacks.add((Callback<Object>) callback);
+                coalesced++;
+                rescheduleTimeout(queued);
+                return;
+            }
+            command = new Command(priority, nextSeq++, key);
+            command.task = task;
+            command.deadlineNanos = deadline;
+            command.callbacks.add((Callback<Object>) callback);
+            if (coalesce) {
+                coalescable.put(key, command);
+            }
+            queue.add(command);
+            rescheduleTimeout(command);
+            lock.notifyAll();
+        }
+    }
+
+    // Con el lock tomado
+    private void rescheduleTimeout(final Command command) {
+        if (command.timeoutTask != null) {
+            command.timeoutTask.cancel(false);
+        }
+        long delay = Math.max(0, command.deadlineNanos - System.nanoTime());
+        command.timeoutTask = timeouts.schedule(() -> onTimeout(command), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void onTimeout(Command command) {
+        synchronized (lock) {
+            // Un comando fusionado pudo extender su plazo después de programarse este aviso
+            if (System.nanoTime() < command.deadlineNanos) {
+                return;
+            }
+        }
+        if (fail(command, "Timeout del lector", new TimeoutException("Reader command timed out"))) {
+            synchronized (lock) {
+                timedOut++;
+            }
+            PluginLog.w(TAG, command.priority + " command" + (command.key != null ? " " + command.key : "")
+                    + " timed out");
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            Command command;
+            synchronized (lock) {
+                while (queue.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // El hilo vive lo que el plugin; se ignora
+                    }
+                }
+                command = queue.poll();
+                if (command.key != null && coalescable.get(command.key) == command) {
+                    coalescable.remove(command.key);
+                }
+                if (command.done.get() && command.priority != Priority.STOP) {
+                    // Venció en la cola: nadie espera ya el resultado
+                    expired++;
+                    continue;
+                }
+            }
+
+            long start = System.nanoTime();
+            Object result = null;
+            Exception error = null;
+            try {
+                result = command.task.run();
+            } catch (Exception e) {
+                error = e;
+                PluginLog.e(TAG, "Reader command failed: " + e.getMessage(), e);
+            }
+            long elapsed = System.nanoTime() - start;
+            synchronized (lock) {
+                executed++;
+                if (error != null) {
+                    failed++;
+                }
+                if (elapsed > maxRunNanos) {
+                    maxRunNanos = elapsed;
+                }
+            }
+
+            if (error != null) {
+                fail(command, error.getMessage() != null ? error.getMessage() : error.toString(), error);
+            } else {
+                complete(command, result);
+            }
+        }
+    }
+
+    private void complete(Command command, Object result) {
+        if (!command.done.compareAndSet(false, true)) {
+            return;
+        }
+        cancelTimeout(command);
+        for (Callback<Object> callback : callbacksOf(command)) {
+            try {
+                callback.onResult(result);
+            } catch (Exception e) {
+                PluginLog.e(TAG, "Error in reader command callback: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private boolean fail(Command command, String message, Exception error) {
+        if (!command.done.compareAndSet(false, true)) {
+            return false;
+        }
+        cancelTimeout(command);
+        for (Callback<Object> callback : callbacksOf(command)) {
+            try {
+                callback.onError(message, error);
+            } catch (Exception e) {
+                PluginLog.e(TAG, "Error in reader command callback: " + e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+
+    private void cancelTimeout(Command command) {
+        synchronized (lock) {
+            if (command.timeoutTask != null) {
+                command.timeoutTask.cancel(false);
+                command.timeoutTask = null;
+            }
+        }
+    }
+
+    private List<Callback<Object>> callbacksOf(Command command) {
+        synchronized (lock) {
+            return new ArrayList<>(command.callbacks);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.ylazzari.plugins.rfidread;
+
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the UHF module powered between inventory rounds.
+ *
+ * COLD -> (acquire) -> INVENTORYING -> (release) -> WARM -> (idle timeout) -> COLD
+ *
+ * A back-to-back trigger pull finds the reader WARM and skips the UART /
+ * module power-up; the real {@code free()} only happens once the reader has
+ * been idle for {@code idleTimeoutMs}.
+ *
+ * Every transition, including the idle power-down, runs on the executor
+ * given at construction, the one that owns the reader, so the hooks never
+ * race and no lock is held across UART I/O. The getters are volatile reads
+ * and can be called from any thread while a power-up is in progress.
+ */
+public class ReaderLifecycle {
+    private static final String TAG = "ReaderLifecycle";
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000;
+
+    public enum State {
+        COLD,
+        WARM,
+        INVENTORYING
+    }
+
+    public interface Hooks {
+        boolean powerUp();
+
+        void powerDown();
+    }
+
+    private final Hooks hooks;
+    private final ScheduledExecutorService scheduler;
+    private final Executor powerDownExecutor;
+    private volatile State state = State.COLD;
+    private volatile long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+    private volatile boolean lastAcquireWasWarm = false;
+    private volatile long lastPowerUpNanos = -1;
+    // Sólo en el executor del lector
+    private ScheduledFuture<?> idleTask;
+    // Invalida un apagado por inactividad ya encolado si el lector se volvió a usar
+    private long idleGeneration = 0;
+
+    /**
+     * {@code powerDownExecutor} owns the reader: callers run every other method on it too.
+     */
+    public ReaderLifecycle(Hooks hooks, Executor powerDownExecutor) {
+        this.hooks = hooks;
+        this.powerDownExecutor = powerDownExecutor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RFIDReaderIdle");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Makes sure the module is powered and marks it as inventorying.
+     * Returns false if a cold power-up failed.
+     */
+    public boolean acquire() {
+        cancelIdleTask();
+        lastAcquireWasWarm = state != State.COLD;
+        if (state == State.COLD && !powerUp()) {
+            return false;
+        }
+        state = State.INVENTORYING;
+        return true;
+    }
+
+    /**
+     * Inventory finished: keep the module warm and arm the idle timeout.
+     */
+    public void release() {
+        if (state == State.INVENTORYING) {
+            state = State.WARM;
+        }
+        scheduleIdle();
+    }
+
+    /**
+     * Powers the module up outside an inventory round (load / initReader).
+     */
+    public boolean warmUp() {
+        if (state == State.COLD && !powerUp()) {
+            return false;
+        }
+        if (state != State.INVENTORYING) {
+            state = State.WARM;
+            scheduleIdle();
+        }
+        return true;
+    }
+
+    /**
+     * Immediate free(), regardless of the idle timeout.
+     */
+    public void forceCold() {
+        cancelIdleTask();
+        if (state != State.COLD) {
+            powerDown();
+        }
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = Math.max(0, idleTimeoutMs);
+        if (state == State.WARM) {
+            scheduleIdle();
+        }
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean wasLastAcquireWarm() {
+        return lastAcquireWasWarm;
+    }
+
+    /**
+     * Duration of the last cold power-up in nanoseconds, or -1.
+     */
+    public long getLastPowerUpNanos() {
+        return lastPowerUpNanos;
+    }
+
+    private boolean powerUp() {
+        long start = System.nanoTime();
+        boolean ok = hooks.powerUp();
+        lastPowerUpNanos = System.nanoTime() - start;
+        if (ok) {
+            state = State.WARM;
+        }
+        return ok;
+    }
+
+    private void powerDown() {
+        try {
+            hooks.powerDown();
+        } catch (Exception e) {
+            PluginLog.w(TAG, "Error powering down reader: " + e.getMessage());
+        }
+        state = State.COLD;
+    }
+
+    private void scheduleIdle() {
+        cancelIdleTask();
+        if (state != State.WARM) {
+            return;
+        }
+        if (idleTimeoutMs == 0) {
+            powerDown();
+            return;
+        }
+        final long generation = idleGeneration;
+        // El timer sólo encola: el apagado corre en el executor del lector
+        idleTask = scheduler.schedule(() -> powerDownExecutor.execute(() -> onIdleTimeout(generation)),
+                idleTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void onIdleTimeout(long generation) {
+        if (generation != idleGeneration) {
+            return;
+        }
+        idleTask = null;
+        if (state == State.WARM) {
+            PluginLog.d(TAG, "Reader idle for " + idleTimeoutMs + "ms, powering down");
+            powerDown();
+        }
+    }
+
+    private void cancelIdleTask() {
+        idleGeneration++;
+        if (idleTask != null) {
+            idleTask.cancel(false);
+            idleTask = null;
+        }
+    }
+}
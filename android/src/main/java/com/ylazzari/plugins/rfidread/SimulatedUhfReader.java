@@ -0,0 +1,232 @@
+package com.ylazzari.plugins.rfidread;
+
+import com.rscja.deviceapi.entity.UHFTAGInfo;
+import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deterministic {@link UhfReader} that replays a synthetic tag population,
+ * so the inventory pipeline can be load tested without a Chainway device.
+ *
+ * Reads are generated on a "RFIDSimulator" thread at {@code readsPerSecond}
+ * while a burst is on. With a callback set they are delivered through it,
+ * otherwise they queue up for {@link #readTagFromBuffer()} like the SDK
+ * buffer. The same seed always produces the same EPC/RSSI sequence.
+ * An EPC-bank {@link #setFilter} narrows the population like a select would.
+ */
+public class SimulatedUhfReader implements UhfReader {
+
+    private static final int BUFFER_CAPACITY = 10000;
+    private static final long TICK_NANOS = 1_000_000L;
+
+    public static class Config {
+        /** Distinct EPCs in the field. */
+        public int tagPopulation = 200;
+        /** Read rate while a burst is on. */
+        public int readsPerSecond = 1000;
+        public float rssiMean = -55f;
+        public float rssiStdDev = 6f;
+        /** Burst pattern; {@code burstOffMs == 0} means reads are continuous. */
+        public long burstOnMs = 0;
+        public long burstOffMs = 0;
+        public long seed = 42L;
+        public int startupDelayMs = 0;
+    }
+
+    private final Config config;
+    private final String[] population;
+    private String[] selected;
+    private final Object lock = new Object();
+    private final ArrayDeque<UHFTAGInfo> buffer = new ArrayDeque<>();
+
+    private final Random random;
+    private volatile IUHFInventoryCallback callback;
+    private volatile boolean initialized = false;
+    private volatile boolean running = false;
+    private volatile int power = 30;
+    private Thread thread;
+    private long generatedCount = 0;
+
+    public SimulatedUhfReader(Config config) {
+        this.config = config;
+        this.population = new String[Math.max(1, config.tagPopulation)];
+        for (int i = 0; i < population.length; i++) {
+            population[i] = String.format(Locale.US, "E28011700000%012X", i);
+        }
+        this.selected = population;
+        this.random = new Random(config.seed);
+    }
+
+    @Override
+    public boolean init() {
+        if (config.startupDelayMs > 0) {
+            try {
+                Thread.sleep(config.startupDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        initialized = true;
+        return true;
+    }
+
+    @Override
+    public boolean free() {
+        stopInventory();
+        initialized = false;
+        return true;
+    }
+
+    @Override
+    public boolean setPower(int power) {
+        this.power = power;
+        return initialized;
+    }
+
+    @Override
+    public int getPower() {
+        return initialized ? power : -1;
+    }
+
+    @Override
+    public void setInventoryCallback(IUHFInventoryCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public synchronized boolean startInventoryTag() {
+        if (!initialized || running) {
+            return false;
+        }
+        running = true;
+        thread = new Thread(this::generate, "RFIDSimulator");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean stopInventory() {
+        if (!running) {
+            return true;
+        }
+        running = false;
+        try {
+            thread.join(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        return true;
+    }
+
+    @Override
+    public UHFTAGInfo readTagFromBuffer() {
+        synchronized (lock) {
+            return buffer.poll();
+        }
+    }
+
+    @Override
+    public boolean setFilter(int bank, int ptrBits, int lenBits, String data) {
+        if (lenBits == 0) {
+            return clearFilter();
+        }
+        if (bank != BANK_EPC || ptrBits < EPC_START_BIT || ptrBits % 4 != 0 || lenBits % 4 != 0
+                || data == null || data.length() * 4 < lenBits) {
+            return false;
+        }
+        int offset = (ptrBits - EPC_START_BIT) / 4;
+        int chars = lenBits / 4;
+        int matches = 0;
+        String[] matching = new String[population.length];
+        for (String epc : population) {
+            if (epc.regionMatches(true, offset, data, 0, chars)) {
+                matching[matches++] = epc;
+            }
+        }
+        synchronized (lock) {
+            selected = Arrays.copyOf(matching, matches);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean clearFilter() {
+        synchronized (lock) {
+            selected = population;
+        }
+        return true;
+    }
+
+    public long getGeneratedCount() {
+        synchronized (lock) {
+            return generatedCount;
+        }
+    }
+
+    private void generate() {
+        long startNanos = System.nanoTime();
+        long emitted = 0;
+
+        while (running) {
+            long due = readsDue(System.nanoTime() - startNanos);
+            while (emitted < due && running) {
+                UHFTAGInfo tag = nextTag();
+                if (tag != null) {
+                    deliver(tag);
+                }
+                emitted++;
+            }
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+
+    // Reads owed after elapsedNanos, counting only time inside bursts
+    private long readsDue(long elapsedNanos) {
+        long activeNanos = elapsedNanos;
+        if (config.burstOnMs > 0 && config.burstOffMs > 0) {
+            long onNanos = config.burstOnMs * 1_000_000L;
+            long cycleNanos = onNanos + config.burstOffMs * 1_000_000L;
+            activeNanos = (elapsedNanos / cycleNanos) * onNanos + Math.min(elapsedNanos % cycleNanos, onNanos);
+        }
+        return activeNanos * config.readsPerSecond / 1_000_000_000L;
+    }
+
+    private UHFTAGInfo nextTag() {
+        UHFTAGInfo tag = new UHFTAGInfo();
+        synchronized (lock) {
+            // Con un filtro sin coincidencias el módulo no devuelve nada
+            if (selected.length == 0) {
+                return null;
+            }
+            tag.setEPC(selected[random.nextInt(selected.length)]);
+            float rssi = (float) (config.rssiMean + random.nextGaussian() * config.rssiStdDev);
+            tag.setRssi(String.format(Locale.US, "%.2f", rssi));
+            generatedCount++;
+        }
+        tag.setAnt("1");
+        tag.setTimestamp(System.currentTimeMillis());
+        return tag;
+    }
+
+    private void deliver(UHFTAGInfo tag) {
+        IUHFInventoryCallback cb = callback;
+        if (cb != null) {
+            cb.callback(tag);
+            return;
+        }
+        synchronized (lock) {
+            if (buffer.size() >= BUFFER_CAPACITY) {
+                buffer.poll();
+            }
+            buffer.add(tag);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates inventory reads by EPC on the native side so JS receives one
+ * entry per tag (read count, RSSI min/max/avg, antenna, first/last seen)
+ * instead of one event per read.
+ *
+ * Tags are ids of an {@link EpcTable} and their stats live in parallel
+ * primitive arrays, so a large inventory holds no per-tag objects; antenna
+ * names are interned. {@link Entry} objects are only built for the caller,
+ * as copies.
+ *
+ * Tags touched since the last {@link #drainChanged()} are kept in a
+ * separate list so deltas cost O(changed) rather than O(population).
+ * A second, independent list feeds the inventory journal when enabled.
+ * {@link #beginSession()} starts per-session counters without clearing the
+ * aggregated state.
+ */
+public class TagAggregator {
+
+    public static class Entry {
+        public final String epc;
+        public int count;
+        public float rssiMin = Float.NaN;
+        public float rssiMax = Float.NaN;
+        public double rssiSum;
+        public int rssiSamples;
+        public String antenna;
+        public long firstSeen;
+        public long lastSeen;
+
+        Entry(String epc) {
+            this.epc = epc;
+        }
+
+        public float getRssiAvg() {
+            return rssiSamples == 0 ? Float.NaN : (float) (rssiSum / rssiSamples);
+        }
+    }
+
+    private static final byte FLAG_CHANGED = 1;
+    private static final byte FLAG_JOURNAL_PENDING = 2;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final EpcTable epcs = new EpcTable(INITIAL_CAPACITY);
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private float[] rssiMins = new float[INITIAL_CAPACITY];
+    private float[] rssiMaxs = new float[INITIAL_CAPACITY];
+    private double[] rssiSums = new double[INITIAL_CAPACITY];
+    private int[] rssiSamples = new int[INITIAL_CAPACITY];
+    private short[] antennaIds = new short[INITIAL_CAPACITY]; // 0 = sin antena
+    private long[] firstSeens = new long[INITIAL_CAPACITY];
+    private long[] lastSeens = new long[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] sessionMarks = new int[INITIAL_CAPACITY]; // última sesión que leyó el tag
+
+    private final List<String> antennas = new ArrayList<>();
+    private final Map<String, Integer> antennaIndex = new HashMap<>();
+
+    private int[] changed = new int[INITIAL_CAPACITY];
+    private int changedCount = 0;
+    private int[] unjournaled = new int[0];
+    private int unjournaledCount = 0;
+    private boolean journalTracking = false;
+    private long totalReads = 0;
+    private int session = 0;
+    private int sessionUnique = 0;
+    private long sessionReads = 0;
+
+    public synchronized void record(String epc, String rssi, String antenna, long timestamp) {
+        int id = idFor(epc);
+        if (id < 0) {
+            return;
+        }
+        if (counts[id] == 0) {
+            firstSeens[id] = timestamp;
+        }
+        if (sessionMarks[id] != session) {
+            sessionMarks[id] = session;
+            sessionUnique++;
+        }
+
+        counts[id]++;
+        lastSeens[id] = timestamp;
+        if (antenna != null) {
+            antennaIds[id] = antennaId(antenna);
+        }
+
+        float value = parseRssi(rssi);
+        if (!Float.isNaN(value)) {
+            if (rssiSamples[id] == 0 || value < rssiMins[id]) {
+                rssiMins[id] = value;
+            }
+            if (rssiSamples[id] == 0 || value > rssiMaxs[id]) {
+                rssiMaxs[id] = value;
+            }
+            rssiSums[id] += value;
+            rssiSamples[id]++;
+        }
+
+        if ((flags[id] & FLAG_CHANGED) == 0) {
+            flags[id] |= FLAG_CHANGED;
+            changed = push(changed, changedCount++, id);
+        }
+        if (journalTracking && (flags[id] & FLAG_JOURNAL_PENDING) == 0) {
+            flags[id] |= FLAG_JOURNAL_PENDING;
+            unjournaled = push(unjournaled, unjournaledCount++, id);
+        }
+        totalReads++;
+        sessionReads++;
+    }
+
+    /**
+     * Starts a new inventory session: the session counters restart from zero,
+     * the aggregated entries are kept.
+     */
+    public synchronized void beginSession() {
+        session++;
+        sessionUnique = 0;
+        sessionReads = 0;
+    }
+
+    /** Distinct EPCs recorded since {@link #beginSession()}. */
+    public synchronized int getSessionUniqueCount() {
+        return sessionUnique;
+    }
+
+    /** Reads recorded since {@link #beginSession()}. */
+    public synchronized long getSessionReads() {
+        return sessionReads;
+    }
+
+    /**
+     * Returns copies of the entries touched since the previous call and
+     * clears their changed mark.
+     */
+    public synchronized List<Entry> drainChanged() {
+        List<Entry> result = new ArrayList<>(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            int id = changed[i];
+            flags[id] &= ~FLAG_CHANGED;
+            result.add(entryAt(id));
+        }
+        changedCount = 0;
+        return result;
+    }
+
+    /**
+     * Replaces the state of one EPC with a journaled one, as in session
+     * recovery. Restored entries are neither changed nor journal-pending.
+     */
+    public synchronized void restore(String epc, int count, float rssiMin, float rssiAvg, float rssiMax,
+                                     String antenna, long firstSeen, long lastSeen) {
+        int id = idFor(epc);
+        if (id < 0) {
+            return;
+        }
+        totalReads += count - counts[id];
+        counts[id] = count;
+        rssiMins[id] = rssiMin;
+        rssiMaxs[id] = rssiMax;
+        // Sólo se guarda el promedio: se reconstruye como si cada lectura trajera RSSI
+        rssiSamples[id] = Float.isNaN(rssiAvg) ? 0 : count;
+        rssiSums[id] = Float.isNaN(rssiAvg) ? 0 : (double) rssiAvg * count;
+        antennaIds[id] = antenna != null ? antennaId(antenna) : 0;
+        firstSeens[id] = firstSeen;
+        lastSeens[id] = lastSeen;
+    }
+
+    /**
+     * Starts or stops tracking entries for the journal. Enabling it queues
+     * every existing entry so the journal starts from the full state.
+     */
+    public void setJournalTracking(boolean enabled) {
+        setJournalTracking(enabled, true);
+    }
+
+    /**
+     * Same as {@link #setJournalTracking(boolean)}; {@code queueExisting}
+     * false skips entries the journal already holds, e.g. after recovery.
+     */
+    public synchronized void setJournalTracking(boolean enabled, boolean queueExisting) {
+        journalTracking = enabled;
+        for (int i = 0; i < unjournaledCount; i++) {
+            flags[unjournaled[i]] &= ~FLAG_JOURNAL_PENDING;
+        }
+        unjournaledCount = 0;
+        if (enabled && queueExisting) {
+            int size = epcs.size();
+            if (unjournaled.length < size) {
+                unjournaled = new int[size];
+            }
+            for (int id = 0; id < size; id++) {
+                flags[id] |= FLAG_JOURNAL_PENDING;
+                unjournaled[id] = id;
+            }
+            unjournaledCount = size;
+        }
+    }
+
+    /**
+     * Like {@link #drainChanged()}, for the journal's own change list.
+     */
+    public synchronized List<Entry> drainUnjournaled() {
+        List<Entry> result = new ArrayList<>(unjournaledCount);
+        for (int i = 0; i < unjournaledCount; i++) {
+            int id = unjournaled[i];
+            flags[id] &= ~FLAG_JOURNAL_PENDING;
+            result.add(entryAt(id));
+        }
+        unjournaledCount = 0;
+        return result;
+    }
+
+    /**
+     * Copies of every entry, in first-seen order.
+     */
+    public synchronized List<Entry> snapshot() {
+        int size = epcs.size();
+        List<Entry> result = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            result.add(entryAt(id));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return epcs.size();
+    }
+
+    public synchronized long getTotalReads() {
+        return totalReads;
+    }
+
+    public synchronized boolean hasChanges() {
+        return changedCount > 0;
+    }
+
+    public synchronized void clear() {
+        epcs.clear();
+        antennas.clear();
+        antennaIndex.clear();
+        changedCount = 0;
+        unjournaledCount = 0;
+        totalReads = 0;
+        sessionUnique = 0;
+        sessionReads = 0;
+    }
+
+    /**
+     * Bytes held by the tag table and stat columns, for footprint reports.
+     */
+    public synchronized long footprintBytes() {
+        return epcs.footprintBytes()
+                + (long) counts.length * (4 + 4 + 4 + 8 + 4 + 2 + 8 + 8 + 1 + 4)
+                + (long) changed.length * 4 + (long) unjournaled.length * 4;
+    }
+
+    // Id del EPC; si es nuevo, su fila queda en cero
+    private int idFor(String epc) {
+        int before = epcs.size();
+        int id = epcs.add(epc);
+        if (id < before) {
+            return id;
+        }
+        if (id >= counts.length) {
+            grow(id + 1);
+        }
+        counts[id] = 0;
+        rssiMins[id] = Float.NaN;
+        rssiMaxs[id] = Float.NaN;
+        rssiSums[id] = 0;
+        rssiSamples[id] = 0;
+        antennaIds[id] = 0;
+        firstSeens[id] = 0;
+        lastSeens[id] = 0;
+        flags[id] = 0;
+        sessionMarks[id] = session - 1;
+        return id;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, counts.length + (counts.length >> 1));
+        counts = Arrays.copyOf(counts, capacity);
+        rssiMins = Arrays.copyOf(rssiMins, capacity);
+        rssiMaxs = Arrays.copyOf(rssiMaxs, capacity);
+        rssiSums = Arrays.copyOf(rssiSums, capacity);
+        rssiSamples = Arrays.copyOf(rssiSamples, capacity);
+        antennaIds = Arrays.copyOf(antennaIds, capacity);
+        firstSeens = Arrays.copyOf(firstSeens, capacity);
+        lastSeens = Arrays.copyOf(lastSeens, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        sessionMarks = Arrays.copyOf(sessionMarks, capacity);
+    }
+
+    private static int[] push(int[] list, int index, int id) {
+        if (index == list.length) {
+            list = Arrays.copyOf(list, Math.max(16, list.length + (list.length >> 1)));
+        }
+        list[index] = id;
+        return list;
+    }
+
+    private short antennaId(String antenna) {
+        Integer id = antennaIndex.get(antenna);
+        if (id == null) {
+            if (antennas.size() >= Short.MAX_VALUE) {
+                // Nunca ocurre con antenas reales; se descarta antes que desbordar el id
+                return 0;
+            }
+            antennas.add(antenna);
+            id = antennas.size();
+            antennaIndex.put(antenna, id);
+        }
+        return id.shortValue();
+    }
+
+    private Entry entryAt(int id) {
+        Entry entry = new Entry(epcs.get(id));
+        entry.count = counts[id];
+        entry.rssiMin = rssiMins[id];
+        entry.rssiMax = rssiMaxs[id];
+        entry.rssiSum = rssiSums[id];
+        entry.rssiSamples = rssiSamples[id];
+        entry.antenna = antennaIds[id] == 0 ? null : antennas.get(antennaIds[id] - 1);
+        entry.firstSeen = firstSeens[id];
+        entry.lastSeen = lastSeens[id];
+        return entry;
+    }
+
+    static float parseRssi(String rssi) {
+        if (rssi == null || rssi.isEmpty()) {
+            return Float.NaN;
+        }
+        try {
+            return Float.parseFloat(rssi);
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates tag reads and hands them to a {@link Sink} as one frame,
+ * either when {@code maxTags} reads are pending or when the oldest pending
+ * read is {@code maxDelayMs} old, whichever comes first.
+ *
+ * Reads are stored in preallocated parallel arrays; only the emitted frame
+ * is copied, so the per-read cost is a few array stores under a lock.
+ */
+public class TagBatcher {
+
+    public static final int DEFAULT_MAX_TAGS = 100;
+    public static final long DEFAULT_MAX_DELAY_MS = 100;
+
+    public interface Sink {
+        void onBatch(String[] epcs, String[] rssis, long[] timestamps, int count);
+    }
+
+    private final int maxTags;
+    private final long maxDelayMs;
+    private final Sink sink;
+    private final ScheduledExecutorService scheduler;
+
+    private final String[] epcs;
+    private final String[] rssis;
+    private final long[] timestamps;
+    private int count = 0;
+    private long generation = 0;
+    private ScheduledFuture<?> pendingFlush;
+
+    private long totalReads = 0;
+    private long totalBatches = 0;
+
+    public TagBatcher(int maxTags, long maxDelayMs, Sink sink) {
+        this.maxTags = Math.max(1, maxTags);
+        this.maxDelayMs = Math.max(1, maxDelayMs);
+        this.sink = sink;
+        this.epcs = new String[this.maxTags];
+        this.rssis = new String[this.maxTags];
+        this.timestamps = new long[this.maxTags];
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RFIDTagBatcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void add(String epc, String rssi, long timestamp) {
+        Frame frame = null;
+        synchronized (this) {
+            epcs[count] = epc;
+            rssis[count] = rssi;
+            timestamps[count] = timestamp;
+            count++;
+            totalReads++;
+
+            if (count >= maxTags) {
+                frame = takeFrame();
+            } else if (count == 1) {
+                final long scheduledGeneration = generation;
+                pendingFlush = scheduler.schedule(() -> flushIfGeneration(scheduledGeneration),
+                        maxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        deliver(frame);
+    }
+
+    /**
+     * Emits whatever is pending right now, e.g. when inventory stops.
+     */
+    public void flush() {
+        Frame frame;
+        synchronized (this) {
+            frame = takeFrame();
+        }
+        deliver(frame);
+    }
+
+    public void close() {
+        flush();
+        scheduler.shutdownNow();
+    }
+
+    public synchronized long getTotalReads() {
+        return totalReads;
+    }
+
+    public synchronized long getTotalBatches() {
+        return totalBatches;
+    }
+
+    private void flushIfGeneration(long expectedGeneration) {
+        Frame frame = null;
+        synchronized (this) {
+            if (generation == expectedGeneration) {
+                frame = takeFrame();
+            }
+        }
+        deliver(frame);
+    }
+
+    // Must be called with the lock held
+    private Frame takeFrame() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        generation++;
+        if (count == 0) {
+            return null;
+        }
+        Frame frame = new Frame(
+                Arrays.copyOf(epcs, count),
+                Arrays.copyOf(rssis, count),
+                Arrays.copyOf(timestamps, count));
+        Arrays.fill(epcs, 0, count, null);
+        Arrays.fill(rssis, 0, count, null);
+        count = 0;
+        totalBatches++;
+        return frame;
+    }
+
+    private void deliver(Frame frame) {
+        if (frame != null) {
+            sink.onBatch(frame.epcs, frame.rssis, frame.timestamps, frame.epcs.length);
+        }
+    }
+
+    private static final class Frame {
+        final String[] epcs;
+        final String[] rssis;
+        final long[] timestamps;
+
+        Frame(String[] epcs, String[] rssis, long[] timestamps) {
+            this.epcs = epcs;
+            this.rssis = rssis;
+            this.timestamps = timestamps;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ylazzari.plugins.rfidread;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer/single-consumer ring buffer of raw tag reads.
+ *
+ * The producer is the vendor SDK callback thread and the consumer is the
+ * {@link InventoryWorker}. Each side owns one sequence counter and publishes
+ * it with an ordered store, so neither side takes a lock. When the buffer is
+ * full the read is dropped and counted instead of blocking the radio.
+ */
+public class TagRingBuffer {
+
+    public interface Handler {
+        void onRead(String epc, String rssi, String antenna, long timestamp);
+    }
+
+    private final int mask;
+    private final String[] epcs;
+    private final String[] rssis;
+    private final String[] antennas;
+    private final long[] timestamps;
+
+    // Next slot to write (owned by the producer)
+    private final AtomicLong tail = new AtomicLong();
+    // Next slot to read (owned by the consumer)
+    private final AtomicLong head = new AtomicLong();
+    // Producer-local copy of head, refreshed only when the buffer looks full
+    private long cachedHead = 0;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int highWaterMark = 0;
+
+    public TagRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        epcs = new String[size];
+        rssis = new String[size];
+        antennas = new String[size];
+        timestamps = new long[size];
+    }
+
+    /**
+     * Producer side. Returns false and counts a drop when the buffer is full.
+     */
+    public boolean offer(String epc, String rssi, String antenna, long timestamp) {
+        long t = tail.get();
+        int depth = (int) (t - cachedHead);
+        if (depth > mask) {
+            cachedHead = head.get();
+            depth = (int) (t - cachedHead);
+            if (depth > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        int slot = (int) t & mask;
+        epcs[slot] = epc;
+        rssis[slot] = rssi;
+        antennas[slot] = antenna;
+        timestamps[slot] = timestamp;
+        // Full store (not lazySet): pairs with the worker's parked flag so a wake-up is never missed
+        tail.set(t + 1);
+        if (depth + 1 > highWaterMark) {
+            highWaterMark = depth + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Consumer side. Hands every published read to the handler and returns
+     * how many were drained. If the handler throws, the read it was given
+     * counts as consumed and the next drain starts after it.
+     */
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        int drained = 0;
+        try {
+            while (h < t) {
+                int slot = (int) h & mask;
+                String epc = epcs[slot];
+                String rssi = rssis[slot];
+                String antenna = antennas[slot];
+                long timestamp = timestamps[slot];
+                epcs[slot] = null;
+                rssis[slot] = null;
+                antennas[slot] = null;
+                h++;
+                drained++;
+                handler.onRead(epc, rssi, antenna, timestamp);
+                // Release slots in chunks so the producer sees space without a store per read
+                if ((drained & 63) == 0) {
+                    head.lazySet(h);
+                }
+            }
+        } finally {
+            // Also on an exception: the slots up to h are already cleared and must not be read again
+            head.lazySet(h);
+        }
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+}
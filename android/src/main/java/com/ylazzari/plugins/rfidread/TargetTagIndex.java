@@ -0,0 +1,44 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * Read-only set of target EPCs for filtered reading.
+ *
+ * EPCs are kept in an {@link EpcTable}: up to 128 bits they are packed into
+ * two longs (see {@link EpcCodec}), longer ones into its byte arena, so a
+ * lookup from the inventory callback parses the hex string in place and
+ * allocates nothing.
+ *
+ * Instances are built once before inventory starts and never mutated
+ * afterwards, which makes concurrent lookups safe.
+ */
+public class TargetTagIndex {
+
+    private final EpcTable table;
+
+    public TargetTagIndex(Iterable<String> epcs, int expectedSize) {
+        table = new EpcTable(expectedSize);
+        for (String epc : epcs) {
+            table.add(epc);
+        }
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    public boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    public boolean contains(String epc) {
+        return table.indexOf(epc) >= 0;
+    }
+
+    public boolean contains(long high, long low, int length) {
+        return table.indexOf(high, low, length) >= 0;
+    }
+
+    public long footprintBytes() {
+        return table.footprintBytes();
+    }
+}
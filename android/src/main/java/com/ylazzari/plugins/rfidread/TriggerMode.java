@@ -0,0 +1,32 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * What the hardware trigger does natively, without waiting for JS.
+ */
+public enum TriggerMode {
+    /** Only emit triggerPressed / triggerReleased; JS decides (default). */
+    NONE("none"),
+    /** Inventory runs while the trigger is held. */
+    HOLD_TO_READ("holdToRead"),
+    /** Each press starts or stops inventory. */
+    TOGGLE("toggle");
+
+    private final String jsName;
+
+    TriggerMode(String jsName) {
+        this.jsName = jsName;
+    }
+
+    public String getJsName() {
+        return jsName;
+    }
+
+    public static TriggerMode fromJsName(String name) {
+        for (TriggerMode mode : values()) {
+            if (mode.jsName.equals(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,142 @@
+package com.ylazzari.plugins.rfidread;
+
+/**
+ * Single ingestion point for trigger key events.
+ *
+ * One physical pull reaches the plugin through several paths (accessibility
+ * service, dispatchKeyEvent, onKeyDown, ...). They all carry the same
+ * KeyEvent identity, so a press is recognised by its (downTime, source) pair
+ * instead of a wall-clock debounce: copies and auto-repeats of the current
+ * press are dropped, while a genuinely new pull is accepted immediately.
+ *
+ * Callers without a KeyEvent (JS, InfoWedge fallback, tests) pass
+ * downTime 0 and fall back to plain pressed/released state tracking. Such a
+ * down never replaces a press that carries an identity: it is the same pull
+ * seen by a fallback path, however long the trigger has been held.
+ */
+public class TriggerStateMachine {
+
+    public static final int IGNORED = 0;
+    public static final int PRESSED = 1;
+    public static final int RELEASED = 2;
+    /** The previous press never saw its release; it is reset and the new press accepted. */
+    public static final int RESET_THEN_PRESSED = 3;
+
+    public static final long DEFAULT_STUCK_TIMEOUT_MS = 5000;
+
+    private final long stuckTimeoutMs;
+
+    private boolean pressed = false;
+    private long pressDownTime = 0;
+    private int pressSource = 0;
+    private long pressAcceptedAt = 0;
+
+    // Identity of the last completed press, to drop copies that arrive after its release
+    private long releasedDownTime = 0;
+    private int releasedSource = 0;
+
+    private long duplicateCount = 0;
+    private String lastResetReason = null;
+
+    public TriggerStateMachine() {
+        this(DEFAULT_STUCK_TIMEOUT_MS);
+    }
+
+    public TriggerStateMachine(long stuckTimeoutMs) {
+        this.stuckTimeoutMs = stuckTimeoutMs;
+    }
+
+    public synchronized int onDown(long downTime, int source, long nowMs) {
+        if (downTime != 0 && downTime == releasedDownTime && source == releasedSource) {
+            duplicateCount++;
+            return IGNORED;
+        }
+
+        if (!pressed) {
+            accept(downTime, source, nowMs);
+            return PRESSED;
+        }
+
+        if (downTime != 0 && pressDownTime != 0) {
+            if (downTime == pressDownTime && source == pressSource) {
+                // Same press from another path, or an auto-repeat
+                duplicateCount++;
+                return IGNORED;
+            }
+            if (downTime > pressDownTime) {
+                lastResetReason = "missedRelease";
+                accept(downTime, source, nowMs);
+                return RESET_THEN_PRESSED;
+            }
+            duplicateCount++;
+            return IGNORED;
+        }
+
+        if (downTime != 0 && nowMs - pressAcceptedAt <= stuckTimeoutMs) {
+            // La misma pulsación, aceptada antes por un camino sin KeyEvent: adopta su identidad
+            pressDownTime = downTime;
+            pressSource = source;
+            duplicateCount++;
+            return IGNORED;
+        }
+
+        if (pressDownTime != 0) {
+            // Sin identidad no se puede distinguir de la pulsación en curso: un gatillo mantenido
+            // no debe reiniciarse por el timeout
+            duplicateCount++;
+            return IGNORED;
+        }
+
+        if (nowMs - pressAcceptedAt > stuckTimeoutMs) {
+            lastResetReason = "timeout";
+            accept(downTime, source, nowMs);
+            return RESET_THEN_PRESSED;
+        }
+        duplicateCount++;
+        return IGNORED;
+    }
+
+    public synchronized int onUp(long downTime, int source) {
+        if (!pressed) {
+            duplicateCount++;
+            return IGNORED;
+        }
+        if (downTime != 0 && pressDownTime != 0 && downTime != pressDownTime) {
+            // Release of an older press that was already reset
+            duplicateCount++;
+            return IGNORED;
+        }
+        pressed = false;
+        releasedDownTime = pressDownTime;
+        releasedSource = pressSource;
+        return RELEASED;
+    }
+
+    public synchronized void reset() {
+        pressed = false;
+        pressDownTime = 0;
+        pressSource = 0;
+        releasedDownTime = 0;
+        releasedSource = 0;
+    }
+
+    public synchronized boolean isPressed() {
+        return pressed;
+    }
+
+    public synchronized long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /** "missedRelease" or "timeout" for the last RESET_THEN_PRESSED. */
+    public synchronized String getLastResetReason() {
+        return lastResetReason;
+    }
+
+    private void accept(long downTime, int source, long nowMs) {
+        pressed = true;
+        pressDownTime = downTime;
+        pressSource = source;
+        pressAcceptedAt = nowMs;
+    }
+}
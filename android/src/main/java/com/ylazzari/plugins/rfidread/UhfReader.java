@@ -0,0 +1,41 @@
+package com.ylazzari.plugins.rfidread;
+
+import com.rscja.deviceapi.entity.UHFTAGInfo;
+import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
+
+/**
+ * The subset of the UHF reader API the plugin uses. Implemented by
+ * {@link ChainwayUhfReader} on devices and {@link SimulatedUhfReader} for
+ * load testing without hardware.
+ */
+public interface UhfReader {
+
+    /** EPC memory bank for {@link #setFilter}, same value as the SDK. */
+    int BANK_EPC = 1;
+    /** First bit of the EPC itself in the EPC bank, after CRC and PC. */
+    int EPC_START_BIT = 32;
+
+    boolean init();
+
+    boolean free();
+
+    boolean setPower(int power);
+
+    int getPower();
+
+    void setInventoryCallback(IUHFInventoryCallback callback);
+
+    boolean startInventoryTag();
+
+    boolean stopInventory();
+
+    UHFTAGInfo readTagFromBuffer();
+
+    /**
+     * Restricts inventory to tags whose {@code bank} holds {@code data} (hex)
+     * at bit {@code ptrBits}; the select happens in the module, not in software.
+     */
+    boolean setFilter(int bank, int ptrBits, int lenBits, String data);
+
+    boolean clearFilter();
+}
@@ -0,0 +1,73 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The validator runs once per read on the worker thread, so it must not
+ * allocate: neither for valid EPCs nor when it counts a rejection.
+ */
+public class EpcValidatorAllocationTest {
+
+    private static final int WARMUP_CALLS = 200_000;
+    private static final int MEASURED_CALLS = 100_000;
+    // Margen para el propio ThreadMXBean; muy por debajo de un byte por lectura
+    private static final long TOLERANCE_BYTES = 1024;
+
+    private static final String[] EPCS = {
+            "E28011606000020D8A3B4C5D",              // 96 bits, válido
+            "e28011606000020d8a3b4c5d6e7f8091",      // 128 bits, minúsculas
+            "000000000000000000000000",              // todo ceros
+            "E2801160600002ZZ8A3B4C5D",              // no hex
+            "E2801",                                 // longitud
+            "",
+            null,
+    };
+
+    @Test
+    public void checkDoesNotAllocatePerRead() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        EpcValidator validator = new EpcValidator();
+        long threadId = Thread.currentThread().getId();
+
+        int valid = run(validator, WARMUP_CALLS);
+        long before = threads.getThreadAllocatedBytes(threadId);
+        valid += run(validator, MEASURED_CALLS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated + " bytes allocated over " + MEASURED_CALLS + " checks", allocated < TOLERANCE_BYTES);
+        // El resultado se usa, y los rechazos se contaron
+        assertEquals(expectedValid(WARMUP_CALLS) + expectedValid(MEASURED_CALLS), valid);
+        assertEquals(WARMUP_CALLS + MEASURED_CALLS - valid, validator.getRejectedTotal());
+    }
+
+    private static long expectedValid(int calls) {
+        EpcValidator reference = new EpcValidator();
+        long valid = 0;
+        for (int i = 0; i < calls; i++) {
+            if (reference.isValid(EPCS[i % EPCS.length])) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static int run(EpcValidator validator, int calls) {
+        int valid = 0;
+        for (int i = 0; i < calls; i++) {
+            if (validator.check(EPCS[i % EPCS.length]) == EpcValidator.VALID) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+}
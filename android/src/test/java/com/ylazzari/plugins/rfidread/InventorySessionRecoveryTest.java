@@ -0,0 +1,83 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Journal replay and CSV export keep one entry per EPC, newest first, with
+ * the EPCs already seen held in an {@link EpcSet}.
+ */
+public class InventorySessionRecoveryTest {
+
+    private static final int TAGS = 300;
+    private static final int ROUNDS = 3;
+
+    private File directory;
+    private InventoryJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        PluginLog.setLevel(PluginLog.NONE);
+        directory = Files.createTempDirectory("rfid-journal").toFile();
+        journal = new InventoryJournal(directory);
+    }
+
+    @After
+    public void tearDown() {
+        journal.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void recoveryRestoresTheLatestStateOfEveryEpc() throws Exception {
+        InventorySession session = InventorySession.start(directory);
+        TagAggregator source = new TagAggregator();
+        source.setJournalTracking(true);
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < TAGS; i++) {
+                source.record(epc(i), "-55.5", "1", 1_700_000_000_000L + round);
+            }
+            for (TagAggregator.Entry entry : source.drainUnjournaled()) {
+                journal.append(entry);
+            }
+            if (round == 0) {
+                // Checkpoint tras la primera ronda; las demás quedan en la cola del journal
+                session.writeCheckpoint(source.snapshot(), journal.getRecordCount());
+            }
+        }
+
+        TagAggregator restored = new TagAggregator();
+        InventorySession.Recovery recovery = session.recover(journal, restored);
+
+        assertEquals(TAGS, recovery.uniqueCount);
+        assertEquals(TAGS * ROUNDS, recovery.totalReads);
+        for (TagAggregator.Entry entry : restored.snapshot()) {
+            assertEquals(ROUNDS, entry.count);
+            assertEquals(1_700_000_000_000L + ROUNDS - 1, entry.lastSeen);
+        }
+
+        File csv = new File(directory, "export.csv");
+        assertEquals(TAGS, journal.exportCsv(csv));
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        assertEquals(TAGS + 1, lines.size());
+        csv.delete();
+    }
+
+    private static String epc(int i) {
+        return String.format("E2801160%016X", (long) i * 2654435761L);
+    }
+}
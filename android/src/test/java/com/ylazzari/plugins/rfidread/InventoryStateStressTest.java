@@ -0,0 +1,202 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.rscja.deviceapi.entity.UHFTAGInfo;
+import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Start/stop storm against {@link InventoryState} and the found set, wired
+ * like the benchmark of the same name but with the simulated reader as the
+ * radio: its callback offers reads only while an inventory is active, the
+ * worker drains them into an {@link EpcSet}, control threads race starts and
+ * stops of random kinds and a status thread counts and clears the set.
+ */
+public class InventoryStateStressTest {
+
+    private static final InventoryState.Kind[] KINDS = InventoryState.Kind.values();
+    private static final int CONTROL_THREADS = 3;
+    private static final long RUN_MS = 1_500;
+    private static final int POPULATION = 2_000;
+
+    private final InventoryState state = new InventoryState();
+    private final EpcSet foundTags = new EpcSet();
+    private final AtomicInteger owners = new AtomicInteger();
+    private final AtomicInteger maxOwners = new AtomicInteger();
+    private final AtomicLong sessions = new AtomicLong();
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private SimulatedUhfReader reader;
+    private TagRingBuffer ring;
+    private InventoryWorker worker;
+
+    @Before
+    public void setUp() {
+        PluginLog.setLevel(PluginLog.NONE);
+    }
+
+    @After
+    public void tearDown() {
+        if (reader != null) {
+            reader.free();
+        }
+        if (worker != null) {
+            worker.stopAndDrain();
+        }
+    }
+
+    @Test
+    public void stormKeepsOneOwnerAndLosesNoReads() throws Exception {
+        SimulatedUhfReader.Config config = new SimulatedUhfReader.Config();
+        config.readsPerSecond = 20_000;
+        config.tagPopulation = POPULATION;
+        reader = new SimulatedUhfReader(config);
+        assertTrue(reader.init());
+
+        ring = new TagRingBuffer(1 << 16);
+        worker = new InventoryWorker(ring, (epc, rssi, antenna, timestamp) -> {
+            foundTags.add(epc);
+            delivered.incrementAndGet();
+        });
+        worker.start();
+
+        // Como RFIDPlugin: el callback sólo encola mientras hay un inventario activo
+        reader.setInventoryCallback(new IUHFInventoryCallback() {
+            @Override
+            public void callback(UHFTAGInfo tag) {
+                InventoryState.Kind kind = state.getKind();
+                if (kind != null && state.acceptsReads(kind)
+                        && ring.offer(tag.getEPC(), tag.getRssi(), tag.getAnt(), System.nanoTime())) {
+                    offered.incrementAndGet();
+                    worker.signal();
+                }
+            }
+        });
+        assertTrue(reader.startInventoryTag());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < CONTROL_THREADS; i++) {
+            threads.add(guarded("control-" + i, go, () -> {
+                while (running.get()) {
+                    control();
+                }
+            }));
+        }
+        threads.add(guarded("status", go, () -> {
+            while (running.get()) {
+                int count = foundTags.size();
+                assertTrue(count >= 0 && count <= POPULATION);
+                if ((count & 0xFF) == 0xFF) {
+                    foundTags.clear();
+                }
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        go.countDown();
+        Thread.sleep(RUN_MS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(5_000);
+            assertTrue(thread.getName() + " did not exit", !thread.isAlive());
+        }
+
+        assertTrue(reader.stopInventory());
+        assertTrue("worker did not exit", worker.stopAndDrain());
+
+        assertNull("exception in a storm thread: " + failure.get(), failure.get());
+        assertEquals(1, maxOwners.get());
+        assertTrue("no inventory was started", sessions.get() > 0);
+        assertEquals(0, ring.getDroppedCount());
+        assertEquals(offered.get(), delivered.get());
+        assertTrue("no reads while inventories were active", delivered.get() > 0);
+    }
+
+    @Test
+    public void concurrentAddsKeepEveryEpc() throws Exception {
+        String[] epcs = new String[POPULATION];
+        for (int i = 0; i < POPULATION; i++) {
+            epcs[i] = String.format("E280%020X", (long) i * 7919);
+        }
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * (POPULATION / 4);
+            threads.add(guarded("adder-" + t, go, () -> {
+                // Cada hilo recorre toda la población desde un punto distinto
+                for (int i = 0; i < POPULATION; i++) {
+                    foundTags.add(epcs[(offset + i) % POPULATION]);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        assertNull(failure.get());
+        assertEquals(POPULATION, foundTags.size());
+        for (String epc : epcs) {
+            assertTrue(epc, foundTags.contains(epc));
+        }
+    }
+
+    // Un ciclo de un hilo de control, con las mismas transiciones que RFIDPlugin
+    private void control() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        InventoryState.Kind kind = KINDS[random.nextInt(KINDS.length)];
+        if (random.nextBoolean()) {
+            if (!state.tryStart(kind)) {
+                return;
+            }
+            int current = owners.incrementAndGet();
+            maxOwners.accumulateAndGet(current, Math::max);
+            sessions.incrementAndGet();
+            if (random.nextInt(8) == 0) {
+                owners.decrementAndGet();
+                state.startFailed(kind);
+                return;
+            }
+            state.started(kind);
+            return;
+        }
+        if (state.requestStop(kind)) {
+            owners.decrementAndGet();
+            state.stopped(kind);
+        }
+    }
+
+    private Thread guarded(String name, CountDownLatch go, Runnable body) {
+        return new Thread(() -> {
+            try {
+                go.await();
+                body.run();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }, name);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InventoryWorkerTest {
+
+    @Before
+    public void setUp() {
+        PluginLog.setLevel(PluginLog.NONE);
+    }
+
+    @Test
+    public void workerStuckInHandlerStaysTheConsumerUntilItExits() throws Exception {
+        TagRingBuffer ring = new TagRingBuffer(64);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger handled = new AtomicInteger();
+        InventoryWorker worker = new InventoryWorker(ring, (epc, rssi, antenna, timestamp) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.incrementAndGet();
+        });
+        worker.start();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ring.offer("E2000000000000000000000" + i, "-50", "1", i));
+        }
+        worker.signal();
+        assertTrue(entered.await(1, TimeUnit.SECONDS));
+
+        // Un handler bloqueado mantiene vivo el hilo más allá del timeout de parada
+        assertFalse(worker.stopAndDrain());
+        assertFalse(worker.awaitExit(50));
+
+        release.countDown();
+        assertTrue(worker.awaitExit(1_000));
+        assertEquals(10, handled.get());
+        assertTrue(ring.isEmpty());
+    }
+}
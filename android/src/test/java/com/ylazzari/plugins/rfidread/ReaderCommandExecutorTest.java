@@ -0,0 +1,75 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReaderCommandExecutorTest {
+
+    private final ReaderCommandExecutor executor = new ReaderCommandExecutor();
+
+    @Before
+    public void setUp() {
+        PluginLog.setLevel(PluginLog.NONE);
+    }
+
+    @Test
+    public void stopRunsBetweenDelayedPolls() throws Exception {
+        // Un sondeo que se vuelve a encolar durante 1 s, como readBufferedTags con timeoutMs
+        final long pollUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        final AtomicInteger polls = new AtomicInteger();
+        final CountDownLatch pollsDone = new CountDownLatch(1);
+        ReaderCommandExecutor.Callback<Boolean> pollCallback = new ReaderCommandExecutor.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean more) {
+                if (!more) {
+                    pollsDone.countDown();
+                }
+            }
+
+            @Override
+            public void onError(String message, Exception e) {
+                pollsDone.countDown();
+            }
+        };
+        ReaderCommandExecutor.Task<Boolean> poll = new ReaderCommandExecutor.Task<Boolean>() {
+            @Override
+            public Boolean run() {
+                polls.incrementAndGet();
+                if (System.nanoTime() >= pollUntil) {
+                    return false;
+                }
+                executor.submitAfter(5, ReaderCommandExecutor.Priority.BACKGROUND, null, 1_000, this, pollCallback);
+                return true;
+            }
+        };
+        executor.submit(ReaderCommandExecutor.Priority.COMMAND, null, 1_000, poll, pollCallback);
+        Thread.sleep(100);
+
+        final CountDownLatch stopped = new CountDownLatch(1);
+        long start = System.nanoTime();
+        executor.submit(ReaderCommandExecutor.Priority.STOP, null, 1_000, () -> {
+            stopped.countDown();
+            return null;
+        }, new ReaderCommandExecutor.Callback<Object>() {
+            @Override
+            public void onResult(Object result) {
+            }
+
+            @Override
+            public void onError(String message, Exception e) {
+            }
+        });
+        assertTrue(stopped.await(1, TimeUnit.SECONDS));
+        long stopMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("stop waited " + stopMs + " ms for the polls", stopMs < 200);
+
+        assertTrue(pollsDone.await(2, TimeUnit.SECONDS));
+        assertTrue("polls " + polls.get(), polls.get() > 10);
+    }
+}
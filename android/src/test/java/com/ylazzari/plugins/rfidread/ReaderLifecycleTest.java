@@ -0,0 +1,86 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReaderLifecycleTest {
+
+    private final CountDownLatch powering = new CountDownLatch(1);
+    private final CountDownLatch powerUpDone = new CountDownLatch(1);
+    private final AtomicInteger powerDowns = new AtomicInteger();
+    private final ExecutorService readerThread = Executors.newSingleThreadExecutor();
+
+    private final ReaderLifecycle lifecycle = new ReaderLifecycle(new ReaderLifecycle.Hooks() {
+        @Override
+        public boolean powerUp() {
+            powering.countDown();
+            try {
+                return powerUpDone.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public void powerDown() {
+            powerDowns.incrementAndGet();
+        }
+    }, readerThread);
+
+    @Before
+    public void setUp() {
+        PluginLog.setLevel(PluginLog.NONE);
+    }
+
+    @Test
+    public void gettersDoNotWaitForAPowerUp() throws Exception {
+        Future<Boolean> acquired = readerThread.submit(lifecycle::acquire);
+        assertTrue(powering.await(1, TimeUnit.SECONDS));
+
+        // Con el encendido en curso los getters responden sin esperar al UART
+        long start = System.nanoTime();
+        assertEquals(ReaderLifecycle.State.COLD, lifecycle.getState());
+        assertFalse(lifecycle.wasLastAcquireWarm());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+
+        powerUpDone.countDown();
+        assertTrue(acquired.get(1, TimeUnit.SECONDS));
+        assertEquals(ReaderLifecycle.State.INVENTORYING, lifecycle.getState());
+        readerThread.shutdown();
+    }
+
+    @Test
+    public void idleTimeoutPowersDownOnTheReaderExecutor() throws Exception {
+        powerUpDone.countDown();
+        readerThread.submit(() -> {
+            lifecycle.setIdleTimeoutMs(20);
+            assertTrue(lifecycle.acquire());
+            lifecycle.release();
+        }).get(1, TimeUnit.SECONDS);
+        assertEquals(ReaderLifecycle.State.WARM, lifecycle.getState());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (lifecycle.getState() != ReaderLifecycle.State.COLD && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(ReaderLifecycle.State.COLD, lifecycle.getState());
+        assertEquals(1, powerDowns.get());
+
+        // Tras el apagado el siguiente acquire vuelve a ser en frío
+        readerThread.submit(lifecycle::acquire).get(1, TimeUnit.SECONDS);
+        assertFalse(lifecycle.wasLastAcquireWarm());
+        readerThread.shutdown();
+    }
+}
@@ -0,0 +1,169 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.rscja.deviceapi.entity.UHFTAGInfo;
+import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the inventory pipeline the way RFIDPlugin wires it, with the
+ * simulated reader instead of the Chainway module: SDK callback ->
+ * {@link TagRingBuffer} -> {@link InventoryWorker} -> validation ->
+ * {@link TagAggregator} and {@link TagBatcher}.
+ *
+ * Thresholds are loose on purpose so a loaded CI machine passes; a real
+ * regression (a blocking callback, a lost read) still fails them.
+ */
+public class SimulatedInventoryPipelineTest {
+
+    private static final int READS_PER_SECOND = 10_000;
+    private static final long RUN_MS = 2_000;
+    private static final int POPULATION = 500;
+    private static final long BATCH_DELAY_MS = 50;
+
+    private SimulatedUhfReader reader;
+    private TagRingBuffer ring;
+    private InventoryWorker worker;
+    private TagBatcher batcher;
+
+    private final EpcValidator validator = new EpcValidator();
+    private final TagAggregator aggregator = new TagAggregator();
+    private final LatencyHistogram emitLatency = new LatencyHistogram();
+    private final AtomicLong callbacks = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong batchedReads = new AtomicLong();
+
+    @Before
+    public void setUp() {
+        PluginLog.setLevel(PluginLog.NONE);
+    }
+
+    @After
+    public void tearDown() {
+        if (reader != null) {
+            reader.free();
+        }
+        if (worker != null) {
+            worker.stopAndDrain();
+        }
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void sustainsTenThousandReadsPerSecondWithoutLoss() throws Exception {
+        start(READS_PER_SECOND, 0, 0, 4096, this::process);
+
+        long startNanos = System.nanoTime();
+        Thread.sleep(RUN_MS);
+        assertTrue(reader.stopInventory());
+        long elapsedNanos = System.nanoTime() - startNanos;
+        assertTrue("worker did not exit", worker.stopAndDrain());
+        batcher.flush();
+
+        long generated = reader.getGeneratedCount();
+        double readsPerSecond = processed.get() * 1e9 / elapsedNanos;
+
+        assertEquals(0, ring.getDroppedCount());
+        assertTrue(ring.isEmpty());
+        assertEquals(generated, callbacks.get());
+        assertEquals(callbacks.get(), processed.get());
+        assertTrue("throughput " + readsPerSecond + " reads/s", readsPerSecond >= READS_PER_SECOND * 0.8);
+
+        // Cada lectura llega una vez al agregador y una vez a un lote
+        assertEquals(processed.get(), aggregator.getTotalReads());
+        assertEquals(POPULATION, aggregator.size());
+        assertEquals(processed.get(), batchedReads.get());
+        assertEquals(processed.get(), batcher.getTotalReads());
+
+        // Latencia callback -> lote: acotada por maxDelayMs más el salto al worker
+        assertEquals(processed.get(), emitLatency.getCount());
+        double p99 = emitLatency.getPercentileMillis(99);
+        assertTrue("p99 callback-to-batch latency " + p99 + " ms", p99 <= BATCH_DELAY_MS + 150);
+    }
+
+    @Test
+    public void burstsOverflowingTheRingAreCountedNotLost() throws Exception {
+        // Ráfagas de 10k lecturas/s contra un ring de 64 con un consumidor lento
+        start(READS_PER_SECOND, 200, 100, 64, (epc, rssi, antenna, timestamp) -> {
+            // Unos 5k lecturas/s: la mitad de la tasa de la ráfaga
+            LockSupport.parkNanos(200_000);
+            process(epc, rssi, antenna, timestamp);
+        });
+
+        Thread.sleep(600);
+        reader.stopInventory();
+        assertTrue("worker did not exit", worker.stopAndDrain());
+        batcher.flush();
+
+        assertTrue("expected drops with a 64-slot ring", ring.getDroppedCount() > 0);
+        assertEquals(callbacks.get(), processed.get() + ring.getDroppedCount());
+        assertEquals(processed.get(), aggregator.getTotalReads());
+        assertEquals(processed.get(), batchedReads.get());
+    }
+
+    @Test
+    public void stopDrainsEveryQueuedRead() throws Exception {
+        start(READS_PER_SECOND, 0, 0, 4096, this::process);
+        Thread.sleep(300);
+        reader.stopInventory();
+        assertTrue(worker.stopAndDrain());
+
+        assertTrue(ring.isEmpty());
+        assertEquals(callbacks.get(), processed.get());
+        assertEquals(aggregator.getTotalReads(), aggregator.getSessionReads());
+    }
+
+    private void start(int readsPerSecond, long burstOnMs, long burstOffMs, int ringCapacity,
+                       TagRingBuffer.Handler handler) {
+        SimulatedUhfReader.Config config = new SimulatedUhfReader.Config();
+        config.readsPerSecond = readsPerSecond;
+        config.tagPopulation = POPULATION;
+        config.burstOnMs = burstOnMs;
+        config.burstOffMs = burstOffMs;
+        reader = new SimulatedUhfReader(config);
+        assertTrue(reader.init());
+
+        ring = new TagRingBuffer(ringCapacity);
+        batcher = new TagBatcher(100, BATCH_DELAY_MS, (epcs, rssis, timestamps, count) -> {
+            long now = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                emitLatency.recordNanos(now - timestamps[i]);
+            }
+            batchedReads.addAndGet(count);
+        });
+        aggregator.beginSession();
+        worker = new InventoryWorker(ring, handler);
+        worker.start();
+
+        // Como RFIDPlugin.enqueueRead: el callback sólo copia la lectura al ring
+        reader.setInventoryCallback(new IUHFInventoryCallback() {
+            @Override
+            public void callback(UHFTAGInfo tag) {
+                callbacks.incrementAndGet();
+                if (ring.offer(tag.getEPC(), tag.getRssi(), tag.getAnt(), System.nanoTime())) {
+                    worker.signal();
+                }
+            }
+        });
+        assertTrue(reader.startInventoryTag());
+    }
+
+    private void process(String epc, String rssi, String antenna, long timestamp) {
+        if (!validator.isValid(epc)) {
+            return;
+        }
+        aggregator.record(epc, rssi, antenna, timestamp);
+        batcher.add(epc, rssi, timestamp);
+        processed.incrementAndGet();
+    }
+}
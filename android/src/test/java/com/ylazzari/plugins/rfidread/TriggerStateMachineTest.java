@@ -0,0 +1,57 @@
+package com.ylazzari.plugins.rfidread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class TriggerStateMachineTest {
+
+    private static final int SOURCE = 0x101;
+
+    @Test
+    public void copiesOfOnePressAreIgnored() {
+        TriggerStateMachine trigger = new TriggerStateMachine(5000);
+        assertEquals(TriggerStateMachine.PRESSED, trigger.onDown(1000, SOURCE, 0));
+        assertEquals(TriggerStateMachine.IGNORED, trigger.onDown(1000, SOURCE, 10));
+        assertEquals(TriggerStateMachine.RELEASED, trigger.onUp(1000, SOURCE));
+        assertEquals(TriggerStateMachine.IGNORED, trigger.onDown(1000, SOURCE, 20));
+        assertEquals(2, trigger.getDuplicateCount());
+    }
+
+    @Test
+    public void fallbackDownDuringLongIdentifiedHoldIsIgnored() {
+        TriggerStateMachine trigger = new TriggerStateMachine(5000);
+        assertEquals(TriggerStateMachine.PRESSED, trigger.onDown(1000, SOURCE, 0));
+        // El watchdog / ContentObserver informa la misma pulsación sin identidad, 8 s después
+        assertEquals(TriggerStateMachine.IGNORED, trigger.onDown(0, 0, 8000));
+        assertEquals(TriggerStateMachine.RELEASED, trigger.onUp(1000, SOURCE));
+        assertFalse(trigger.isPressed());
+    }
+
+    @Test
+    public void identifiedDownAdoptsFallbackPress() {
+        TriggerStateMachine trigger = new TriggerStateMachine(5000);
+        assertEquals(TriggerStateMachine.PRESSED, trigger.onDown(0, 0, 0));
+        assertEquals(TriggerStateMachine.IGNORED, trigger.onDown(1000, SOURCE, 30));
+        assertEquals(TriggerStateMachine.IGNORED, trigger.onDown(0, 0, 9000));
+        assertEquals(TriggerStateMachine.RELEASED, trigger.onUp(0, 0));
+    }
+
+    @Test
+    public void stuckIdentityLessPressResetsAfterTimeout() {
+        TriggerStateMachine trigger = new TriggerStateMachine(5000);
+        assertEquals(TriggerStateMachine.PRESSED, trigger.onDown(0, 0, 0));
+        assertEquals(TriggerStateMachine.IGNORED, trigger.onDown(0, 0, 1000));
+        assertEquals(TriggerStateMachine.RESET_THEN_PRESSED, trigger.onDown(0, 0, 6000));
+        assertEquals("timeout", trigger.getLastResetReason());
+    }
+
+    @Test
+    public void newerIdentifiedDownResetsMissedRelease() {
+        TriggerStateMachine trigger = new TriggerStateMachine(5000);
+        assertEquals(TriggerStateMachine.PRESSED, trigger.onDown(1000, SOURCE, 0));
+        assertEquals(TriggerStateMachine.RESET_THEN_PRESSED, trigger.onDown(2000, SOURCE, 100));
+        assertEquals("missedRelease", trigger.getLastResetReason());
+    }
+}
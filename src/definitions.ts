@@ -1,3 +1,405 @@
+export interface BatchOptions {
+  /**
+   * Maximum number of reads per `tagBatch` event.
+   * @default 100
+   */
+  maxTags?: number;
+  /**
+   * Maximum time in milliseconds a read waits before its batch is emitted.
+   * @default 100
+   */
+  maxDelayMs?: number;
+  /**
+   * `json` emits `tagBatch` with one object per read. `compact` emits `tagBatchCompact`,
+   * one base64 block per batch with numeric RSSI; decode it with `decodeCompactTagBatch`.
+   * @default 'json'
+   */
+  format?: 'json' | 'compact';
+  /**
+   * Flow control: each batch carries a `seq` and holds a credit until JS calls
+   * `ackTagBatch({ seq })`. While no credit is free reads are merged natively
+   * (latest read per EPC), so a slow listener gets fewer, larger batches instead
+   * of an ever-growing bridge queue. Unacknowledged batches expire after 5 s.
+   * @default false
+   */
+  ack?: boolean;
+  /**
+   * Batches that may be awaiting an ack at the same time.
+   * @default 2
+   */
+  window?: number;
+  /**
+   * Maximum reads (distinct EPCs once merging) held while JS is behind; the rest are dropped.
+   * @default 2048
+   */
+  maxPending?: number;
+}
+
+export interface StartReadingOptions {
+  /**
+   * Enables batched delivery through the `tagBatch` event.
+   */
+  batch?: BatchOptions;
+  /**
+   * Aggregates reads by EPC natively and emits only changed entries through
+   * periodic `inventoryDelta` events. Raw reads are not emitted in this mode.
+   */
+  aggregate?: AggregateOptions;
+}
+
+export interface AggregateOptions {
+  /**
+   * Interval in milliseconds between `inventoryDelta` events.
+   * @default 250
+   */
+  deltaIntervalMs?: number;
+}
+
+export interface InventoryEntry {
+  epc: string;
+  count: number;
+  rssiMin?: number;
+  rssiMax?: number;
+  rssiAvg?: number;
+  antenna?: string;
+  firstSeen: number;
+  lastSeen: number;
+}
+
+export interface ReadBufferedTagsOptions {
+  /** Maximum raw reads to take from the buffer (1-10000). Default 500. */
+  max?: number;
+  /**
+   * Milliseconds to keep waiting for new reads until `max` is reached (up to 5000).
+   * The buffer is re-polled every 5 ms without holding the reader, so stops and other commands still run.
+   * Default 0: return as soon as the buffer is empty.
+   */
+  timeoutMs?: number;
+  /** One entry per EPC with its latest read and `count`. */
+  dedupe?: boolean;
+  /** One aggregated entry per EPC, as in `getInventorySnapshot()`. Takes precedence over `dedupe`. */
+  aggregate?: boolean;
+}
+
+export interface BufferedTag {
+  epc: string;
+  rssi: string;
+  antenna?: string;
+  timestamp: number;
+  /** Reads of this EPC, only with `dedupe`. */
+  count?: number;
+}
+
+export interface InventoryDeltaEvent {
+  entries: InventoryEntry[];
+  count: number;
+  uniqueCount: number;
+  totalReads: number;
+  timestamp: number;
+}
+
+export interface EpcValidationOptions {
+  /**
+   * Minimum EPC length in hex characters.
+   * @default 4
+   */
+  minLength?: number;
+  /**
+   * Maximum EPC length in hex characters (at most 124).
+   * @default 124
+   */
+  maxLength?: number;
+  /**
+   * Require the EPC length to be a multiple of 4 hex characters (16-bit words).
+   * @default true
+   */
+  requireWordAligned?: boolean;
+  /**
+   * Reject EPCs made only of zeros.
+   * @default true
+   */
+  rejectAllZero?: boolean;
+}
+
+export type ReaderState = 'COLD' | 'WARM' | 'INVENTORYING';
+
+export interface SessionLatency {
+  /**
+   * Whether the last session found the reader already powered.
+   */
+  warmStart?: boolean;
+  /**
+   * Time spent powering the reader at session start.
+   */
+  startupMs?: number;
+  /**
+   * Time from the start call to the first tag delivered by the SDK.
+   */
+  startToFirstTagMs?: number;
+}
+
+export interface LatencyStats {
+  count: number;
+  p50: number;
+  p95: number;
+  p99: number;
+  max: number;
+  mean: number;
+}
+
+export interface AdaptivePowerOptions {
+  /** `false` returns to a fixed power. @default true */
+  enabled?: boolean;
+  /**
+   * `zone` keeps reads between `minRssi` and `maxRssi`, lowering power when reads fall below
+   * `minRssi` (neighbouring shelves). `discovery` maximizes new unique EPCs per second.
+   * @default 'zone'
+   */
+  goal?: 'zone' | 'discovery';
+  /** Power bounds, within 5-30. */
+  minPower?: number;
+  maxPower?: number;
+  /** Power change per adjustment. @default 2 */
+  step?: number;
+  /** Read zone in dBm for `zone`. @default -70 / -40 */
+  minRssi?: number;
+  maxRssi?: number;
+  /** Time between evaluations, min 250 ms. @default 1000 */
+  intervalMs?: number;
+}
+
+export interface PowerDecision {
+  timestamp: number;
+  fromPower: number;
+  toPower: number;
+  /** false when the reader rejected the new power. */
+  applied: boolean;
+  reason: string;
+  readsPerSecond: number;
+  newTagsPerSecond: number;
+  rssiP10?: number;
+  rssiMedian?: number;
+  /** Fraction of reads below `minRssi`. */
+  weakFraction: number;
+}
+
+export interface PerformanceStats {
+  success: boolean;
+  /**
+   * Number of timelines that reached the first emitted event.
+   */
+  sessions: number;
+  /**
+   * Latency in milliseconds between consecutive stages of the trigger-to-first-read path.
+   */
+  intervals: {
+    keyToTrigger: LatencyStats;
+    triggerToInventory: LatencyStats;
+    inventoryToFirstCallback: LatencyStats;
+    firstCallbackToEmit: LatencyStats;
+    total: LatencyStats;
+  };
+  /**
+   * Adaptive power controller state and its most recent decisions (up to 32).
+   */
+  powerControl: {
+    enabled: boolean;
+    running: boolean;
+    power?: number;
+    decisionCount: number;
+    decisions: PowerDecision[];
+  };
+  /**
+   * Counters of the reader command thread, which runs every SDK call.
+   */
+  readerCommands: ReaderCommandStats;
+}
+
+export interface ReaderCommandStats {
+  /** Commands waiting for the reader thread. */
+  pending: number;
+  executed: number;
+  /** setPower calls merged into a queued one. */
+  coalesced: number;
+  /** Commands whose promise was rejected by their timeout. */
+  timedOut: number;
+  /** Commands dropped because they timed out before reaching the reader. */
+  expired: number;
+  /** Queued starts removed by a stop. */
+  cancelled: number;
+  failed: number;
+  /** Longest single command, in milliseconds. */
+  maxRunMs: number;
+}
+
+export interface PerfSampleEvent {
+  keyToTriggerMs?: number;
+  triggerToInventoryMs?: number;
+  inventoryToFirstCallbackMs?: number;
+  firstCallbackToEmitMs?: number;
+  totalMs: number;
+  timestamp: number;
+}
+
+export interface TagBatchEvent {
+  tags: { epc: string; rssi: string; timestamp: number }[];
+  count: number;
+  /** Present with `batch.ack`; pass it to `ackTagBatch`. */
+  seq?: number;
+  timestamp: number;
+}
+
+export interface CompactTagBatchEvent {
+  /** Base64 block, see `CompactTagEncoder.java` for the layout. */
+  data: string;
+  count: number;
+  /** Timestamp of the first read; records carry their offset from it. */
+  baseTimestamp: number;
+  version: number;
+  /** Present with `batch.ack`; pass it to `ackTagBatch`. */
+  seq?: number;
+  timestamp: number;
+}
+
+export interface FlowControlStats {
+  /** Reads waiting for a credit. */
+  queueDepth: number;
+  /** Batches emitted and not yet acknowledged. */
+  inFlight: number;
+  window: number;
+  /** Current batch size and cadence after adapting to the ack round trip. */
+  maxTags: number;
+  delayMs: number;
+  ackRttMs: number;
+  readsPerSecond: number;
+  /** true while reads are being merged by EPC because JS is behind. */
+  overloaded: boolean;
+  totalReads: number;
+  batches: number;
+  ackedBatches: number;
+  mergedCount: number;
+  droppedCount: number;
+  ackTimeouts: number;
+  overloadEpisodes: number;
+}
+
+export interface CompactTagRead {
+  epc: string;
+  /** dBm with two decimals, `null` when the reader gave none. */
+  rssi: number | null;
+  timestamp: number;
+}
+
+export interface SimulatorOptions {
+  /** Distinct EPCs in the simulated field. @default 200 */
+  tagPopulation?: number;
+  /** Reads per second while a burst is on. @default 1000 */
+  readsPerSecond?: number;
+  /** @default -55 */
+  rssiMean?: number;
+  /** @default 6 */
+  rssiStdDev?: number;
+  /** Burst pattern; reads are continuous unless both are set. */
+  burstOnMs?: number;
+  burstOffMs?: number;
+  /** Same seed, same EPC/RSSI sequence. @default 42 */
+  seed?: number;
+  /** Simulated module power-up time. @default 0 */
+  startupDelayMs?: number;
+}
+
+export type LogLevel = 'verbose' | 'debug' | 'info' | 'warn' | 'error' | 'none';
+
+export interface InfoWedgeMonitoringStats {
+  /** Polling currently running (foreground and accessibility service disabled). */
+  active: boolean;
+  /** CPU time spent probing the key state since the fallback was created. */
+  cpuTimeMs: number;
+  ticks: number;
+  stateChanges: number;
+  /** Current polling interval; grows while the trigger is idle, up to `maxIntervalMs`. */
+  intervalMs: number;
+  /** Idle interval cap. A trigger pull shorter than the current interval is not detected. */
+  maxIntervalMs: number;
+  /** Key services and content providers found on this device. */
+  probeCount: number;
+}
+
+export interface InventoryJournalStats {
+  enabled: boolean;
+  /** Records appended since the journal was last cleared (one per changed entry per flush). */
+  records: number;
+  segments: number;
+  bytes: number;
+  /** Entries not journaled because their EPC is longer than 128 bits. */
+  skippedCount: number;
+  /** Current inventory session, `null` until the journal is first enabled. */
+  sessionId: string | null;
+  /** Journal records covered by the last checkpoint (recovery only replays the ones after it). */
+  checkpointRecords: number;
+  /** A session was rebuilt in `load()` and is waiting for `resumeSession()`. */
+  recoverable: boolean;
+}
+
+export interface SessionRecovery {
+  sessionId: string;
+  uniqueCount: number;
+  totalReads: number;
+  /** Entries loaded from the last checkpoint. */
+  checkpointEntries: number;
+  /** Journal records written after that checkpoint. */
+  replayedRecords: number;
+  /** Time taken to rebuild the aggregated state. */
+  recoveryMs: number;
+}
+
+export interface LocateOptions {
+  /** EPC to find. */
+  epc: string;
+  /** Cadence of `locateUpdate` events (default 100, minimum 20). */
+  intervalMs?: number;
+  /** Smoothed RSSI mapped to proximity 0 (default -80). */
+  minRssi?: number;
+  /** Smoothed RSSI mapped to proximity 100 (default -30). */
+  maxRssi?: number;
+  /** Without reads for this long the tag is reported out of range (default 1000). */
+  lostAfterMs?: number;
+}
+
+export interface LocateUpdate {
+  epc: string;
+  /** 0 (out of range / far) to 100 (on top of the tag). */
+  proximity: number;
+  inRange: boolean;
+  /** Smoothed RSSI in dBm, only while in range. */
+  rssi?: number;
+  /** Last raw RSSI read. */
+  rawRssi?: number;
+  /** Reads of the target since the previous update. */
+  readsPerSecond: number;
+  reads: number;
+  timestamp: number;
+}
+
+export type TriggerModeName = 'none' | 'holdToRead' | 'toggle';
+
+export interface TriggerModeOptions extends StartReadingOptions {
+  /**
+   * `holdToRead` reads while the trigger is held, `toggle` starts/stops on each press,
+   * `none` leaves it to JS through `triggerPressed` / `triggerReleased`.
+   */
+  mode: TriggerModeName;
+}
+
+export interface TriggerReadingEvent {
+  mode: TriggerModeName;
+  success: boolean;
+  message: string;
+  warmStart?: boolean;
+  startupMs?: number;
+  droppedCount?: number;
+}
+
 export interface RFIDPluginPlugin {
   /**
    * Inicializa el lector RFID.
@@ -10,12 +412,17 @@ export interface RFIDPluginPlugin {
   }>;
   /**
    * Inicia la lectura continua de tags RFID.
+   * Con `batch` las lecturas se agrupan en el lado nativo y se emiten como
+   * eventos `tagBatch` en lugar de un `tagFound` por lectura.
+   * @param options Configuración opcional del modo por lotes
    * @returns Promise con el resultado del inicio de lectura
    * @since 1.0.0
    */
-  startReading(): Promise<{
+  startReading(options?: StartReadingOptions): Promise<{
     success: boolean;
     message: string;
+    warmStart?: boolean;
+    startupMs?: number;
   }>;
   /**
    * Detiene la lectura de tags RFID.
@@ -25,6 +432,73 @@ export interface RFIDPluginPlugin {
   stopReading(): Promise<{
     success: boolean;
     message: string;
+    /** Valid reads of this session, including the ones flushed during the stop. */
+    totalReads?: number;
+    /** Distinct EPCs of this session; only when reads were aggregated (`aggregate` or the journal). */
+    uniqueCount?: number;
+    /** Reads still in flight when the module stopped, delivered through the pipeline during the stop. */
+    flushedCount?: number;
+    /** Reads left queued for a worker that did not exit in time; it still delivers them after the stop resolves. */
+    undrainedCount?: number;
+    droppedCount?: number;
+    /** true when the stop also cancelled a start that was still queued. */
+    cancelledStart?: boolean;
+    /** Final flow control counters when `batch.ack` was used. */
+    flowControl?: FlowControlStats;
+  } & SessionLatency>;
+  /**
+   * Confirma un lote recibido con `batch.ack` y libera su crédito. Llamarlo cuando
+   * el listener terminó de procesar el lote, no al recibirlo.
+   * @param options `seq` del lote; `window` cambia los lotes en vuelo permitidos
+   * @since 1.1.0
+   */
+  ackTagBatch(options: { seq: number; window?: number }): Promise<{ success: boolean }>;
+  /**
+   * Estado del control de flujo de la sesión actual, o de la última si no hay lectura.
+   * @since 1.1.0
+   */
+  getFlowControlStats(): Promise<{ success: boolean; active: boolean } & Partial<FlowControlStats>>;
+  /**
+   * Tiempo que el lector permanece encendido después de `stopReading` antes de liberarlo.
+   * Mientras está caliente, un nuevo `startReading` no paga el encendido del módulo.
+   * Con 0 el lector se libera inmediatamente al detener la lectura.
+   * @param options Timeout en milisegundos (por defecto 30000)
+   * @since 1.1.0
+   */
+  setReaderIdleTimeout(options: { idleTimeoutMs: number }): Promise<{
+    success: boolean;
+    idleTimeoutMs: number;
+    readerState: ReaderState;
+  }>;
+  /**
+   * Hace que el gatillo inicie y detenga el inventario de forma nativa, sin esperar
+   * el round-trip a JS. Los eventos `triggerReadingStarted` / `triggerReadingStopped`
+   * informan el resultado después del hecho.
+   * @param options Modo y opciones de lectura (`batch` / `aggregate`) para cada inventario
+   * @since 1.1.0
+   */
+  setTriggerMode(options: TriggerModeOptions): Promise<{
+    success: boolean;
+    mode: TriggerModeName;
+  }>;
+  /**
+   * Cambia el lector usado por el plugin. `simulator` reproduce una población de tags
+   * sintética para pruebas de carga sin un dispositivo Chainway.
+   * No se puede cambiar durante la lectura.
+   * @since 1.1.0
+   */
+  setReaderBackend(options: { backend: 'chainway' | 'simulator'; simulator?: SimulatorOptions }): Promise<{
+    success: boolean;
+    backend: string;
+  }>;
+  /**
+   * Nivel de log nativo del plugin (por defecto `info`). Con `info` o superior
+   * las rutas por tecla y por tag no construyen mensajes de log.
+   * @since 1.1.0
+   */
+  setLogLevel(options: { level: LogLevel }): Promise<{
+    success: boolean;
+    level: LogLevel;
   }>;
   /**
    * Obtiene el ID del dispositivo.
@@ -55,7 +529,22 @@ export interface RFIDPluginPlugin {
     power: number;
   }>;
   /**
-   * Libera los recursos del lector RFID.
+   * Ajusta la potencia automáticamente durante `startReading` / `startFilteredReading` según
+   * el RSSI y la tasa de EPCs nuevos. Las decisiones se ven en `getPerformanceStats().powerControl`.
+   * Un `setPower` manual pasa a ser el punto de partida del ajuste.
+   * @since 1.1.0
+   */
+  setAdaptivePower(options: AdaptivePowerOptions): Promise<{
+    success: boolean;
+    enabled: boolean;
+    goal?: 'zone' | 'discovery';
+    minPower?: number;
+    maxPower?: number;
+    /** true when an inventory was already running and the controller started right away. */
+    running?: boolean;
+  }>;
+  /**
+   * Libera los recursos del lector RFID. Cancela los inicios en cola y detiene el inventario activo, sea cual sea.
    * @returns Promise con el resultado de la liberación
    * @since 1.0.0
    */
@@ -73,6 +562,24 @@ export interface RFIDPluginPlugin {
     success: boolean;
     message?: string;
   }>;
+  /**
+   * Drains up to `max` tags from the reader buffer natively and returns them in one call,
+   * instead of one `getInventoryTag()` round trip per tag. Rejected while an inventory is active.
+   * @since 1.1.0
+   */
+  readBufferedTags(options?: ReadBufferedTagsOptions): Promise<{
+    success: boolean;
+    /** `InventoryEntry[]` with `aggregate`, `BufferedTag[]` otherwise. */
+    tags: BufferedTag[] | InventoryEntry[];
+    count: number;
+    /** Raw reads taken from the buffer, including rejected ones. */
+    reads: number;
+    /** Reads discarded by the EPC validation rules. */
+    rejectedCount: number;
+    /** true when `max` was reached; the buffer may hold more. */
+    more: boolean;
+    drainMs: number;
+  }>;
   /**
    * Obtiene el estado actual del inventario.
    * @returns Promise con el estado del inventario
@@ -80,7 +587,84 @@ export interface RFIDPluginPlugin {
    */
   getInventoryStatus(): Promise<{
     isRunning: boolean;
+    rejectedCount?: number;
+    droppedCount?: number;
+    bufferHighWaterMark?: number;
+    bufferCapacity?: number;
+    readerState?: ReaderState;
+    success: boolean;
+  } & SessionLatency>;
+  /**
+   * Devuelve percentiles (p50/p95/p99) de cada etapa del camino gatillo -> primer evento:
+   * tecla interceptada, gatillo aceptado, inventario iniciado, primer callback del SDK y primer evento emitido.
+   * @param options `reset` reinicia los histogramas después de devolverlos
+   * @since 1.1.0
+   */
+  getPerformanceStats(options?: { reset?: boolean }): Promise<PerformanceStats>;
+  /**
+   * Activa o desactiva el evento `perfSample`, emitido con la timeline de cada sesión.
+   * @since 1.1.0
+   */
+  setPerformanceSampling(options: { enabled: boolean }): Promise<{
+    success: boolean;
+    enabled: boolean;
+  }>;
+  /**
+   * Configura las reglas de validación aplicadas a cada EPC leído antes de procesarlo.
+   * Las lecturas rechazadas se descartan en el lado nativo sin generar eventos.
+   * @param options Reglas de validación; las omitidas conservan su valor actual
+   * @returns Promise con las reglas aplicadas
+   * @since 1.1.0
+   */
+  setEpcValidation(options: EpcValidationOptions): Promise<{
+    success: boolean;
+    minLength: number;
+    maxLength: number;
+    requireWordAligned: boolean;
+    rejectAllZero: boolean;
+    previousRejectedCount: number;
+  }>;
+  /**
+   * Obtiene el inventario agregado por EPC de todas las lecturas desde el último clear.
+   * @param options `clear` vacía el inventario agregado después de devolverlo
+   * @returns Promise con las entradas agregadas
+   * @since 1.1.0
+   */
+  getInventorySnapshot(options?: { clear?: boolean }): Promise<{
+    success: boolean;
+    entries: InventoryEntry[];
+    uniqueCount: number;
+    totalReads: number;
+  }>;
+  /**
+   * Activa o desactiva el journal en disco del inventario agregado. Los cambios se escriben
+   * cada 500 ms y al detener la lectura, y sobreviven a que Android mate la app.
+   * `getInventorySnapshot({ clear: true })` también vacía el journal.
+   * @since 1.1.0
+   */
+  setInventoryJournal(options: { enabled: boolean }): Promise<{ success: boolean } & InventoryJournalStats>;
+  /**
+   * Continúa la sesión de inventario que Android cortó al matar la app. El plugin la reconstruye en
+   * `load()` desde el último checkpoint más el final del journal y emite `sessionRecovered`; esta llamada
+   * vuelve a activar el journal sobre ella. Sin sesión pendiente devuelve `resumed: false`.
+   * `getInventorySnapshot({ clear: true })` la descarta.
+   * @since 1.1.0
+   */
+  resumeSession(): Promise<
+    | ({ success: boolean; resumed: true } & SessionRecovery)
+    | ({ success: boolean; resumed: false } & InventoryJournalStats)
+  >;
+  /**
+   * Exporta el inventario del journal a un archivo en la caché de la app sin cargarlo en memoria.
+   * `csv` escribe el estado actual de cada EPC; `binary` copia los registros crudos de 48 bytes.
+   * @since 1.1.0
+   */
+  exportInventory(options?: { format?: 'csv' | 'binary' }): Promise<{
     success: boolean;
+    format: 'csv' | 'binary';
+    path: string;
+    records: number;
+    bytes: number;
   }>;
   /**
    * Limpia el buffer del lector RFID.
@@ -89,7 +673,9 @@ export interface RFIDPluginPlugin {
    */
   clearBuffer(): Promise<{
     success: boolean;
+    /** Tags removed; the buffer is drained until empty. */
     cleared: number;
+    drainMs?: number;
     message?: string;
   }>;
 
@@ -113,6 +699,34 @@ export interface RFIDPluginPlugin {
     listenerFunc: (tag: { epc: string; rssi: string; timestamp?: number }) => void,
   ): Promise<any>;
 
+  /**
+   * Evento emitido con un lote de lecturas cuando `startReading` se llamó con `batch`
+   * @since 1.1.0
+   */
+  addListener(eventName: 'tagBatch', listenerFunc: (batch: TagBatchEvent) => void): Promise<any>;
+
+  /**
+   * Evento con un lote empaquetado cuando `startReading` se llamó con `batch: { format: 'compact' }`.
+   * Usar `decodeCompactTagBatch` para obtener las lecturas.
+   * @since 1.1.0
+   */
+  addListener(
+    eventName: 'tagBatchCompact',
+    listenerFunc: (batch: CompactTagBatchEvent) => void,
+  ): Promise<any>;
+
+  /**
+   * Evento periódico con las entradas agregadas que cambiaron cuando `startReading` se llamó con `aggregate`
+   * @since 1.1.0
+   */
+  addListener(eventName: 'inventoryDelta', listenerFunc: (delta: InventoryDeltaEvent) => void): Promise<any>;
+
+  /**
+   * Evento con la timeline de una sesión cuando `setPerformanceSampling({ enabled: true })`
+   * @since 1.1.0
+   */
+  addListener(eventName: 'perfSample', listenerFunc: (sample: PerfSampleEvent) => void): Promise<any>;
+
   /**
    * Eventos emitidos durante la inicialización del lector
    * @since 1.0.0
@@ -136,6 +750,14 @@ export interface RFIDPluginPlugin {
     eventName: 'triggerReleased',
     listenerFunc: (data: { message: string; keyCode?: number; timestamp?: number }) => void,
   ): Promise<any>;
+  /**
+   * Event emitted after the native trigger mode started or stopped inventory
+   * @since 1.1.0
+   */
+  addListener(
+    eventName: 'triggerReadingStarted' | 'triggerReadingStopped',
+    listenerFunc: (event: TriggerReadingEvent) => void,
+  ): Promise<any>;
   /**
    * Event emitted when the trigger is auto-reset due to timeout
    * @since 1.0.0
@@ -153,6 +775,25 @@ export interface RFIDPluginPlugin {
     listenerFunc: (data: { message: string; success: boolean }) => void,
   ): Promise<any>;
 
+  /**
+   * Event emitted at a fixed cadence while locate mode is running
+   * @since 1.1.0
+   */
+  addListener(
+    eventName: 'locateUpdate',
+    listenerFunc: (update: LocateUpdate) => void,
+  ): Promise<any>;
+
+  /**
+   * Event emitted when `load()` rebuilt an interrupted inventory session; call `resumeSession()` to continue it.
+   * Retained until a listener is added.
+   * @since 1.1.0
+   */
+  addListener(
+    eventName: 'sessionRecovered',
+    listenerFunc: (recovery: SessionRecovery) => void,
+  ): Promise<any>;
+
   /**
    * Event emitted when a target tag is found during filtered reading
    * @since 1.0.0
@@ -169,7 +810,13 @@ export interface RFIDPluginPlugin {
    * @returns Promise with the result of starting filtered reading
    * @since 1.0.0
    */
-  startFilteredReading(options: { targetTags: string[] }): Promise<{
+  startFilteredReading(options: {
+    targetTags: string[];
+    /** Keep the tags already found (e.g. after `resumeSession()`) instead of notifying them again. */
+    keepFound?: boolean;
+    /** Feed matched reads into the aggregated inventory (`getInventorySnapshot()`); always on with the journal. */
+    aggregate?: boolean;
+  }): Promise<{
     success: boolean;
     message: string;
     targetCount: number;
@@ -185,8 +832,40 @@ export interface RFIDPluginPlugin {
     message: string;
     foundCount: number;
     targetCount: number;
+    flushedCount?: number;
+    undrainedCount?: number;
+    /** Reads of target tags in this session. */
+    matchedReads?: number;
+    droppedCount?: number;
+    cancelledStart?: boolean;
+  } & SessionLatency>;
+
+  /**
+   * Locate ("Geiger") mode: inventories only `epc`, using the module's select filter when supported,
+   * smooths its RSSI natively and emits `locateUpdate` every `intervalMs`. No per-read events reach JS.
+   * @since 1.1.0
+   */
+  startLocate(options: LocateOptions): Promise<{
+    success: boolean;
+    epc: string;
+    /** false when the module filter could not be set and non-target reads are dropped natively. */
+    filterApplied: boolean;
+    intervalMs: number;
   }>;
 
+  /**
+   * Stops locate mode and clears the module filter.
+   * @since 1.1.0
+   */
+  stopLocate(): Promise<{
+    success: boolean;
+    epc?: string;
+    reads?: number;
+    filterApplied?: boolean;
+    droppedCount?: number;
+    cancelledStart?: boolean;
+  } & SessionLatency>;
+
   /**
    * Gets the current status of filtered reading session.
    * @returns Promise with current status and statistics
@@ -240,15 +919,36 @@ export interface RFIDPluginPlugin {
     message: string;
   }>;
 
+  /**
+   * Starts the InfoWedge key-state fallback for devices without the accessibility service.
+   * It only polls while the app is in the foreground and the accessibility service is disabled.
+   * @param options `maxIntervalMs` caps the idle polling interval (50–1000 ms, default 120)
+   * @since 1.1.0
+   */
+  startInfoWedgeMonitoring(options?: { maxIntervalMs?: number }): Promise<
+    {
+      success: boolean;
+      message: string;
+    } & InfoWedgeMonitoringStats
+  >;
+
   /**
    * Stops the InfoWedge monitoring system
    * @returns Promise with stop result
    * @since 1.0.0
    */
-  stopInfoWedgeMonitoring(): Promise<{
-    success: boolean;
-    message: string;
-  }>;
+  stopInfoWedgeMonitoring(): Promise<
+    {
+      success: boolean;
+      message: string;
+    } & Partial<InfoWedgeMonitoringStats>
+  >;
+
+  /**
+   * Cost of the InfoWedge fallback (CPU time, ticks, current interval)
+   * @since 1.1.0
+   */
+  getInfoWedgeMonitoringStats(): Promise<{ success: boolean } & InfoWedgeMonitoringStats>;
 
   /**
    * Checks if the accessibility service is enabled
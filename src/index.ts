@@ -1,8 +1,63 @@
 import { registerPlugin } from '@capacitor/core';
 
-import type { RFIDPluginPlugin } from './definitions';
+import type { CompactTagBatchEvent, CompactTagRead, RFIDPluginPlugin } from './definitions';
 
 const RFIDPlugin = registerPlugin<RFIDPluginPlugin>('RFIDUHF');
 
+const COMPACT_FORMAT_VERSION = 1;
+const FLAG_ODD_LENGTH = 1;
+const FLAG_TEXT = 2;
+const RSSI_MISSING = -32768;
+const HEX: string[] = [];
+for (let i = 0; i < 256; i++) {
+  HEX.push((i < 16 ? '0' : '') + i.toString(16).toUpperCase());
+}
+
+/**
+ * Decodes a `tagBatchCompact` event into plain reads (layout in `CompactTagEncoder.java`).
+ */
+export function decodeCompactTagBatch(batch: CompactTagBatchEvent): CompactTagRead[] {
+  const binary = atob(batch.data);
+  const bytes = new Uint8Array(binary.length);
+  for (let i = 0; i < binary.length; i++) {
+    bytes[i] = binary.charCodeAt(i);
+  }
+  const view = new DataView(bytes.buffer);
+  if (bytes.length < 4 || view.getUint8(0) !== COMPACT_FORMAT_VERSION) {
+    throw new Error(`Unsupported compact batch version ${bytes.length > 0 ? view.getUint8(0) : 'none'}`);
+  }
+
+  const count = view.getUint16(2, true);
+  const reads: CompactTagRead[] = new Array(count);
+  let pos = 4;
+  for (let r = 0; r < count; r++) {
+    const length = view.getUint8(pos);
+    const flags = view.getUint8(pos + 1);
+    const rssi = view.getInt16(pos + 2, true);
+    const delta = view.getUint32(pos + 4, true);
+    pos += 8;
+
+    let epc = '';
+    if (flags & FLAG_TEXT) {
+      epc = String.fromCharCode(...bytes.subarray(pos, pos + length));
+    } else {
+      for (let i = 0; i < length; i++) {
+        epc += HEX[bytes[pos + i]];
+      }
+      if (flags & FLAG_ODD_LENGTH) {
+        epc = epc.slice(0, -1);
+      }
+    }
+    pos += length;
+
+    reads[r] = {
+      epc,
+      rssi: rssi === RSSI_MISSING ? null : rssi / 100,
+      timestamp: batch.baseTimestamp + delta,
+    };
+  }
+  return reads;
+}
+
 export * from './definitions';
 export { RFIDPlugin };
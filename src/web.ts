@@ -1,17 +1,96 @@
 import { WebPlugin, PluginListenerHandle } from '@capacitor/core';
 
-import type { RFIDPluginPlugin } from './definitions';
+import type {
+  AdaptivePowerOptions,
+  BufferedTag,
+  EpcValidationOptions,
+  FlowControlStats,
+  InfoWedgeMonitoringStats,
+  InventoryEntry,
+  InventoryJournalStats,
+  LocateOptions,
+  LogLevel,
+  PerformanceStats,
+  ReadBufferedTagsOptions,
+  ReaderState,
+  RFIDPluginPlugin,
+  SessionLatency,
+  SessionRecovery,
+  SimulatorOptions,
+  StartReadingOptions,
+  TriggerModeName,
+  TriggerModeOptions,
+} from './definitions';
 
 export class RFIDPluginWeb extends WebPlugin implements RFIDPluginPlugin {
   async initReader(): Promise<{ success: boolean; message: string }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async startReading(): Promise<{ success: boolean; message: string }> {
+  async startReading(
+    _options?: StartReadingOptions,
+  ): Promise<{ success: boolean; message: string; warmStart?: boolean; startupMs?: number }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async stopReading(): Promise<{ success: boolean; message: string }> {
+  async stopReading(): Promise<
+    {
+      success: boolean;
+      message: string;
+      droppedCount?: number;
+      flowControl?: FlowControlStats;
+    } & SessionLatency
+  > {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async ackTagBatch(_options: { seq: number; window?: number }): Promise<{ success: boolean }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getFlowControlStats(): Promise<{ success: boolean; active: boolean } & Partial<FlowControlStats>> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async setInventoryJournal(_options: { enabled: boolean }): Promise<{ success: boolean } & InventoryJournalStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async resumeSession(): Promise<
+    | ({ success: boolean; resumed: true } & SessionRecovery)
+    | ({ success: boolean; resumed: false } & InventoryJournalStats)
+  > {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async exportInventory(_options?: { format?: 'csv' | 'binary' }): Promise<{
+    success: boolean;
+    format: 'csv' | 'binary';
+    path: string;
+    records: number;
+    bytes: number;
+  }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async setLogLevel(_options: { level: LogLevel }): Promise<{ success: boolean; level: LogLevel }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async setReaderBackend(_options: {
+    backend: 'chainway' | 'simulator';
+    simulator?: SimulatorOptions;
+  }): Promise<{ success: boolean; backend: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async setTriggerMode(_options: TriggerModeOptions): Promise<{ success: boolean; mode: TriggerModeName }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async setReaderIdleTimeout(_options: {
+    idleTimeoutMs: number;
+  }): Promise<{ success: boolean; idleTimeoutMs: number; readerState: ReaderState }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
@@ -19,7 +98,7 @@ export class RFIDPluginWeb extends WebPlugin implements RFIDPluginPlugin {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async setPower(options: { power: number }): Promise<{ success: boolean; power: number }> {
+  async setPower(_options: { power: number }): Promise<{ success: boolean; power: number }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
@@ -27,15 +106,57 @@ export class RFIDPluginWeb extends WebPlugin implements RFIDPluginPlugin {
     throw this.unimplemented('Not implemented on web.');
   }
 
+  async setAdaptivePower(_options: AdaptivePowerOptions): Promise<{
+    success: boolean;
+    enabled: boolean;
+    goal?: 'zone' | 'discovery';
+    minPower?: number;
+    maxPower?: number;
+    running?: boolean;
+  }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
   async free(): Promise<{ success: boolean }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async getInventoryStatus(): Promise<{ isRunning: boolean; success: boolean }> {
+  async getInventoryStatus(): Promise<{
+    isRunning: boolean;
+    rejectedCount?: number;
+    droppedCount?: number;
+    bufferHighWaterMark?: number;
+    bufferCapacity?: number;
+    readerState?: ReaderState;
+    success: boolean;
+  } & SessionLatency> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getPerformanceStats(_options?: { reset?: boolean }): Promise<PerformanceStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async setPerformanceSampling(_options: { enabled: boolean }): Promise<{ success: boolean; enabled: boolean }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async clearBuffer(): Promise<{ success: boolean; cleared: number; message?: string }> {
+  async setEpcValidation(_options: EpcValidationOptions): Promise<{
+    success: boolean;
+    minLength: number;
+    maxLength: number;
+    requireWordAligned: boolean;
+    rejectAllZero: boolean;
+    previousRejectedCount: number;
+  }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getInventorySnapshot(_options?: { clear?: boolean }): Promise<{ success: boolean; entries: InventoryEntry[]; uniqueCount: number; totalReads: number }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async clearBuffer(): Promise<{ success: boolean; cleared: number; drainMs?: number; message?: string }> {
     throw this.unimplemented('Not implemented on web.');
   }
 
@@ -47,11 +168,51 @@ export class RFIDPluginWeb extends WebPlugin implements RFIDPluginPlugin {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async startFilteredReading(options: { targetTags: string[] }): Promise<{ success: boolean; message: string; targetCount: number }> {
+  async readBufferedTags(_options?: ReadBufferedTagsOptions): Promise<{
+    success: boolean;
+    tags: BufferedTag[] | InventoryEntry[];
+    count: number;
+    reads: number;
+    rejectedCount: number;
+    more: boolean;
+    drainMs: number;
+  }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async startFilteredReading(_options: {
+    targetTags: string[];
+    keepFound?: boolean;
+  }): Promise<{ success: boolean; message: string; targetCount: number }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async startLocate(_options: LocateOptions): Promise<{
+    success: boolean;
+    epc: string;
+    filterApplied: boolean;
+    intervalMs: number;
+  }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async stopLocate(): Promise<{
+    success: boolean;
+    epc?: string;
+    reads?: number;
+    filterApplied?: boolean;
+    droppedCount?: number;
+  } & SessionLatency> {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async stopFilteredReading(): Promise<{ success: boolean; message: string; foundCount: number; targetCount: number }> {
+  async stopFilteredReading(): Promise<{
+    success: boolean;
+    message: string;
+    foundCount: number;
+    targetCount: number;
+    droppedCount?: number;
+  } & SessionLatency> {
     throw this.unimplemented('Not implemented on web.');
   }
 
@@ -63,11 +224,23 @@ export class RFIDPluginWeb extends WebPlugin implements RFIDPluginPlugin {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async simulateKeyPress(options?: { keyCode?: number }): Promise<{ success: boolean; message: string }> {
+  async simulateKeyPress(_options?: { keyCode?: number }): Promise<{ success: boolean; message: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async startInfoWedgeMonitoring(
+    _options?: { maxIntervalMs?: number },
+  ): Promise<{ success: boolean; message: string } & InfoWedgeMonitoringStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async stopInfoWedgeMonitoring(): Promise<
+    { success: boolean; message: string } & Partial<InfoWedgeMonitoringStats>
+  > {
     throw this.unimplemented('Not implemented on web.');
   }
 
-  async stopInfoWedgeMonitoring(): Promise<{ success: boolean; message: string }> {
+  async getInfoWedgeMonitoringStats(): Promise<{ success: boolean } & InfoWedgeMonitoringStats> {
     throw this.unimplemented('Not implemented on web.');
   }
 